@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.benchmarks;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import technology.dice.dicefairlink.driver.FairlinkConnectionString;
+import technology.dice.dicefairlink.iterators.AtomicCyclicIterator;
+import technology.dice.dicefairlink.iterators.SizedIterator;
+
+/** Rendering the delegate URL of a replica on every connect, versus looking up a rendered one. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DelegateConnectionStringBenchmark {
+  private static final String URL =
+      "jdbc:fairlink:mysql://my-cluster.cluster-xxxxx.eu-west-1.rds.amazonaws.com:3306/schema"
+          + "?useSSL=true&connectTimeout=2000";
+
+  private FairlinkConnectionString rendering;
+  private FairlinkConnectionString prerendered;
+  private SizedIterator<String> replicas;
+
+  @Setup
+  public void setup() throws URISyntaxException {
+    final List<String> hosts = new ArrayList<>();
+    for (int i = 0; i < 15; i++) {
+      hosts.add("replica-" + i + ".xxxxx.eu-west-1.rds.amazonaws.com");
+    }
+    this.replicas = AtomicCyclicIterator.of(hosts);
+    this.rendering = new FairlinkConnectionString(URL, new Properties());
+    this.prerendered = new FairlinkConnectionString(URL, new Properties());
+    this.prerendered.prerenderDelegates(hosts);
+  }
+
+  @Benchmark
+  public String renderPerConnect() throws URISyntaxException {
+    return rendering.delegateConnectionString(replicas.next());
+  }
+
+  @Benchmark
+  public String prerenderedLookup() throws URISyntaxException {
+    return prerendered.delegateConnectionString(replicas.next());
+  }
+}
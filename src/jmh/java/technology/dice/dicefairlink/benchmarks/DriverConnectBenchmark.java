@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.benchmarks;
+
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.members.ClusterInfo;
+import technology.dice.dicefairlink.discovery.members.FairlinkMemberFinder;
+import technology.dice.dicefairlink.driver.AuroraReadReplicasDriver;
+import technology.dice.dicefairlink.driver.FairlinkConnectionString;
+import technology.dice.dicefairlink.iterators.RandomisedCyclicIterator;
+import technology.dice.dicefairlink.support.driver.TestDriver;
+
+/**
+ * The full {@link AuroraReadReplicasDriver#connect} path, against a stub delegate driver that does
+ * not open any connection. What is measured is fairlink's own overhead per connect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DriverConnectBenchmark {
+  private static final String URL = "jdbc:fairlink:fairlinktestdriver://my-cluster:3306/schema";
+  private static final String FOREIGN_URL = "jdbc:fairlinktestdriver://my-cluster:3306/schema";
+
+  private final Properties properties = ReadonlyEndpointBenchmark.benchmarkProperties();
+  private final List<ScheduledThreadPoolExecutor> executors = new ArrayList<>();
+  private AuroraReadReplicasDriver driver;
+
+  @Setup
+  public void setup() throws SQLException {
+    DriverManager.registerDriver(new TestDriver());
+    final List<String> replicas = new ArrayList<>();
+    for (int i = 0; i < 15; i++) {
+      replicas.add("replica-" + i);
+    }
+    this.driver =
+        new AuroraReadReplicasDriver(
+            this::newExecutor,
+            this::newExecutor,
+            () -> tag -> Collections.emptySet(),
+            () -> {
+              try {
+                return new FairlinkMemberFinder(
+                    new FairlinkConfiguration(properties, new HashMap<>()),
+                    new FairlinkConnectionString(URL, properties),
+                    tag -> Collections.emptySet(),
+                    () -> new ClusterInfo("my-cluster-ro", new HashSet<>(replicas)),
+                    RandomisedCyclicIterator::of,
+                    (host, p) -> true);
+              } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+              }
+            },
+            null,
+            null);
+    this.driver.connect(URL, properties);
+  }
+
+  private ScheduledThreadPoolExecutor newExecutor() {
+    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+    this.executors.add(executor);
+    return executor;
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.executors.forEach(ScheduledThreadPoolExecutor::shutdownNow);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Connection connect() throws SQLException {
+    return driver.connect(URL, properties);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Connection connect08Threads() throws SQLException {
+    return driver.connect(URL, properties);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public Connection foreignUrl() throws SQLException {
+    return driver.connect(FOREIGN_URL, properties);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.benchmarks;
+
+import java.net.URISyntaxException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import technology.dice.dicefairlink.driver.FairlinkConnectionString;
+import technology.dice.dicefairlink.driver.FairlinkConnectionStringCache;
+
+/** Parsing and recognising connection strings, which happens on every connect. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FairlinkConnectionStringBenchmark {
+  private static final String FAIRLINK_URL =
+      "jdbc:fairlink:mysql://my-cluster.cluster-xxxxx.eu-west-1.rds.amazonaws.com:3306/schema"
+          + "?useSSL=true&connectTimeout=2000";
+  private static final String FOREIGN_URL =
+      "jdbc:mysql://my-cluster.cluster-xxxxx.eu-west-1.rds.amazonaws.com:3306/schema";
+
+  private final Properties properties = new Properties();
+  private FairlinkConnectionStringCache cache;
+
+  @Setup
+  public void setup() throws URISyntaxException {
+    this.cache = new FairlinkConnectionStringCache();
+    this.cache.get(FAIRLINK_URL, properties);
+  }
+
+  @Benchmark
+  public FairlinkConnectionString parse() throws URISyntaxException {
+    return new FairlinkConnectionString(FAIRLINK_URL, properties);
+  }
+
+  @Benchmark
+  public FairlinkConnectionString cachedParse() throws URISyntaxException {
+    return cache.get(FAIRLINK_URL, properties);
+  }
+
+  @Benchmark
+  public boolean acceptsFairlinkUrl() {
+    return FairlinkConnectionString.accepts(FAIRLINK_URL);
+  }
+
+  @Benchmark
+  public boolean rejectsForeignUrl() {
+    return FairlinkConnectionString.accepts(FOREIGN_URL);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import technology.dice.dicefairlink.AuroraReadonlyEndpoint;
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.iterators.RandomisedCyclicIterator;
+
+/** Picking the next replica of a cluster, as done once per connect. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadonlyEndpointBenchmark {
+  private ScheduledThreadPoolExecutor discoveryExecutor;
+  private AuroraReadonlyEndpoint endpoint;
+
+  static Properties benchmarkProperties() {
+    final Properties properties = new Properties();
+    properties.setProperty("auroraClusterRegion", "eu-west-1");
+    properties.setProperty("auroraDiscoveryAuthMode", "basic");
+    properties.setProperty("auroraDiscoveryKeyId", "keyId");
+    properties.setProperty("auroraDiscoverKeySecret", "keySecret");
+    properties.setProperty("replicaEndpointTemplate", "%s");
+    properties.setProperty("replicaPollInterval", "3600");
+    properties.setProperty("tagsPollInterval", "3600");
+    properties.setProperty("validateConnection", "false");
+    return properties;
+  }
+
+  @Setup
+  public void setup() {
+    final List<String> hosts = new ArrayList<>();
+    for (int i = 0; i < 15; i++) {
+      hosts.add("replica-" + i + ".xxxxx.eu-west-1.rds.amazonaws.com");
+    }
+    this.discoveryExecutor = new ScheduledThreadPoolExecutor(1);
+    this.endpoint =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(benchmarkProperties(), new HashMap<>()),
+            () -> RandomisedCyclicIterator.of(hosts),
+            this.discoveryExecutor);
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.discoveryExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String threads01() {
+    return endpoint.getNextReplica();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String threads08() {
+    return endpoint.getNextReplica();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public String threads64() {
+    return endpoint.getNextReplica();
+  }
+}
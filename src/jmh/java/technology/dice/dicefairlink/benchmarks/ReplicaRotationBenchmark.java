@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import technology.dice.dicefairlink.iterators.AtomicCyclicIterator;
+import technology.dice.dicefairlink.iterators.CyclicIterator;
+import technology.dice.dicefairlink.iterators.RandomisedCyclicIterator;
+import technology.dice.dicefairlink.iterators.SizedIterator;
+
+/** Contention between pool threads picking the next replica from a shared iterator. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplicaRotationBenchmark {
+  @Param({"cyclic", "atomic", "randomised"})
+  private String iterator;
+
+  @Param({"3", "15"})
+  private int replicas;
+
+  private SizedIterator<String> underTest;
+
+  @Setup
+  public void setup() {
+    final List<String> hosts = new ArrayList<>(replicas);
+    for (int i = 0; i < replicas; i++) {
+      hosts.add("replica-" + i + ".cluster.eu-west-1.rds.amazonaws.com");
+    }
+    switch (iterator) {
+      case "cyclic":
+        this.underTest = new CyclicIterator<String>(hosts) {};
+        break;
+      case "atomic":
+        this.underTest = AtomicCyclicIterator.of(hosts);
+        break;
+      case "randomised":
+        this.underTest = RandomisedCyclicIterator.of(hosts);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown iterator " + iterator);
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String threads01() {
+    return underTest.next();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String threads08() {
+    return underTest.next();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public String threads64() {
+    return underTest.next();
+  }
+}
@@ -6,49 +6,592 @@
 package technology.dice.dicefairlink;
 
 import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.Futures;
+import technology.dice.dicefairlink.discovery.members.DiscoveryOutcome;
 import technology.dice.dicefairlink.discovery.members.MemberFinder;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
+import technology.dice.dicefairlink.health.ConnectLatencies;
+import technology.dice.dicefairlink.health.ReplicaCircuitBreakers;
 import technology.dice.dicefairlink.iterators.SizedIterator;
+import technology.dice.dicefairlink.scheduling.AdaptivePollInterval;
+import technology.dice.dicefairlink.selection.ReplicaCandidates;
+import technology.dice.dicefairlink.selection.ReplicaSelector;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class AuroraReadonlyEndpoint {
   private static final Logger LOGGER = Logger.getLogger(AuroraReadonlyEndpoint.class.getName());
+  private static final int HEDGE_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
   private final MemberFinder fairlinkMemberFinder;
-  private volatile SizedIterator<String> replicas;
-  private final AtomicReference<String> lastReplica = new AtomicReference<>();
+  private final ScheduledExecutorService replicaDiscoveryExecutor;
+  private final AdaptivePollInterval pollInterval;
+  private final ReplicaCircuitBreakers circuitBreakers;
+  private final int connectAttempts;
+  private final Optional<Duration> configuredConnectDeadline;
+  private final double connectHedgePercentile;
+  private final ScheduledExecutorService hedgeExecutor;
+  private final boolean ownsHedgeExecutor;
+  private final ConnectLatencies connectLatencies = new ConnectLatencies();
+  private final ReplicaSelector replicaSelector;
+  private volatile Replicas replicas;
+  private CompletableFuture<SizedIterator<String>> inFlight;
+  private ScheduledFuture<?> nextRefresh;
+  private long nextRefreshAtNanos;
+  private boolean closed = false;
 
+  /** An endpoint hedging, if configured to, on a pool of its own, shut down when it is closed. */
   public AuroraReadonlyEndpoint(
       FairlinkConfiguration fairlinkConfiguration,
       MemberFinder fairlinkMemberFinder,
       ScheduledExecutorService replicaDiscoveryExecutor) {
+    this(
+        fairlinkConfiguration,
+        fairlinkMemberFinder,
+        replicaDiscoveryExecutor,
+        AuroraReadonlyEndpoint::newHedgeExecutor,
+        true);
+  }
+
+  /**
+   * An endpoint hedging, if configured to, on the given pool, which is only asked for when hedging
+   * is on, and is left to its owner to shut down.
+   */
+  public AuroraReadonlyEndpoint(
+      FairlinkConfiguration fairlinkConfiguration,
+      MemberFinder fairlinkMemberFinder,
+      ScheduledExecutorService replicaDiscoveryExecutor,
+      Supplier<ScheduledExecutorService> hedgeExecutor) {
+    this(
+        fairlinkConfiguration,
+        fairlinkMemberFinder,
+        replicaDiscoveryExecutor,
+        hedgeExecutor,
+        false);
+  }
+
+  private AuroraReadonlyEndpoint(
+      FairlinkConfiguration fairlinkConfiguration,
+      MemberFinder fairlinkMemberFinder,
+      ScheduledExecutorService replicaDiscoveryExecutor,
+      Supplier<ScheduledExecutorService> hedgeExecutor,
+      boolean ownsHedgeExecutor) {
 
     this.fairlinkMemberFinder = fairlinkMemberFinder;
-    replicas = fairlinkMemberFinder.init();
+    this.replicaDiscoveryExecutor = replicaDiscoveryExecutor;
+    this.pollInterval =
+        new AdaptivePollInterval(
+            fairlinkConfiguration.getReplicaPollIntervalMin(),
+            fairlinkConfiguration.getReplicaPollIntervalMax(),
+            fairlinkConfiguration.getReplicaPollFastWindow());
+    this.circuitBreakers =
+        new ReplicaCircuitBreakers(
+            fairlinkConfiguration.getCircuitBreakerFailureThreshold(),
+            fairlinkConfiguration.getCircuitBreakerOpenInterval());
+    this.connectAttempts = fairlinkConfiguration.getConnectAttempts();
+    this.configuredConnectDeadline = fairlinkConfiguration.getConnectDeadline();
+    this.connectHedgePercentile = fairlinkConfiguration.getConnectHedgePercentile();
+    this.hedgeExecutor = this.connectHedgePercentile > 0 ? hedgeExecutor.get() : null;
+    this.ownsHedgeExecutor = ownsHedgeExecutor;
+    this.replicaSelector = fairlinkMemberFinder.replicaSelector();
+    this.replicas = new Replicas(fairlinkMemberFinder.init(), fairlinkMemberFinder.replicas());
     final Duration startJitter = fairlinkConfiguration.randomBoundDelay();
     LOGGER.log(Level.INFO, "Starting cluster member discovery with {0} delay.", startJitter);
-    replicaDiscoveryExecutor.scheduleAtFixedRate(
-        () -> replicas = fairlinkMemberFinder.discoverReplicas(),
-        fairlinkConfiguration.getReplicaPollInterval().plus(startJitter).getSeconds(),
-        fairlinkConfiguration.getReplicaPollInterval().getSeconds(),
-        TimeUnit.SECONDS);
+    this.scheduleRefresh(fairlinkConfiguration.getReplicaPollInterval().plus(startJitter));
+  }
+
+  /**
+   * A pool for hedged connections, bounded so that a burst of slow connections does not start a
+   * thread for each. Hedges not started by the time their connection is made are dropped, and so
+   * are those not started when the pool is shut down.
+   */
+  public static ScheduledExecutorService newHedgeExecutor() {
+    final ScheduledThreadPoolExecutor executor =
+        new ScheduledThreadPoolExecutor(
+            HEDGE_THREADS,
+            runnable -> {
+              final Thread thread = new Thread(runnable, "fairlink-hedged-connect");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.setRemoveOnCancelPolicy(true);
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    executor.setKeepAliveTime(1, TimeUnit.MINUTES);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
   }
 
   public String getNextReplica() {
-    String nextReplica = replicas.next();
-    LOGGER.finer("Obtained replica: " + nextReplica);
-    if (nextReplica != null && nextReplica.equals(lastReplica.get()) && replicas.size() > 1) {
-      nextReplica = replicas.next();
+    return this.getNextReplica(Collections.emptySet(), Optional.empty());
+  }
+
+  /**
+   * The next replica, as the replica selector picks it, skipping the given ones, those further
+   * behind the writer than the given staleness, and those whose circuit breaker is open.
+   */
+  private String getNextReplica(Set<String> excluded, Optional<Duration> maxStaleness) {
+    final Replicas current = this.replicas;
+    return this.replicaSelector.select(
+        current.iterator,
+        current.snapshot,
+        new ReplicaCandidates(
+            replica -> !excluded.contains(replica),
+            replica -> this.isStale(replica, maxStaleness),
+            this.circuitBreakers));
+  }
+
+  /**
+   * Connects to the next replica. When the replica can not be reached, the connection is attempted
+   * on other replicas, up to the configured number of attempts, for as long as the connect deadline
+   * allows. Other failures, such as authentication errors, are thrown straight away.
+   */
+  public Connection connect(ReplicaConnector connector) throws SQLException {
+    return this.connect(connector, Optional.empty());
+  }
+
+  /**
+   * Connects to the next replica that was no further behind the writer than the given staleness
+   * at the last discovery. Replicas whose lag is unknown are not held back.
+   *
+   * @throws SQLTransientException if every replica is too far behind
+   */
+  public Connection connect(ReplicaConnector connector, Optional<Duration> maxStaleness)
+      throws SQLException {
+    if (maxStaleness.isPresent() && !this.anyWithin(maxStaleness)) {
+      throw new SQLTransientException(
+          "No replica is within " + maxStaleness.get() + " of the writer");
+    }
+    if (this.connectAttempts <= 1 && this.connectHedgePercentile <= 0) {
+      return this.attemptOn(connector, this.getNextReplica(Collections.emptySet(), maxStaleness));
+    }
+    final long startedAt = System.nanoTime();
+    // only hedging needs the tried replicas up front, otherwise they are tracked once one fails
+    // the hedge reads and adds to them on the hedging pool
+    Set<String> tried = this.connectHedgePercentile > 0 ? ConcurrentHashMap.newKeySet() : null;
+    SQLException failure = null;
+    String replica =
+        this.getNextReplica(tried == null ? Collections.emptySet() : tried, maxStaleness);
+    while (true) {
+      if (tried != null) {
+        tried.add(replica);
+      }
+      try {
+        return this.attempt(connector, replica, tried, maxStaleness);
+      } catch (SQLException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+        if (tried == null) {
+          tried = new HashSet<>();
+          tried.add(replica);
+        }
+        if (tried.size() >= this.connectAttempts
+            || !ReplicaCircuitBreakers.isConnectionFailure(e)
+            || this.pastDeadline(startedAt)) {
+          throw failure;
+        }
+      }
+      replica = this.getNextReplica(tried, maxStaleness);
+      if (tried.contains(replica)) {
+        throw failure;
+      }
+      LOGGER.log(Level.FINE, "Retrying the connection on replica {0}", replica);
+    }
+  }
+
+  /** Whether any replica was within the staleness at the last discovery, or none are known. */
+  private boolean anyWithin(Optional<Duration> maxStaleness) {
+    final List<String> replicas = this.replicas.snapshot;
+    if (replicas.isEmpty()) {
+      return true;
+    }
+    for (int i = 0; i < replicas.size(); i++) {
+      if (!this.isStale(replicas.get(i), maxStaleness)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isStale(String replica, Optional<Duration> maxStaleness) {
+    if (!maxStaleness.isPresent()) {
+      return false;
+    }
+    final Optional<Duration> lag =
+        this.fairlinkMemberFinder.replicaMetadata(replica).flatMap(ReplicaMetadata::getReplicaLag);
+    return lag.isPresent() && lag.get().compareTo(maxStaleness.get()) > 0;
+  }
+
+  /**
+   * Connects to the replica on the calling thread. With hedging on, if that takes longer than the
+   * configured percentile of recent connections, the connection is also attempted on another
+   * replica, which is added to the tried ones, on a small pool of hedging threads. The first
+   * connection made is returned, and the other one is closed on the hedging pool. A replica the
+   * delegate returns no connection for counts as failed on either side. The tried replicas are
+   * only needed, and only given, with hedging on.
+   */
+  private Connection attempt(
+      ReplicaConnector connector,
+      String replica,
+      Set<String> tried,
+      Optional<Duration> maxStaleness)
+      throws SQLException {
+    final Optional<Duration> hedgeDelay =
+        this.connectHedgePercentile > 0
+            ? this.connectLatencies.percentile(this.connectHedgePercentile)
+            : Optional.empty();
+    if (!hedgeDelay.isPresent()) {
+      return this.attemptOn(connector, replica);
+    }
+    final AtomicBoolean started = new AtomicBoolean(false);
+    final AtomicBoolean decided = new AtomicBoolean(false);
+    final CompletableFuture<Connection> hedged = new CompletableFuture<>();
+    final ScheduledFuture<?> hedge;
+    try {
+      hedge =
+          this.hedgeExecutor.schedule(
+              () -> {
+                if (started.compareAndSet(false, true)) {
+                  this.hedge(
+                      connector, replica, tried, maxStaleness, hedgeDelay.get(), decided, hedged);
+                }
+              },
+              hedgeDelay.get().toNanos(),
+              TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // the hedging pool is shut down along with the driver
+      return this.attemptOn(connector, replica);
+    }
+    final Connection connection;
+    try {
+      connection = this.attemptOn(connector, replica);
+    } catch (SQLException e) {
+      if (cancelUnlessStarted(hedge, started)) {
+        throw e;
+      }
+      return this.awaitHedge(hedged, e);
+    } catch (RuntimeException e) {
+      if (!cancelUnlessStarted(hedge, started)) {
+        closeWhenConnected(hedged);
+      }
+      throw e;
+    }
+    if (connection == null) {
+      return cancelUnlessStarted(hedge, started) ? null : awaitHedge(hedged);
+    }
+    if (cancelUnlessStarted(hedge, started) || decided.compareAndSet(false, true)) {
+      return connection;
+    }
+    this.closeOnHedgingPool(connection);
+    return Futures.join(hedged);
+  }
+
+  /**
+   * Whether the hedge was stopped before it started. Cancelling the scheduled task alone does not
+   * tell, as a task still running can be cancelled too.
+   */
+  private static boolean cancelUnlessStarted(ScheduledFuture<?> hedge, AtomicBoolean started) {
+    if (!started.compareAndSet(false, true)) {
+      return false;
+    }
+    hedge.cancel(false);
+    return true;
+  }
+
+  /**
+   * Attempts the connection on another replica, unless every replica was tried. The connection is
+   * closed if the one on the calling thread was made first.
+   */
+  private void hedge(
+      ReplicaConnector connector,
+      String replica,
+      Set<String> tried,
+      Optional<Duration> maxStaleness,
+      Duration delay,
+      AtomicBoolean decided,
+      CompletableFuture<Connection> hedged) {
+    try {
+      final String other = this.getNextReplica(tried, maxStaleness);
+      if (tried.contains(other)) {
+        hedged.cancel(false);
+        return;
+      }
+      tried.add(other);
+      LOGGER.log(
+          Level.FINE,
+          "No connection to replica {0} after {1}. Also trying replica {2}",
+          new Object[] {replica, delay, other});
+      final Connection connection = this.attemptOn(connector, other);
+      if (connection == null) {
+        hedged.cancel(false);
+        return;
+      }
+      if (!decided.compareAndSet(false, true)) {
+        closeQuietly(connection);
+      }
+      hedged.complete(connection);
+    } catch (SQLException | RuntimeException e) {
+      hedged.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * The hedged connection, once the one on the calling thread failed. If the hedge could not be
+   * made either, the first failure is thrown.
+   */
+  private Connection awaitHedge(CompletableFuture<Connection> hedged, SQLException failure)
+      throws SQLException {
+    try {
+      return hedged.get();
+    } catch (CancellationException e) {
+      throw failure;
+    } catch (InterruptedException e) {
+      closeWhenConnected(hedged);
+      Thread.currentThread().interrupt();
+      final SQLException interrupted = new SQLException("Interrupted while connecting", e);
+      interrupted.addSuppressed(failure);
+      throw interrupted;
+    } catch (ExecutionException e) {
+      failure.addSuppressed(e.getCause());
+      throw failure;
+    }
+  }
+
+  private Connection attemptOn(ReplicaConnector connector, String replica) throws SQLException {
+    final long startedAt = System.nanoTime();
+    try {
+      final Connection connection = connector.connect(replica);
+      if (connection == null) {
+        return null;
+      }
+      this.onConnectionSuccess(replica);
+      final Duration latency = Duration.ofNanos(System.nanoTime() - startedAt);
+      if (this.connectHedgePercentile > 0) {
+        this.connectLatencies.record(latency);
+      }
+      return this.replicaSelector.onConnected(replica, connection, latency);
+    } catch (SQLException e) {
+      if (ReplicaCircuitBreakers.isConnectionFailure(e)) {
+        this.replicaSelector.onUnreachable(
+            replica, Duration.ofNanos(System.nanoTime() - startedAt));
+      }
+      this.onConnectionFailure(replica, e);
+      throw e;
     }
-    lastReplica.set(nextReplica);
-    return nextReplica;
+  }
+
+  /**
+   * The hedged connection, once the delegate returned none on the calling thread, or else none
+   * either if the hedge could not be made.
+   */
+  private static Connection awaitHedge(CompletableFuture<Connection> hedged) throws SQLException {
+    try {
+      return hedged.get();
+    } catch (CancellationException | ExecutionException e) {
+      return null;
+    } catch (InterruptedException e) {
+      closeWhenConnected(hedged);
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while connecting", e);
+    }
+  }
+
+  private void closeOnHedgingPool(Connection connection) {
+    try {
+      this.hedgeExecutor.execute(() -> closeQuietly(connection));
+    } catch (RejectedExecutionException e) {
+      closeQuietly(connection);
+    }
+  }
+
+  /** Closes the connection once made, as the caller has given up on it. */
+  private static void closeWhenConnected(CompletableFuture<Connection> connecting) {
+    connecting.thenAccept(AuroraReadonlyEndpoint::closeQuietly);
+  }
+
+  private static void closeQuietly(Connection connection) {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      LOGGER.log(Level.FINE, "Could not close the connection not used by a hedged connect", e);
+    }
+  }
+
+  private boolean pastDeadline(long startedAt) {
+    final long deadlineNanos =
+        this.configuredConnectDeadline.isPresent()
+            ? this.configuredConnectDeadline.get().toNanos()
+            : TimeUnit.SECONDS.toNanos(DriverManager.getLoginTimeout());
+    return deadlineNanos > 0 && System.nanoTime() - startedAt >= deadlineNanos;
+  }
+
+  public void onConnectionSuccess(String replica) {
+    this.circuitBreakers.onSuccess(replica);
+  }
+
+  /**
+   * Records a failed connection to the replica. Only failures to reach the replica count: they
+   * speed polling up, and a replica that could not be reached too many times in a row is taken out
+   * of rotation, and the replicas are refreshed straight away. Other failures, such as
+   * authentication errors, say nothing about the topology.
+   */
+  public void onConnectionFailure(String replica, SQLException failure) {
+    if (!ReplicaCircuitBreakers.isConnectionFailure(failure)) {
+      return;
+    }
+    this.onConnectionFailure();
+    if (this.circuitBreakers.onFailure(replica)) {
+      LOGGER.log(
+          Level.WARNING,
+          "Taking replica {0} out of rotation after repeated connection failures",
+          replica);
+      this.refreshAsync();
+    }
+  }
+
+  private synchronized void scheduleRefresh(Duration delay) {
+    if (this.closed) {
+      return;
+    }
+    LOGGER.log(Level.INFO, "Next replica discovery in {0}", delay);
+    this.nextRefreshAtNanos = System.nanoTime() + delay.toNanos();
+    this.nextRefresh =
+        this.replicaDiscoveryExecutor.schedule(
+            this::scheduledRefresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void scheduledRefresh() {
+    this.refreshInFlight()
+        .whenComplete(
+            (discovered, failure) ->
+                this.scheduleRefresh(
+                    this.pollInterval.next(
+                        failure == null
+                            ? this.fairlinkMemberFinder.lastOutcome()
+                            : DiscoveryOutcome.FAILED)));
+  }
+
+  /**
+   * The refresh in flight, or else a new one. Discovery is not waited for, so that a slow
+   * discovery does not hold the calling thread, and at most one discovery runs at a time.
+   */
+  private synchronized CompletableFuture<SizedIterator<String>> refreshInFlight() {
+    if (this.inFlight != null) {
+      LOGGER.log(Level.FINE, "Joining the replica discovery in flight");
+      return this.inFlight;
+    }
+    final CompletableFuture<SizedIterator<String>> refresh = new CompletableFuture<>();
+    this.inFlight = refresh;
+    CompletableFuture<SizedIterator<String>> discovery;
+    try {
+      discovery = this.fairlinkMemberFinder.discoverReplicasAsync(this.replicaDiscoveryExecutor);
+    } catch (RuntimeException e) {
+      discovery = Futures.failed(e);
+    }
+    discovery.whenComplete(
+        (discovered, failure) -> {
+          if (failure == null) {
+            this.replicas.iterator.lastReturned().ifPresent(discovered::continueAfter);
+            this.replicas = new Replicas(discovered, this.fairlinkMemberFinder.replicas());
+          } else {
+            LOGGER.log(Level.WARNING, "Could not refresh replicas", Futures.cause(failure));
+          }
+          synchronized (this) {
+            this.inFlight = null;
+          }
+          if (failure == null) {
+            refresh.complete(discovered);
+          } else {
+            refresh.completeExceptionally(Futures.cause(failure));
+          }
+        });
+    return refresh;
+  }
+
+  /**
+   * Polls at the minimum interval for a while, as a failed connection may mean the replicas are
+   * changing. A refresh scheduled further away than the minimum interval is brought forward.
+   */
+  public synchronized void onConnectionFailure() {
+    this.pollInterval.accelerate();
+    final Duration fastest = this.pollInterval.getMin();
+    if (this.nextRefresh != null
+        && this.inFlight == null
+        && this.nextRefreshAtNanos - System.nanoTime() > fastest.toNanos()
+        && this.nextRefresh.cancel(false)) {
+      this.scheduleRefresh(fastest);
+    }
+  }
+
+  /**
+   * Refreshes the replicas, joining the refresh in flight if there is one. The returned future
+   * completes once the replicas have been refreshed.
+   */
+  public CompletableFuture<Void> refreshAsync() {
+    return this.refreshInFlight().thenApply(discovered -> null);
   }
 
   public void refresh() {
-    replicas = this.fairlinkMemberFinder.discoverReplicas();
+    Futures.join(this.refreshAsync());
+  }
+
+  /** Stops polling for replicas and closes the member finder. */
+  public void close() {
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      if (this.nextRefresh != null) {
+        this.nextRefresh.cancel(false);
+      }
+    }
+    if (this.ownsHedgeExecutor && this.hedgeExecutor != null) {
+      this.hedgeExecutor.shutdown();
+    }
+    this.fairlinkMemberFinder.close();
+  }
+
+  /** Connects to a given replica, as the driver would. */
+  @FunctionalInterface
+  public interface ReplicaConnector {
+    Connection connect(String replica) throws SQLException;
+  }
+
+  /** A discovered iterator, next to the replicas it goes over, so that they are listed once. */
+  private static final class Replicas {
+    private final SizedIterator<String> iterator;
+    private final List<String> snapshot;
+
+    private Replicas(SizedIterator<String> iterator, List<String> snapshot) {
+      this.iterator = iterator;
+      this.snapshot = snapshot;
+    }
   }
 }
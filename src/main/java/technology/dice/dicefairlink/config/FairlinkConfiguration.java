@@ -12,7 +12,13 @@ import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsPro
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
@@ -33,8 +39,51 @@ public class FairlinkConfiguration {
   public static final String VALIDATE_CONNECTION = "validateConnection";
   public static final String CLUSTER_REGION = "auroraClusterRegion";
   public static final String FALLBACK_ENDPOINT = "fallbackEndpoint";
+  public static final String LAST_KNOWN_GOOD_TTL_PROPERTY_NAME = "lastKnownGoodTtl";
+  public static final String VALIDATION_TIMEOUT_PROPERTY_NAME = "validationTimeout";
+  public static final String VALIDATION_DEADLINE_PROPERTY_NAME = "validationDeadline";
+  public static final String VALIDATION_CONCURRENCY_PROPERTY_NAME = "validationConcurrency";
+  public static final String UNANSWERED_REPLICA_POLICY_PROPERTY_NAME = "unansweredReplicaPolicy";
+  public static final String PERSISTENT_VALIDATION_CONNECTIONS = "persistentValidationConnections";
+  public static final String VALIDATION_QUERY = "validationQuery";
+  public static final String DISCOVERY_QUERY_TIMEOUT_PROPERTY_NAME = "discoveryQueryTimeout";
+  public static final String AWS_API_CALL_TIMEOUT_PROPERTY_NAME = "awsApiCallTimeout";
+  public static final String REPLICA_POLL_INTERVAL_MIN_PROPERTY_NAME = "replicaPollIntervalMin";
+  public static final String REPLICA_POLL_INTERVAL_MAX_PROPERTY_NAME = "replicaPollIntervalMax";
+  public static final String REPLICA_POLL_FAST_WINDOW_PROPERTY_NAME = "replicaPollFastWindow";
+  public static final String CIRCUIT_BREAKER_FAILURE_THRESHOLD_PROPERTY_NAME =
+      "circuitBreakerFailureThreshold";
+  public static final String CIRCUIT_BREAKER_OPEN_INTERVAL_PROPERTY_NAME =
+      "circuitBreakerOpenInterval";
+  public static final String CONNECT_ATTEMPTS_PROPERTY_NAME = "connectAttempts";
+  public static final String CONNECT_DEADLINE_PROPERTY_NAME = "connectDeadline";
+  public static final String CONNECT_HEDGE_PERCENTILE_PROPERTY_NAME = "connectHedgePercentile";
+  public static final String REPLICA_SELECTION_PROPERTY_NAME = "replicaSelection";
+  public static final String REPLICA_WEIGHTS_PROPERTY_NAME = "replicaWeights";
+  public static final String REPLICA_LATENCY_DECAY_PROPERTY_NAME = "replicaLatencyDecay";
+  public static final String MAX_REPLICA_LAG_PROPERTY_NAME = "maxReplicaLag";
+  public static final String WEIGHT_BY_CPU_HEADROOM_PROPERTY_NAME = "weightByCpuHeadroom";
+  public static final String ZONE_AFFINITY_PROPERTY_NAME = "zoneAffinity";
+  public static final String AVAILABILITY_ZONE_PROPERTY_NAME = "availabilityZone";
+  public static final String AVAILABILITY_ZONE_ENV_VAR = "FAIRLINK_AVAILABILITY_ZONE";
+  public static final String MIN_REPLICAS_IN_ZONE_PROPERTY_NAME = "minReplicasInZone";
+  public static final String MAX_STALENESS_MS_PROPERTY_NAME = "maxStalenessMs";
+  private static final String MILLISECONDS_SUFFIX = "ms";
   private static final Duration DEFAULT_POLLER_INTERVAL = Duration.ofSeconds(30);
   private static final Duration DEFAULT_TAG_POLL_INTERVAL = Duration.ofMinutes(2);
+  private static final Duration DEFAULT_LAST_KNOWN_GOOD_TTL = Duration.ofMinutes(10);
+  private static final Duration DEFAULT_VALIDATION_TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration DEFAULT_VALIDATION_DEADLINE = Duration.ofSeconds(10);
+  private static final int DEFAULT_VALIDATION_CONCURRENCY = 8;
+  private static final Duration DEFAULT_DISCOVERY_QUERY_TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration DEFAULT_AWS_API_CALL_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration DEFAULT_REPLICA_POLL_INTERVAL_MIN = Duration.ofSeconds(5);
+  private static final Duration DEFAULT_REPLICA_POLL_FAST_WINDOW = Duration.ofMinutes(1);
+  private static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 3;
+  private static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_INTERVAL = Duration.ofSeconds(10);
+  private static final int DEFAULT_CONNECT_ATTEMPTS = 1;
+  private static final Duration DEFAULT_REPLICA_LATENCY_DECAY = Duration.ofSeconds(30);
+  private static final int DEFAULT_MIN_REPLICAS_IN_ZONE = 1;
   private static final String MYSQL = "mysql";
   private static final String POSTGRESQL = "postgresql";
   private static final String AWS_ENDPOINT_OVERRIDE = "awsEndpointOverride";
@@ -43,21 +92,107 @@ public class FairlinkConfiguration {
   private final Optional<String> fallbackEndpoint;
   private final Optional<String> awsEndpointOverride;
   private final AwsCredentialsProvider awsCredentialsProvider;
+  private final String awsCredentialsIdentity;
   private final Duration replicaPollInterval;
   private final ReplicasDiscoveryMode replicasDiscoveryMode;
   private final Map<String, String> env;
   private final boolean validateConnection;
   private final Duration tagsPollerInterval;
+  private final Duration lastKnownGoodTtl;
+  private final Duration validationTimeout;
+  private final Duration validationDeadline;
+  private final int validationConcurrency;
+  private final UnansweredReplicaPolicy unansweredReplicaPolicy;
+  private final boolean persistentValidationConnections;
+  private final Optional<String> validationQuery;
+  private final Duration discoveryQueryTimeout;
+  private final Duration awsApiCallTimeout;
+  private final Duration replicaPollIntervalMin;
+  private final Duration replicaPollIntervalMax;
+  private final Duration replicaPollFastWindow;
+  private final int circuitBreakerFailureThreshold;
+  private final Duration circuitBreakerOpenInterval;
+  private final int connectAttempts;
+  private final Optional<Duration> connectDeadline;
+  private final double connectHedgePercentile;
+  private final ReplicaSelection replicaSelection;
+  private final Map<String, Integer> replicaWeights;
+  private final Duration replicaLatencyDecay;
+  private final Optional<Duration> maxReplicaLag;
+  private final boolean weightByCpuHeadroom;
+  private final boolean zoneAffinity;
+  private final Optional<String> availabilityZone;
+  private final int minReplicasInZone;
 
   public FairlinkConfiguration(Properties properties, Map<String, String> env) {
     this.env = env;
     this.auroraClusterRegion = this.resolveRegion(properties);
     this.awsCredentialsProvider = this.awsAuth(properties);
+    this.awsCredentialsIdentity = this.awsCredentialsIdentity(properties);
     this.tagsPollerInterval = this.resolveTagPollerInterval(properties);
     this.replicaPollInterval = this.resolvePollerInterval(properties);
+    this.lastKnownGoodTtl = this.resolveLastKnownGoodTtl(properties);
     this.replicasDiscoveryMode = this.resolveDiscoveryMode(properties);
     this.replicaEndpointTemplate = this.resolveReplicaEndpointTemplate(properties);
     this.validateConnection = this.resolveValidationConnection(properties);
+    this.validationTimeout =
+        this.resolvePositiveInterval(
+            properties, VALIDATION_TIMEOUT_PROPERTY_NAME, DEFAULT_VALIDATION_TIMEOUT);
+    this.validationDeadline =
+        this.resolvePositiveInterval(
+            properties, VALIDATION_DEADLINE_PROPERTY_NAME, DEFAULT_VALIDATION_DEADLINE);
+    this.validationConcurrency = this.resolveValidationConcurrency(properties);
+    this.unansweredReplicaPolicy = this.resolveUnansweredReplicaPolicy(properties);
+    this.persistentValidationConnections =
+        Boolean.parseBoolean(properties.getProperty(PERSISTENT_VALIDATION_CONNECTIONS, "false"));
+    this.validationQuery = Optional.ofNullable(properties.getProperty(VALIDATION_QUERY));
+    this.discoveryQueryTimeout =
+        this.resolvePositiveInterval(
+            properties, DISCOVERY_QUERY_TIMEOUT_PROPERTY_NAME, DEFAULT_DISCOVERY_QUERY_TIMEOUT);
+    this.awsApiCallTimeout =
+        this.resolvePositiveInterval(
+            properties, AWS_API_CALL_TIMEOUT_PROPERTY_NAME, DEFAULT_AWS_API_CALL_TIMEOUT);
+    this.replicaPollIntervalMax =
+        this.resolvePositiveInterval(
+            properties, REPLICA_POLL_INTERVAL_MAX_PROPERTY_NAME, this.replicaPollInterval);
+    this.replicaPollIntervalMin =
+        min(
+            this.resolvePositiveInterval(
+                properties,
+                REPLICA_POLL_INTERVAL_MIN_PROPERTY_NAME,
+                DEFAULT_REPLICA_POLL_INTERVAL_MIN),
+            this.replicaPollIntervalMax);
+    this.replicaPollFastWindow =
+        this.resolvePositiveInterval(
+            properties, REPLICA_POLL_FAST_WINDOW_PROPERTY_NAME, DEFAULT_REPLICA_POLL_FAST_WINDOW);
+    this.circuitBreakerFailureThreshold = this.resolveCircuitBreakerFailureThreshold(properties);
+    this.circuitBreakerOpenInterval =
+        this.resolvePositiveInterval(
+            properties,
+            CIRCUIT_BREAKER_OPEN_INTERVAL_PROPERTY_NAME,
+            DEFAULT_CIRCUIT_BREAKER_OPEN_INTERVAL);
+    this.connectAttempts = this.resolveConnectAttempts(properties);
+    this.connectDeadline =
+        Optional.ofNullable(
+            this.resolvePositiveInterval(properties, CONNECT_DEADLINE_PROPERTY_NAME, null));
+    this.connectHedgePercentile = this.resolveConnectHedgePercentile(properties);
+    this.replicaSelection =
+        ReplicaSelection.fromStringInsensitive(
+                properties.getProperty(
+                    REPLICA_SELECTION_PROPERTY_NAME, ReplicaSelection.ROUND_ROBIN.name()))
+            .orElse(ReplicaSelection.ROUND_ROBIN);
+    this.replicaWeights = this.resolveReplicaWeights(properties);
+    this.replicaLatencyDecay =
+        this.resolvePositiveInterval(
+            properties, REPLICA_LATENCY_DECAY_PROPERTY_NAME, DEFAULT_REPLICA_LATENCY_DECAY);
+    this.maxReplicaLag =
+        Optional.ofNullable(
+            this.resolvePositiveInterval(properties, MAX_REPLICA_LAG_PROPERTY_NAME, null));
+    this.weightByCpuHeadroom =
+        Boolean.parseBoolean(properties.getProperty(WEIGHT_BY_CPU_HEADROOM_PROPERTY_NAME));
+    this.zoneAffinity = Boolean.parseBoolean(properties.getProperty(ZONE_AFFINITY_PROPERTY_NAME));
+    this.availabilityZone = this.resolveAvailabilityZone(properties);
+    this.minReplicasInZone = this.resolveMinReplicasInZone(properties);
     this.fallbackEndpoint = this.resolveFallbackEndpoint(properties);
     this.awsEndpointOverride = this.resolveAwsEndpointOverride(properties);
     this.validateConfiguration();
@@ -104,12 +239,37 @@ public class FairlinkConfiguration {
         .orElse(ReplicasDiscoveryMode.AWS_API);
   }
 
+  private AwsApiDiscoveryAuthMode resolveAuthMode(Properties properties) {
+    return AwsApiDiscoveryAuthMode.fromStringInsensitive(
+            properties.getProperty(
+                AWS_AUTH_MODE_PROPERTY_NAME, AwsApiDiscoveryAuthMode.DEFAULT_CHAIN.name()))
+        .orElse(AwsApiDiscoveryAuthMode.DEFAULT_CHAIN);
+  }
+
+  private String awsCredentialsIdentity(Properties properties) {
+    final AwsApiDiscoveryAuthMode authMode = this.resolveAuthMode(properties);
+    if (authMode != AwsApiDiscoveryAuthMode.BASIC) {
+      return authMode.name();
+    }
+    try {
+      final byte[] secretDigest =
+          MessageDigest.getInstance("SHA-256")
+              .digest(
+                  properties
+                      .getProperty(AWS_BASIC_CREDENTIALS_SECRET)
+                      .getBytes(StandardCharsets.UTF_8));
+      return authMode.name()
+          + ":"
+          + properties.getProperty(AWS_BASIC_CREDENTIALS_KEY)
+          + ":"
+          + Base64.getEncoder().encodeToString(secretDigest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   private AwsCredentialsProvider awsAuth(Properties properties) {
-    AwsApiDiscoveryAuthMode authMode =
-        AwsApiDiscoveryAuthMode.fromStringInsensitive(
-                properties.getProperty(
-                    AWS_AUTH_MODE_PROPERTY_NAME, AwsApiDiscoveryAuthMode.DEFAULT_CHAIN.name()))
-            .orElse(AwsApiDiscoveryAuthMode.DEFAULT_CHAIN);
+    AwsApiDiscoveryAuthMode authMode = this.resolveAuthMode(properties);
     LOGGER.log(Level.FINE, "authMode: {0}", authMode);
     switch (authMode) {
       case BASIC:
@@ -150,8 +310,12 @@ public class FairlinkConfiguration {
 
   private Duration resolvePollerInterval(Properties properties) {
     try {
-      return Duration.ofSeconds(
-          Integer.parseInt(properties.getProperty(REPLICA_POLL_INTERVAL_PROPERTY_NAME)));
+      final Duration interval =
+          parseInterval(properties.getProperty(REPLICA_POLL_INTERVAL_PROPERTY_NAME));
+      if (interval.isZero() || interval.isNegative()) {
+        throw new IllegalArgumentException("Non positive polling interval");
+      }
+      return interval;
     } catch (IllegalArgumentException | NullPointerException e) {
       LOGGER.warning(
           String.format(
@@ -163,30 +327,227 @@ public class FairlinkConfiguration {
 
   private Duration resolveTagPollerInterval(Properties properties) {
     try {
-      return Duration.ofSeconds(
-          Integer.parseInt(properties.getProperty(TAGS_INTERVAL_PROPERTY_NAME)));
+      final Duration interval = parseInterval(properties.getProperty(TAGS_INTERVAL_PROPERTY_NAME));
+      if (interval.isZero() || interval.isNegative()) {
+        throw new IllegalArgumentException("Non positive tags polling interval");
+      }
+      return interval;
     } catch (IllegalArgumentException | NullPointerException e) {
       LOGGER.warning(
           String.format(
-              "No or invalid tags polling interval specified. Using default tags poll interval of %s",
+              "No or invalid tags polling interval specified. "
+                  + "Using default tags poll interval of %s",
               DEFAULT_TAG_POLL_INTERVAL));
       return DEFAULT_TAG_POLL_INTERVAL;
     }
   }
 
+  private Duration resolveLastKnownGoodTtl(Properties properties) {
+    try {
+      final Duration ttl = parseInterval(properties.getProperty(LAST_KNOWN_GOOD_TTL_PROPERTY_NAME));
+      if (ttl.isNegative()) {
+        throw new IllegalArgumentException("Negative last known good ttl");
+      }
+      return ttl;
+    } catch (IllegalArgumentException | NullPointerException e) {
+      LOGGER.fine(
+          String.format(
+              "No or invalid last known good ttl specified. Using default of %s",
+              DEFAULT_LAST_KNOWN_GOOD_TTL));
+      return DEFAULT_LAST_KNOWN_GOOD_TTL;
+    }
+  }
+
+  /** An interval in whole seconds, or in milliseconds when suffixed with {@code ms}. */
+  private static Duration parseInterval(String value) {
+    final String interval = value.trim();
+    if (interval.endsWith(MILLISECONDS_SUFFIX)) {
+      return Duration.ofMillis(
+          Long.parseLong(
+              interval.substring(0, interval.length() - MILLISECONDS_SUFFIX.length()).trim()));
+    }
+    return Duration.ofSeconds(Integer.parseInt(interval));
+  }
+
+  private Duration resolvePositiveInterval(
+      Properties properties, String propertyName, Duration defaultValue) {
+    try {
+      final Duration interval = parseInterval(properties.getProperty(propertyName));
+      if (interval.isZero() || interval.isNegative()) {
+        throw new IllegalArgumentException("Non positive " + propertyName);
+      }
+      return interval;
+    } catch (IllegalArgumentException | NullPointerException e) {
+      LOGGER.fine(
+          String.format(
+              "No or invalid %s specified. Using default of %s", propertyName, defaultValue));
+      return defaultValue;
+    }
+  }
+
+  private int resolveValidationConcurrency(Properties properties) {
+    try {
+      final int concurrency =
+          Integer.parseInt(properties.getProperty(VALIDATION_CONCURRENCY_PROPERTY_NAME));
+      if (concurrency <= 0) {
+        throw new IllegalArgumentException("Non positive validation concurrency");
+      }
+      return concurrency;
+    } catch (IllegalArgumentException | NullPointerException e) {
+      return DEFAULT_VALIDATION_CONCURRENCY;
+    }
+  }
+
+  private int resolveCircuitBreakerFailureThreshold(Properties properties) {
+    try {
+      final int threshold =
+          Integer.parseInt(
+              properties.getProperty(CIRCUIT_BREAKER_FAILURE_THRESHOLD_PROPERTY_NAME));
+      if (threshold < 0) {
+        throw new IllegalArgumentException("Negative circuit breaker failure threshold");
+      }
+      return threshold;
+    } catch (IllegalArgumentException | NullPointerException e) {
+      return DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+    }
+  }
+
+  private int resolveConnectAttempts(Properties properties) {
+    try {
+      final int attempts = Integer.parseInt(properties.getProperty(CONNECT_ATTEMPTS_PROPERTY_NAME));
+      if (attempts <= 0) {
+        throw new IllegalArgumentException("Non positive connect attempts");
+      }
+      return attempts;
+    } catch (IllegalArgumentException | NullPointerException e) {
+      return DEFAULT_CONNECT_ATTEMPTS;
+    }
+  }
+
+  private Optional<String> resolveAvailabilityZone(Properties properties) {
+    final String availabilityZone =
+        Optional.ofNullable(properties.getProperty(AVAILABILITY_ZONE_PROPERTY_NAME))
+            .orElseGet(() -> this.env.get(AVAILABILITY_ZONE_ENV_VAR));
+    return Optional.ofNullable(availabilityZone)
+        .map(String::trim)
+        .filter(zone -> !zone.isEmpty());
+  }
+
+  private int resolveMinReplicasInZone(Properties properties) {
+    try {
+      final int minimum =
+          Integer.parseInt(properties.getProperty(MIN_REPLICAS_IN_ZONE_PROPERTY_NAME));
+      if (minimum <= 0) {
+        throw new IllegalArgumentException("Non positive minimum replicas in zone");
+      }
+      return minimum;
+    } catch (IllegalArgumentException | NullPointerException e) {
+      return DEFAULT_MIN_REPLICAS_IN_ZONE;
+    }
+  }
+
+  /**
+   * How far behind the writer the replica a connection is made to may be, as asked for in the
+   * connection's properties. Unlike the other properties, this one applies to each connection.
+   */
+  public static Optional<Duration> maxStaleness(Properties properties) {
+    final String maxStaleness =
+        properties == null ? null : properties.getProperty(MAX_STALENESS_MS_PROPERTY_NAME);
+    if (maxStaleness == null) {
+      return Optional.empty();
+    }
+    try {
+      final long millis = Long.parseLong(maxStaleness.trim());
+      if (millis < 0) {
+        throw new NumberFormatException("Negative staleness");
+      }
+      return Optional.of(Duration.ofMillis(millis));
+    } catch (NumberFormatException e) {
+      LOGGER.log(
+          Level.WARNING,
+          "Ignoring invalid {0}: {1}",
+          new Object[] {MAX_STALENESS_MS_PROPERTY_NAME, maxStaleness});
+      return Optional.empty();
+    }
+  }
+
+  private double resolveConnectHedgePercentile(Properties properties) {
+    try {
+      final double percentile =
+          Double.parseDouble(properties.getProperty(CONNECT_HEDGE_PERCENTILE_PROPERTY_NAME));
+      if (!(percentile >= 0 && percentile <= 100)) {
+        throw new IllegalArgumentException("Connect hedge percentile out of range");
+      }
+      return percentile;
+    } catch (IllegalArgumentException | NullPointerException e) {
+      return 0;
+    }
+  }
+
+  private Map<String, Integer> resolveReplicaWeights(Properties properties) {
+    final String weights = properties.getProperty(REPLICA_WEIGHTS_PROPERTY_NAME, "");
+    final Map<String, Integer> resolved = new HashMap<>();
+    for (String weight : weights.split(",")) {
+      if (weight.trim().isEmpty()) {
+        continue;
+      }
+      final int separator = weight.lastIndexOf(':');
+      try {
+        final int value = Integer.parseInt(weight.substring(separator + 1).trim());
+        if (separator <= 0 || value <= 0) {
+          throw new IllegalArgumentException("Invalid replica weight");
+        }
+        resolved.put(weight.substring(0, separator).trim(), value);
+      } catch (IllegalArgumentException e) {
+        LOGGER.warning(String.format("Ignoring invalid replica weight [%s]", weight));
+      }
+    }
+    return Collections.unmodifiableMap(resolved);
+  }
+
+  private UnansweredReplicaPolicy resolveUnansweredReplicaPolicy(Properties properties) {
+    return UnansweredReplicaPolicy.fromStringInsensitive(
+            properties.getProperty(
+                UNANSWERED_REPLICA_POLICY_PROPERTY_NAME,
+                UnansweredReplicaPolicy.KEEP_PREVIOUS.name()))
+        .orElse(UnansweredReplicaPolicy.KEEP_PREVIOUS);
+  }
+
+  private static Duration min(Duration a, Duration b) {
+    return a.compareTo(b) <= 0 ? a : b;
+  }
+
   public Duration randomBoundDelay() {
     return Duration.ofMillis(
-        new Float(ThreadLocalRandom.current().nextFloat() * MAX_START_DELAY * 1000).longValue());
+        (long) (ThreadLocalRandom.current().nextFloat() * MAX_START_DELAY * 1000));
   }
 
   public Duration getReplicaPollInterval() {
     return replicaPollInterval;
   }
 
+  /** The poll interval used for a while after the replicas change, or a connection fails. */
+  public Duration getReplicaPollIntervalMin() {
+    return replicaPollIntervalMin;
+  }
+
+  /** The poll interval that polling gradually backs off to while the replicas do not change. */
+  public Duration getReplicaPollIntervalMax() {
+    return replicaPollIntervalMax;
+  }
+
+  public Duration getReplicaPollFastWindow() {
+    return replicaPollFastWindow;
+  }
+
   public Duration getTagsPollerInterval() {
     return tagsPollerInterval;
   }
 
+  public Duration getLastKnownGoodTtl() {
+    return lastKnownGoodTtl;
+  }
+
   public Optional<String> getAwsEndpointOverride() {
     return awsEndpointOverride;
   }
@@ -195,6 +556,14 @@ public class FairlinkConfiguration {
     return awsCredentialsProvider;
   }
 
+  /**
+   * Identifies the credentials returned by {@link #getAwsCredentialsProvider()}, so that
+   * configurations using the same credentials can share AWS clients. It does not contain secrets.
+   */
+  public String getAwsCredentialsIdentity() {
+    return awsCredentialsIdentity;
+  }
+
   public Optional<String> getFallbackEndpoint() {
     return fallbackEndpoint;
   }
@@ -211,6 +580,117 @@ public class FairlinkConfiguration {
     return validateConnection;
   }
 
+  public Duration getValidationTimeout() {
+    return validationTimeout;
+  }
+
+  public Duration getValidationDeadline() {
+    return validationDeadline;
+  }
+
+  public int getValidationConcurrency() {
+    return validationConcurrency;
+  }
+
+  public UnansweredReplicaPolicy getUnansweredReplicaPolicy() {
+    return unansweredReplicaPolicy;
+  }
+
+  public boolean isPersistentValidationConnections() {
+    return persistentValidationConnections;
+  }
+
+  public Optional<String> getValidationQuery() {
+    return validationQuery;
+  }
+
+  public Duration getDiscoveryQueryTimeout() {
+    return discoveryQueryTimeout;
+  }
+
+  public Duration getAwsApiCallTimeout() {
+    return awsApiCallTimeout;
+  }
+
+  /**
+   * The number of consecutive failed connections to a replica that take it out of rotation. {@code
+   * 0} disables the circuit breakers.
+   */
+  public int getCircuitBreakerFailureThreshold() {
+    return circuitBreakerFailureThreshold;
+  }
+
+  /** How long a replica stays out of rotation before a connection to it is tried again. */
+  public Duration getCircuitBreakerOpenInterval() {
+    return circuitBreakerOpenInterval;
+  }
+
+  /** The number of replicas a connection is attempted on before giving up. */
+  public int getConnectAttempts() {
+    return connectAttempts;
+  }
+
+  /**
+   * The time all the attempts of a connection may take together. When absent, {@link
+   * java.sql.DriverManager#getLoginTimeout()} is used, if set.
+   */
+  public Optional<Duration> getConnectDeadline() {
+    return connectDeadline;
+  }
+
+  /**
+   * The percentile of recent connect latencies after which a connection is also attempted on
+   * another replica. {@code 0} disables hedging.
+   */
+  public double getConnectHedgePercentile() {
+    return connectHedgePercentile;
+  }
+
+  public ReplicaSelection getReplicaSelection() {
+    return replicaSelection;
+  }
+
+  /** Weights overriding those derived from instance classes, by host, instance id or class. */
+  public Map<String, Integer> getReplicaWeights() {
+    return replicaWeights;
+  }
+
+  /** How quickly a replica's connect latency and failure averages are forgotten. */
+  public Duration getReplicaLatencyDecay() {
+    return replicaLatencyDecay;
+  }
+
+  /** How far behind the writer a replica may be to be kept in rotation, for SQL discovery. */
+  public Optional<Duration> getMaxReplicaLag() {
+    return maxReplicaLag;
+  }
+
+  /**
+   * Whether, with weighted round robin, weights are scaled by each replica's CPU headroom, for SQL
+   * discovery.
+   */
+  public boolean isWeightByCpuHeadroom() {
+    return weightByCpuHeadroom;
+  }
+
+  /** Whether replicas in the client's own availability zone are preferred, if it is known. */
+  public boolean isZoneAffinity() {
+    return zoneAffinity && availabilityZone.isPresent();
+  }
+
+  /** The client's availability zone, from the properties or else the environment. */
+  public Optional<String> getAvailabilityZone() {
+    return availabilityZone;
+  }
+
+  /**
+   * The number of usable replicas the client's availability zone must have for connections to
+   * stay in it.
+   */
+  public int getMinReplicasInZone() {
+    return minReplicasInZone;
+  }
+
   public ReplicasDiscoveryMode getReplicasDiscoveryMode() {
     return replicasDiscoveryMode;
   }
@@ -0,0 +1,22 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.config;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum ReplicaSelection {
+  ROUND_ROBIN,
+  WEIGHTED_ROUND_ROBIN,
+  LEAST_OUTSTANDING,
+  POWER_OF_TWO_CHOICES;
+
+  public static Optional<ReplicaSelection> fromStringInsensitive(String candidate) {
+    return Arrays.stream(ReplicaSelection.values())
+        .filter(selection -> selection.toString().equalsIgnoreCase(candidate))
+        .findAny();
+  }
+}
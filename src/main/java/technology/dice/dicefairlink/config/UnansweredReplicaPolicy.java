@@ -0,0 +1,20 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.config;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum UnansweredReplicaPolicy {
+  KEEP_PREVIOUS,
+  DROP;
+
+  public static Optional<UnansweredReplicaPolicy> fromStringInsensitive(String candidate) {
+    return Arrays.stream(UnansweredReplicaPolicy.values())
+        .filter(policy -> policy.toString().equalsIgnoreCase(candidate))
+        .findAny();
+  }
+}
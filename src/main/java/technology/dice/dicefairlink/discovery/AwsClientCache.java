@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+
+/**
+ * Reference counted AWS SDK clients, shared by every cluster in the JVM that talks to the same
+ * region, through the same endpoint and with the same credentials. A client is built by the first
+ * {@link #acquire} for its key, and closed when the last {@link Lease} on it is closed.
+ */
+public class AwsClientCache<C extends SdkAutoCloseable> {
+  private final Function<FairlinkConfiguration, C> clientFactory;
+  private final Map<Key, Entry<C>> clients = new HashMap<>();
+
+  public AwsClientCache(Function<FairlinkConfiguration, C> clientFactory) {
+    this.clientFactory = clientFactory;
+  }
+
+  public synchronized Lease<C> acquire(FairlinkConfiguration fairlinkConfiguration) {
+    final Key key =
+        new Key(
+            fairlinkConfiguration.getAuroraClusterRegion(),
+            fairlinkConfiguration.getAwsEndpointOverride(),
+            fairlinkConfiguration.getAwsCredentialsIdentity());
+    Entry<C> entry = this.clients.get(key);
+    if (entry == null) {
+      entry = new Entry<>(this.clientFactory.apply(fairlinkConfiguration));
+      this.clients.put(key, entry);
+    }
+    entry.leases++;
+    return new Lease<>(this, key, entry.client);
+  }
+
+  private synchronized void release(Key key) {
+    final Entry<C> entry = this.clients.get(key);
+    if (entry == null) {
+      return;
+    }
+    entry.leases--;
+    if (entry.leases <= 0) {
+      this.clients.remove(key);
+      entry.client.close();
+    }
+  }
+
+  public synchronized int size() {
+    return this.clients.size();
+  }
+
+  /** A claim on a shared client. Closing it more than once has no further effect. */
+  public static class Lease<C extends SdkAutoCloseable> implements AutoCloseable {
+    private final AwsClientCache<C> cache;
+    private final Key key;
+    private final C client;
+    private boolean closed = false;
+
+    private Lease(AwsClientCache<C> cache, Key key, C client) {
+      this.cache = cache;
+      this.key = key;
+      this.client = client;
+    }
+
+    public C client() {
+      return client;
+    }
+
+    @Override
+    public void close() {
+      synchronized (this) {
+        if (this.closed) {
+          return;
+        }
+        this.closed = true;
+      }
+      this.cache.release(this.key);
+    }
+  }
+
+  private static class Entry<C> {
+    private final C client;
+    private int leases = 0;
+
+    private Entry(C client) {
+      this.client = client;
+    }
+  }
+
+  private static class Key {
+    private final Region region;
+    private final Optional<String> endpointOverride;
+    private final String credentialsIdentity;
+
+    private Key(Region region, Optional<String> endpointOverride, String credentialsIdentity) {
+      this.region = region;
+      this.endpointOverride = endpointOverride;
+      this.credentialsIdentity = credentialsIdentity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Objects.equals(region, key.region)
+          && Objects.equals(endpointOverride, key.endpointOverride)
+          && Objects.equals(credentialsIdentity, key.credentialsIdentity);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(region, endpointOverride, credentialsIdentity);
+    }
+  }
+}
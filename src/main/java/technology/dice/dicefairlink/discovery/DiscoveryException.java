@@ -0,0 +1,18 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery;
+
+/**
+ * Thrown by member and exclusion discovery when the state of the cluster could not be obtained, as
+ * opposed to it being successfully found empty.
+ */
+public class DiscoveryException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public DiscoveryException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
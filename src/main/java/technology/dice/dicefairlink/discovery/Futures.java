@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/** Helpers bridging the blocking and the {@link CompletableFuture} based discovery methods. */
+public final class Futures {
+  private Futures() {}
+
+  public static <T> CompletableFuture<T> failed(Throwable failure) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(failure);
+    return future;
+  }
+
+  /** Runs the given blocking call on the calling thread and returns its outcome as a future. */
+  public static <T> CompletableFuture<T> completed(Supplier<T> call) {
+    try {
+      return CompletableFuture.completedFuture(call.get());
+    } catch (RuntimeException e) {
+      return failed(e);
+    }
+  }
+
+  /** Waits for the given future, rethrowing its failure as it was raised. */
+  public static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw asRuntimeException(e);
+    }
+  }
+
+  /** The failure a future completed with, without the {@link CompletionException} wrapping it. */
+  public static Throwable cause(Throwable failure) {
+    Throwable cause = failure;
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+        && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  public static RuntimeException asRuntimeException(Throwable failure) {
+    final Throwable cause = cause(failure);
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return cause instanceof RuntimeException
+        ? (RuntimeException) cause
+        : new DiscoveryException(cause.getMessage(), cause);
+  }
+}
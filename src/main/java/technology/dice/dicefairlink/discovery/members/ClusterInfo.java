@@ -5,22 +5,38 @@
  */
 package technology.dice.dicefairlink.discovery.members;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
 public final class ClusterInfo {
   private final String readonlyEndpoint;
   private final Set<String> replicas;
+  private final Map<String, ReplicaMetadata> replicaMetadata;
 
   public ClusterInfo(String readonlyEndpoint, Set<String> replicas) {
+    this(readonlyEndpoint, replicas, Collections.emptyMap());
+  }
+
+  /**
+   * @param replicaMetadata metadata of the replicas, by replica. Replicas discovery knows nothing
+   *     about may be missing.
+   */
+  public ClusterInfo(
+      String readonlyEndpoint, Set<String> replicas, Map<String, ReplicaMetadata> replicaMetadata) {
     if ("".equals(readonlyEndpoint) || readonlyEndpoint == null) {
       throw new IllegalArgumentException("Read only endpoint must not be null");
     }
     if (replicas == null) {
       throw new IllegalArgumentException("Set of replicas must not be mull");
     }
+    if (replicaMetadata == null) {
+      throw new IllegalArgumentException("Replica metadata must not be null");
+    }
     this.readonlyEndpoint = readonlyEndpoint;
     this.replicas = replicas;
+    this.replicaMetadata = replicaMetadata;
   }
 
   public String getReadonlyEndpoint() {
@@ -31,6 +47,10 @@ public final class ClusterInfo {
     return replicas;
   }
 
+  public Map<String, ReplicaMetadata> getReplicaMetadata() {
+    return replicaMetadata;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -41,11 +61,12 @@ public final class ClusterInfo {
     }
     ClusterInfo that = (ClusterInfo) o;
     return Objects.equals(getReadonlyEndpoint(), that.getReadonlyEndpoint())
-        && Objects.equals(getReplicas(), that.getReplicas());
+        && Objects.equals(getReplicas(), that.getReplicas())
+        && Objects.equals(getReplicaMetadata(), that.getReplicaMetadata());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(getReadonlyEndpoint(), getReplicas());
+    return Objects.hash(getReadonlyEndpoint(), getReplicas(), getReplicaMetadata());
   }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Scales replica weights by how much CPU each replica has left, so that new connections shift away
+ * from busy replicas.
+ *
+ * <p>A replica's CPU utilisation is only acted upon once it has moved by {@value #HYSTERESIS}
+ * percentage points or more from the utilisation last acted upon, so that weights do not flap as
+ * utilisation wobbles between discoveries. Every replica keeps at least {@value #MIN_HEADROOM}% of
+ * headroom, so a saturated replica still gets some connections and is seen to recover. Replicas
+ * whose utilisation is unknown get the average headroom of the others, or all of it.
+ */
+public class CpuHeadroom {
+  static final double HYSTERESIS = 10;
+  static final int MIN_HEADROOM = 5;
+  private final Map<String, Double> actedUpon = new HashMap<>();
+
+  /** The weights scaled by each host's headroom, in percent. */
+  public synchronized Map<String, Integer> weigh(
+      Map<String, Integer> weights, Map<String, ReplicaMetadata> metadataByHost) {
+    this.actedUpon.keySet().retainAll(weights.keySet());
+    final Map<String, Integer> headrooms = new HashMap<>(weights.size() * 2);
+    long knownTotal = 0;
+    for (String host : weights.keySet()) {
+      final Optional<Double> cpu =
+          Optional.ofNullable(metadataByHost.get(host))
+              .flatMap(ReplicaMetadata::getCpuUtilization);
+      if (cpu.isPresent()) {
+        final double utilisation = this.actedUpon.merge(host, cpu.get(), CpuHeadroom::settled);
+        final int headroom = (int) Math.max(MIN_HEADROOM, Math.round(100 - utilisation));
+        headrooms.put(host, headroom);
+        knownTotal += headroom;
+      }
+    }
+    final int unknownHeadroom =
+        headrooms.isEmpty() ? 100 : (int) Math.round((double) knownTotal / headrooms.size());
+    final Map<String, Integer> scaled = new HashMap<>(weights.size() * 2);
+    weights.forEach(
+        (host, weight) -> scaled.put(host, weight * headrooms.getOrDefault(host, unknownHeadroom)));
+    return scaled;
+  }
+
+  private static double settled(double actedUpon, double current) {
+    return Math.abs(current - actedUpon) >= HYSTERESIS ? current : actedUpon;
+  }
+}
@@ -0,0 +1,13 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+/** How the last discovery of a cluster's replicas went. */
+public enum DiscoveryOutcome {
+  CHANGED,
+  UNCHANGED,
+  FAILED
+}
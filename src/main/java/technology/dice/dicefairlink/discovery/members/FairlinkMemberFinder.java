@@ -6,19 +6,32 @@
 package technology.dice.dicefairlink.discovery.members;
 
 import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.config.ReplicaSelection;
+import technology.dice.dicefairlink.config.UnansweredReplicaPolicy;
+import technology.dice.dicefairlink.discovery.Futures;
 import technology.dice.dicefairlink.discovery.tags.ExclusionTag;
 import technology.dice.dicefairlink.discovery.tags.TagFilter;
 import technology.dice.dicefairlink.driver.FairlinkConnectionString;
 import technology.dice.dicefairlink.iterators.SizedIterator;
+import technology.dice.dicefairlink.iterators.WeightedCyclicIterator;
+import technology.dice.dicefairlink.selection.ReplicaSelector;
 
 import java.net.URISyntaxException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -29,21 +42,30 @@ public class FairlinkMemberFinder implements MemberFinder {
   private static final Logger LOGGER = Logger.getLogger(FairlinkMemberFinder.class.getName());
   private static final ExclusionTag EXCLUSION_TAG = new ExclusionTag("Fairlink-Exclude", "true");
   private static final Set<String> EMPTY_SET = Collections.unmodifiableSet(new HashSet<>(0));
+  private static final Duration VALIDATION_THREAD_KEEP_ALIVE = Duration.ofMinutes(1);
 
   private final FairlinkConfiguration fairlinkConfiguration;
   private final MemberFinderMethod memberFinder;
   private final ReplicaValidator replicaValidator;
   private final Function<Collection<String>, SizedIterator<String>> iteratorBuilder;
   private volatile Optional<String> fallbackEndpoint = Optional.empty();
-  private volatile Collection<String> excludedInstanceIds =
-      Collections.unmodifiableCollection(new HashSet<>(0));
+  private volatile LastKnownGood<Collection<String>> lastKnownGoodExclusions;
+  private volatile LastKnownGood<Set<String>> lastKnownGoodReplicas;
+  private volatile Set<String> previouslyValidated = EMPTY_SET;
+  private final ExecutorService validationExecutor;
+  private final ParallelReplicaValidator replicasValidator;
+  private volatile DiscoveryOutcome lastOutcome = DiscoveryOutcome.UNCHANGED;
+  private final ReplicaWeights replicaWeights;
+  private final CpuHeadroom cpuHeadroom = new CpuHeadroom();
+  private volatile Map<String, ReplicaMetadata> replicaMetadata = Collections.emptyMap();
+  private volatile List<String> replicas = Collections.emptyList();
+  private final ReplicaSelector replicaSelector;
   protected final FairlinkConnectionString fairlinkConnectionString;
   protected final TagFilter tagFilter;
 
   public FairlinkMemberFinder(
       FairlinkConfiguration fairlinkConfiguration,
       FairlinkConnectionString fairlinkConnectionString,
-      ScheduledExecutorService tagsPollingExecutor,
       TagFilter excludedInstancesFinder,
       MemberFinderMethod memberFinder,
       Function<Collection<String>, SizedIterator<String>> stringSizedIteratorBuilder,
@@ -54,89 +76,232 @@ public class FairlinkMemberFinder implements MemberFinder {
     this.memberFinder = memberFinder;
     this.replicaValidator = replicaValidator;
     this.iteratorBuilder = stringSizedIteratorBuilder;
+    this.replicaWeights = new ReplicaWeights(fairlinkConfiguration.getReplicaWeights());
     this.fallbackEndpoint = fairlinkConfiguration.getFallbackEndpoint();
-    final Duration startJitter = fairlinkConfiguration.randomBoundDelay();
-    LOGGER.info("Starting excluded members discovery with " + startJitter + " delay.");
-    tagsPollingExecutor.scheduleAtFixedRate(
-        () -> excludedInstanceIds = safeExclusionsDiscovery(),
-        startJitter.getSeconds(),
-        fairlinkConfiguration.getTagsPollerInterval().getSeconds(),
-        TimeUnit.SECONDS);
+    this.replicaSelector = ReplicaSelector.of(fairlinkConfiguration, this::replicaMetadata);
+    if (fairlinkConfiguration.isValidateConnection()) {
+      this.validationExecutor =
+          validationExecutor(fairlinkConfiguration.getValidationConcurrency());
+      this.replicasValidator =
+          new ParallelReplicaValidator(
+              this.validationExecutor,
+              fairlinkConfiguration.getValidationTimeout(),
+              fairlinkConfiguration.getValidationDeadline());
+    } else {
+      this.validationExecutor = null;
+      this.replicasValidator = null;
+    }
+  }
+
+  private static ExecutorService validationExecutor(int concurrency) {
+    final ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            concurrency,
+            concurrency,
+            VALIDATION_THREAD_KEEP_ALIVE.getSeconds(),
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+              final Thread thread = new Thread(runnable, "fairlink-replica-validation");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
   }
 
-  private Set<String> safeExclusionsDiscovery() {
+  /**
+   * The excluded instances, read at every discovery. The tag filter is expected to answer from a
+   * snapshot kept up to date on its own schedule, as {@link
+   * technology.dice.dicefairlink.discovery.tags.SharedExclusionPoller} does.
+   */
+  private Collection<String> safeExclusionsDiscovery() {
     try {
-      return tagFilter.listExcludedInstances(EXCLUSION_TAG);
-    } catch (Exception e) {
+      return this.exclusionsOrFallback(tagFilter.listExcludedInstances(EXCLUSION_TAG), null);
+    } catch (RuntimeException e) {
+      return this.exclusionsOrFallback(null, e);
+    }
+  }
+
+  private Collection<String> exclusionsOrFallback(Set<String> exclusions, Throwable failure) {
+    if (failure == null) {
+      this.lastKnownGoodExclusions = new LastKnownGood<>(exclusions);
+      return exclusions;
+    }
+    final LastKnownGood<Collection<String>> lastKnownGood = this.lastKnownGoodExclusions;
+    if (this.isFresh(lastKnownGood)) {
       LOGGER.log(
-          Level.SEVERE, "Could not discover exclusions; including all discovered instances", e);
-      return EMPTY_SET;
+          Level.WARNING,
+          "Could not discover exclusions; keeping the last known "
+              + lastKnownGood.value.size()
+              + " exclusion"
+              + (lastKnownGood.value.size() != 1 ? "s" : ""),
+          Futures.cause(failure));
+      return lastKnownGood.value;
     }
+    LOGGER.log(
+        Level.SEVERE,
+        "Could not discover exclusions; including all discovered instances",
+        Futures.cause(failure));
+    return EMPTY_SET;
+  }
+
+  private boolean isFresh(LastKnownGood<?> lastKnownGood) {
+    return lastKnownGood != null
+        && System.nanoTime() - lastKnownGood.discoveredAtNanos
+            < this.fairlinkConfiguration.getLastKnownGoodTtl().toNanos();
   }
 
   public final SizedIterator<String> discoverReplicas() {
+    final long before = System.currentTimeMillis();
     try {
-      long before = System.currentTimeMillis();
-      final ClusterInfo clusterInfo = this.memberFinder.discoverCluster();
-      this.fallbackEndpoint =
-          Optional.of(
-              fairlinkConfiguration
-                  .getFallbackEndpoint()
-                  .orElse(clusterInfo.getReadonlyEndpoint()));
-      final Set<String> filteredReplicas =
-          clusterInfo.getReplicas().stream()
-              .filter(db -> !excludedInstanceIds.contains(db))
-              .filter(
-                  dbIdentifier ->
-                      (!this.fairlinkConfiguration.isValidateConnection())
-                          || this.validate(fairlinkConfiguration.hostname(dbIdentifier)))
-              .map(fairlinkConfiguration::hostname)
-              .collect(Collectors.toSet());
-      final SizedIterator<String> result =
-          filteredReplicas.isEmpty()
-              ? this.iteratorBuilder.apply(
-                  this.setOf(this.fallbackEndpoint.orElse(clusterInfo.getReadonlyEndpoint())))
-              : this.iteratorBuilder.apply(filteredReplicas);
-      long after = System.currentTimeMillis();
-      LOGGER.info(
-          "Updated list of replicas in "
-              + (after - before)
-              + " ms. Found "
-              + filteredReplicas.size()
-              + " good, active, non-excluded replica"
-              + (filteredReplicas.size() != 1 ? "s" : "")
-              + " (validation "
-              + (fairlinkConfiguration.isValidateConnection() ? "" : "NOT ")
-              + "done). Excluded "
-              + this.excludedInstanceIds.size()
-              + " instance"
-              + (excludedInstanceIds.size() != 1 ? "s" : "")
-              + (this.excludedInstanceIds.size() != 1 ? "" : "s")
-              + ". Next update in "
-              + this.fairlinkConfiguration.getReplicaPollInterval());
-      return result;
+      return this.replicasOf(this.memberFinder.discoverCluster(), before);
     } catch (Exception e) {
+      return this.discoveryFailed(e);
+    }
+  }
+
+  @Override
+  public final CompletableFuture<SizedIterator<String>> discoverReplicasAsync(Executor executor) {
+    final long before = System.currentTimeMillis();
+    CompletableFuture<ClusterInfo> clusterInfo;
+    try {
+      clusterInfo = this.memberFinder.discoverClusterAsync();
+    } catch (RuntimeException e) {
+      clusterInfo = Futures.failed(e);
+    }
+    return clusterInfo.handleAsync(
+        (discovered, failure) -> {
+          if (failure != null) {
+            return this.discoveryFailed(Futures.cause(failure));
+          }
+          try {
+            return this.replicasOf(discovered, before);
+          } catch (Exception e) {
+            return this.discoveryFailed(e);
+          }
+        },
+        executor);
+  }
+
+  private SizedIterator<String> replicasOf(ClusterInfo clusterInfo, long before) {
+    final Collection<String> excludedInstanceIds = this.safeExclusionsDiscovery();
+    this.fallbackEndpoint =
+        Optional.of(
+            fairlinkConfiguration
+                .getFallbackEndpoint()
+                .orElse(clusterInfo.getReadonlyEndpoint()));
+    final Set<String> candidates =
+        clusterInfo.getReplicas().stream()
+            .filter(db -> !excludedInstanceIds.contains(db))
+            .map(fairlinkConfiguration::hostname)
+            .collect(Collectors.toSet());
+    final Map<String, ReplicaMetadata> metadataByHost = new HashMap<>();
+    clusterInfo
+        .getReplicaMetadata()
+        .forEach(
+            (replica, metadata) ->
+                metadataByHost.put(fairlinkConfiguration.hostname(replica), metadata));
+    this.replicaMetadata = metadataByHost;
+    final Set<String> filteredReplicas =
+        this.fairlinkConfiguration.isValidateConnection()
+            ? this.validated(candidates)
+            : candidates;
+    final Set<String> hosts =
+        filteredReplicas.isEmpty()
+            ? this.setOf(this.fallbackEndpoint.orElse(clusterInfo.getReadonlyEndpoint()))
+            : filteredReplicas;
+    final SizedIterator<String> result = this.buildIterator(hosts);
+    final LastKnownGood<Set<String>> previous = this.lastKnownGoodReplicas;
+    this.lastOutcome =
+        previous == null || previous.value.equals(hosts)
+            ? DiscoveryOutcome.UNCHANGED
+            : DiscoveryOutcome.CHANGED;
+    this.lastKnownGoodReplicas = new LastKnownGood<>(hosts);
+    long after = System.currentTimeMillis();
+    LOGGER.info(
+        "Updated list of replicas in "
+            + (after - before)
+            + " ms. Found "
+            + filteredReplicas.size()
+            + " good, active, non-excluded replica"
+            + (filteredReplicas.size() != 1 ? "s" : "")
+            + " (validation "
+            + (fairlinkConfiguration.isValidateConnection() ? "" : "NOT ")
+            + "done). Excluded "
+            + excludedInstanceIds.size()
+            + " instance"
+            + (excludedInstanceIds.size() != 1 ? "s" : "")
+            + (excludedInstanceIds.size() != 1 ? "" : "s")
+            + ".");
+    return result;
+  }
+
+  @Override
+  public Optional<ReplicaMetadata> replicaMetadata(String replica) {
+    return Optional.ofNullable(replica == null ? null : this.replicaMetadata.get(replica));
+  }
+
+  @Override
+  public List<String> replicas() {
+    return this.replicas;
+  }
+
+  @Override
+  public ReplicaSelector replicaSelector() {
+    return this.replicaSelector;
+  }
+
+  private SizedIterator<String> discoveryFailed(Throwable e) {
+    this.lastOutcome = DiscoveryOutcome.FAILED;
+    final LastKnownGood<Set<String>> lastKnownGood = this.lastKnownGoodReplicas;
+    if (this.isFresh(lastKnownGood)) {
       LOGGER.log(
           Level.WARNING,
           "Error discovering cluster identified by ["
               + this.fairlinkConnectionString.getFairlinkUri()
-              + "]. Will return fallback endpoint "
-              + this.fallbackEndpoint.orElse("N/A")
-              + " if available",
+              + "]. Keeping the last known "
+              + lastKnownGood.value.size()
+              + " replica"
+              + (lastKnownGood.value.size() != 1 ? "s" : ""),
           e);
-      if (!this.fallbackEndpoint.isPresent()) {
-        LOGGER.log(
-            Level.SEVERE,
-            "Fallback endpoint not available. This means the cluster has never been successfully discovered. This is probably a permanent error condition");
-      }
-      return fallbackEndpoint
-          .map(fallbackEndpoint -> this.iteratorBuilder.apply(this.setOf(fallbackEndpoint)))
-          .orElseThrow(
-              () -> new RuntimeException(
-                  "Could not discover cluster identified by ["
-                      + fairlinkConnectionString.getFairlinkUri()
-                      + "] and a fallback reader endpoint is not available"));
+      return this.buildIterator(lastKnownGood.value);
     }
+    LOGGER.log(
+        Level.WARNING,
+        "Error discovering cluster identified by ["
+            + this.fairlinkConnectionString.getFairlinkUri()
+            + "]. Will return fallback endpoint "
+            + this.fallbackEndpoint.orElse("N/A")
+            + " if available",
+        e);
+    if (!this.fallbackEndpoint.isPresent()) {
+      LOGGER.log(
+          Level.SEVERE,
+          "Fallback endpoint not available. This means the cluster has never been successfully discovered. This is probably a permanent error condition");
+    }
+    return fallbackEndpoint
+        .map(fallbackEndpoint -> this.buildIterator(this.setOf(fallbackEndpoint)))
+        .orElseThrow(
+            () -> new RuntimeException(
+                "Could not discover cluster identified by ["
+                    + fairlinkConnectionString.getFairlinkUri()
+                    + "] and a fallback reader endpoint is not available"));
+  }
+
+  private SizedIterator<String> buildIterator(Set<String> hosts) {
+    this.fairlinkConnectionString.prerenderDelegates(hosts);
+    this.replicas = Collections.unmodifiableList(new ArrayList<>(hosts));
+    if (this.fairlinkConfiguration.getReplicaSelection() == ReplicaSelection.WEIGHTED_ROUND_ROBIN) {
+      final Map<String, Integer> configured = this.replicaWeights.of(hosts, this.replicaMetadata);
+      final Map<String, Integer> weights =
+          this.fairlinkConfiguration.isWeightByCpuHeadroom()
+              ? this.cpuHeadroom.weigh(configured, this.replicaMetadata)
+              : configured;
+      LOGGER.log(Level.FINE, "Replica weights: {0}", weights);
+      return WeightedCyclicIterator.of(weights);
+    }
+    return this.iteratorBuilder.apply(hosts);
   }
 
   private Set<String> setOf(String entry) {
@@ -145,6 +310,43 @@ public class FairlinkMemberFinder implements MemberFinder {
     return Collections.unmodifiableSet(set);
   }
 
+  private Set<String> validated(Set<String> candidates) {
+    final ParallelReplicaValidator.Result result =
+        this.replicasValidator.validate(candidates, this::validate);
+    final Set<String> validated = new HashSet<>(result.getValid());
+    if (!result.getUnanswered().isEmpty()) {
+      final boolean keepPrevious =
+          this.fairlinkConfiguration.getUnansweredReplicaPolicy()
+              == UnansweredReplicaPolicy.KEEP_PREVIOUS;
+      if (keepPrevious) {
+        result.getUnanswered().stream()
+            .filter(this.previouslyValidated::contains)
+            .forEach(validated::add);
+      }
+      LOGGER.warning(
+          "Validation of "
+              + result.getUnanswered()
+              + " did not complete in time. "
+              + (keepPrevious ? "Keeping their previous state" : "Dropping them"));
+    }
+    this.previouslyValidated = Collections.unmodifiableSet(validated);
+    this.replicaValidator.retain(
+        candidates.stream()
+            .map(this::delegateConnectionString)
+            .filter(Optional::isPresent)
+            .map(Optional::get)
+            .collect(Collectors.toSet()));
+    return validated;
+  }
+
+  private Optional<String> delegateConnectionString(String host) {
+    try {
+      return Optional.of(fairlinkConnectionString.delegateConnectionString(host));
+    } catch (URISyntaxException e) {
+      return Optional.empty();
+    }
+  }
+
   private boolean validate(String host) {
     try {
       return this.replicaValidator.isValid(
@@ -155,16 +357,55 @@ public class FairlinkMemberFinder implements MemberFinder {
     }
   }
 
+  @Override
+  public DiscoveryOutcome lastOutcome() {
+    return this.lastOutcome;
+  }
+
   public final SizedIterator<String> init() {
-    this.excludedInstanceIds = safeExclusionsDiscovery();
     final SizedIterator<String> replicasIterator = this.discoverReplicas();
     LOGGER.log(
         Level.INFO,
         String.format(
-            "Initialised driver for cluster identified by [%s with [%d] replicas]. List will be refreshed every [%s]",
+            "Initialised driver for cluster identified by [%s with [%d] replicas]. List will be refreshed every [%s] to [%s]",
             fairlinkConnectionString.getHost(),
             replicasIterator.size(),
-            fairlinkConfiguration.getReplicaPollInterval()));
+            fairlinkConfiguration.getReplicaPollIntervalMin(),
+            fairlinkConfiguration.getReplicaPollIntervalMax()));
     return replicasIterator;
   }
+
+  /**
+   * Stops validating replicas, closing any validation connections, and closes the discovery method
+   * and the tag filter, releasing the shared AWS clients they hold.
+   */
+  @Override
+  public void close() {
+    if (this.validationExecutor != null) {
+      this.validationExecutor.shutdownNow();
+    }
+    this.replicaValidator.close();
+    closeQuietly(this.memberFinder);
+    closeQuietly(this.tagFilter);
+  }
+
+  private static void closeQuietly(Object closeable) {
+    if (closeable instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) closeable).close();
+      } catch (Exception e) {
+        LOGGER.log(Level.FINE, "Could not close " + closeable, e);
+      }
+    }
+  }
+
+  private static final class LastKnownGood<T> {
+    private final T value;
+    private final long discoveredAtNanos;
+
+    private LastKnownGood(T value) {
+      this.value = value;
+      this.discoveredAtNanos = System.nanoTime();
+    }
+  }
 }
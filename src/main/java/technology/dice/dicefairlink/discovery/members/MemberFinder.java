@@ -5,12 +5,56 @@
  */
 package technology.dice.dicefairlink.discovery.members;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import technology.dice.dicefairlink.iterators.SizedIterator;
+import technology.dice.dicefairlink.selection.ReplicaSelector;
+import technology.dice.dicefairlink.selection.RoundRobinSelector;
 
 public interface MemberFinder {
   SizedIterator<String> discoverReplicas();
 
+  /**
+   * Discovers the replicas without blocking the calling thread. Any blocking work left, such as
+   * validating the replicas, runs on the given executor.
+   */
+  default CompletableFuture<SizedIterator<String>> discoverReplicasAsync(Executor executor) {
+    return CompletableFuture.supplyAsync(this::discoverReplicas, executor);
+  }
+
+  /** How the last completed discovery went, for the poller to adapt its interval. */
+  default DiscoveryOutcome lastOutcome() {
+    return DiscoveryOutcome.UNCHANGED;
+  }
+
+  /** What the last discovery found out about the replica, if anything. */
+  default Optional<ReplicaMetadata> replicaMetadata(String replica) {
+    return Optional.empty();
+  }
+
+  /**
+   * The replicas the last discovered iterator goes over, without repeats, as an immutable list
+   * built once per discovery. Empty if not known.
+   */
+  default List<String> replicas() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * How connections pick among the replicas, asked for once, so that what it keeps track of
+   * outlives discoveries.
+   */
+  default ReplicaSelector replicaSelector() {
+    return new RoundRobinSelector();
+  }
+
   default SizedIterator<String> init() {
     return this.discoverReplicas();
   }
+
+  /** Stops polling and releases what the finder holds, such as shared AWS clients. */
+  default void close() {}
 }
@@ -5,7 +5,18 @@
  */
 package technology.dice.dicefairlink.discovery.members;
 
+import java.util.concurrent.CompletableFuture;
+import technology.dice.dicefairlink.discovery.Futures;
+
 @FunctionalInterface
 public interface MemberFinderMethod {
   ClusterInfo discoverCluster();
+
+  /**
+   * Discovers the cluster without blocking the calling thread. Methods without a non-blocking
+   * implementation run {@link #discoverCluster()} on the calling thread.
+   */
+  default CompletableFuture<ClusterInfo> discoverClusterAsync() {
+    return Futures.completed(this::discoverCluster);
+  }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Runs the validation of a set of replicas concurrently on a bounded executor. Each check is given
+ * up to {@code checkTimeout} from the moment it starts running, and the whole round is given up to
+ * {@code deadline}. Checks still running when they time out are cancelled and their replicas are
+ * reported as unanswered rather than invalid, so the caller can decide what to do with them.
+ */
+public class ParallelReplicaValidator {
+  private final ExecutorService executor;
+  private final long checkTimeoutNanos;
+  private final long deadlineNanos;
+
+  public ParallelReplicaValidator(
+      ExecutorService executor, Duration checkTimeout, Duration deadline) {
+    this.executor = executor;
+    this.checkTimeoutNanos = checkTimeout.toNanos();
+    this.deadlineNanos = deadline.toNanos();
+  }
+
+  public Result validate(Collection<String> hosts, Predicate<String> check) {
+    final long deadline = System.nanoTime() + this.deadlineNanos;
+    final CompletionService<Boolean> completionService =
+        new ExecutorCompletionService<>(this.executor);
+    final Map<Future<Boolean>, PendingCheck> pending = new HashMap<>(hosts.size() * 2);
+    for (String host : hosts) {
+      final PendingCheck pendingCheck = new PendingCheck(host);
+      pending.put(
+          completionService.submit(
+              () -> {
+                pendingCheck.startedAtNanos.set(System.nanoTime());
+                return check.test(host);
+              }),
+          pendingCheck);
+    }
+
+    final Set<String> valid = new HashSet<>(hosts.size() * 2);
+    final Set<String> unanswered = new HashSet<>();
+    try {
+      while (!pending.isEmpty()) {
+        final long now = System.nanoTime();
+        this.cancelTimedOut(pending, unanswered, now);
+        if (pending.isEmpty() || now - deadline >= 0) {
+          break;
+        }
+        final Future<Boolean> done =
+            completionService.poll(this.nextTimeout(pending, now, deadline), TimeUnit.NANOSECONDS);
+        if (done != null) {
+          final PendingCheck completed = pending.remove(done);
+          if (completed != null && this.passed(done)) {
+            valid.add(completed.host);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    for (Map.Entry<Future<Boolean>, PendingCheck> timedOut : pending.entrySet()) {
+      timedOut.getKey().cancel(true);
+      unanswered.add(timedOut.getValue().host);
+    }
+    return new Result(valid, unanswered);
+  }
+
+  private void cancelTimedOut(
+      Map<Future<Boolean>, PendingCheck> pending, Set<String> unanswered, long now) {
+    final Iterator<Map.Entry<Future<Boolean>, PendingCheck>> checks = pending.entrySet().iterator();
+    while (checks.hasNext()) {
+      final Map.Entry<Future<Boolean>, PendingCheck> check = checks.next();
+      final long startedAt = check.getValue().startedAtNanos.get();
+      if (startedAt != 0 && !check.getKey().isDone() && now - startedAt >= this.checkTimeoutNanos) {
+        check.getKey().cancel(true);
+        unanswered.add(check.getValue().host);
+        checks.remove();
+      }
+    }
+  }
+
+  private long nextTimeout(Map<Future<Boolean>, PendingCheck> pending, long now, long deadline) {
+    long next = deadline;
+    for (PendingCheck check : pending.values()) {
+      // checks yet to start can not time out before a full check timeout from now
+      final long startedAt = check.startedAtNanos.get();
+      final long timesOutAt = (startedAt != 0 ? startedAt : now) + this.checkTimeoutNanos;
+      if (timesOutAt - next < 0) {
+        next = timesOutAt;
+      }
+    }
+    return Math.max(0, next - now);
+  }
+
+  private boolean passed(Future<Boolean> check) throws InterruptedException {
+    try {
+      return Boolean.TRUE.equals(check.get());
+    } catch (ExecutionException e) {
+      return false;
+    }
+  }
+
+  private static final class PendingCheck {
+    private final String host;
+    private final AtomicLong startedAtNanos = new AtomicLong();
+
+    private PendingCheck(String host) {
+      this.host = host;
+    }
+  }
+
+  public static final class Result {
+    private final Set<String> valid;
+    private final Set<String> unanswered;
+
+    private Result(Set<String> valid, Set<String> unanswered) {
+      this.valid = Collections.unmodifiableSet(valid);
+      this.unanswered = Collections.unmodifiableSet(unanswered);
+    }
+
+    public Set<String> getValid() {
+      return valid;
+    }
+
+    public Set<String> getUnanswered() {
+      return unanswered;
+    }
+  }
+}
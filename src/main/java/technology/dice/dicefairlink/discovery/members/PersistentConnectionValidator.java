@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Validates replicas over one long-lived connection per replica, instead of opening a new session
+ * on every check. Connections are checked with {@link Connection#isValid(int)}, or with the given
+ * query if there is one, and are only replaced once they stop passing that check.
+ */
+public class PersistentConnectionValidator implements ReplicaValidator {
+  private static final Logger LOGGER =
+      Logger.getLogger(PersistentConnectionValidator.class.getName());
+  private final ConcurrentMap<String, Connection> connections = new ConcurrentHashMap<>();
+  private final Driver driver;
+  private final int timeoutSeconds;
+  private final Optional<String> validationQuery;
+  private volatile boolean closed = false;
+
+  public PersistentConnectionValidator(
+      Driver driver, Duration timeout, Optional<String> validationQuery) {
+    this.driver = driver;
+    this.timeoutSeconds = (int) Math.max(1, timeout.getSeconds());
+    this.validationQuery = validationQuery;
+  }
+
+  @Override
+  public boolean isValid(String host, Properties properties) {
+    // taking the connection out of the map makes this check its only user until it is put back
+    final Connection existing = this.connections.remove(host);
+    if (existing != null) {
+      if (this.isHealthy(existing)) {
+        this.release(host, existing);
+        return true;
+      }
+      LOGGER.log(Level.FINE, "Validation connection to {0} is broken. Reconnecting", host);
+      this.close(existing);
+    }
+    final Connection connection;
+    try {
+      connection = this.driver.connect(host, properties);
+    } catch (Exception e) {
+      return false;
+    }
+    if (connection == null) {
+      return false;
+    }
+    if (!this.isHealthy(connection)) {
+      this.close(connection);
+      return false;
+    }
+    this.release(host, connection);
+    return true;
+  }
+
+  @Override
+  public void retain(Collection<String> hosts) {
+    for (String host : this.connections.keySet()) {
+      if (!hosts.contains(host)) {
+        final Connection connection = this.connections.remove(host);
+        if (connection != null) {
+          this.close(connection);
+        }
+      }
+    }
+  }
+
+  /** Closes every validation connection, including the ones of checks still running. */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.retain(Collections.emptySet());
+  }
+
+  private boolean isHealthy(Connection connection) {
+    try {
+      if (!this.validationQuery.isPresent()) {
+        return connection.isValid(this.timeoutSeconds);
+      }
+      try (Statement statement = connection.createStatement()) {
+        statement.setQueryTimeout(this.timeoutSeconds);
+        statement.execute(this.validationQuery.get());
+      }
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private void release(String host, Connection connection) {
+    final Connection concurrent = this.connections.putIfAbsent(host, connection);
+    if (concurrent != null) {
+      this.close(connection);
+    } else if (this.closed && this.connections.remove(host, connection)) {
+      this.close(connection);
+    }
+  }
+
+  private void close(Connection connection) {
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      LOGGER.log(Level.FINE, "Error closing validation connection", e);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/** What discovery knows about a replica, besides its identifier. */
+public final class ReplicaMetadata {
+  private final String instanceId;
+  private final String instanceClass;
+  private final Duration replicaLag;
+  private final Double cpuUtilization;
+  private final String availabilityZone;
+
+  private ReplicaMetadata(Builder builder) {
+    this.instanceId = builder.instanceId;
+    this.instanceClass = builder.instanceClass;
+    this.replicaLag = builder.replicaLag;
+    this.cpuUtilization = builder.cpuUtilization;
+    this.availabilityZone = builder.availabilityZone;
+  }
+
+  /** Metadata of the given replica, with only what discovery provides set on the builder. */
+  public static Builder builder(String instanceId) {
+    if (instanceId == null) {
+      throw new IllegalArgumentException("Instance id must not be null");
+    }
+    return new Builder(instanceId);
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  /** The instance class, such as {@code db.r6g.large}, if discovery provides it. */
+  public Optional<String> getInstanceClass() {
+    return Optional.ofNullable(instanceClass);
+  }
+
+  /** How far behind the writer the replica was when discovered, if discovery provides it. */
+  public Optional<Duration> getReplicaLag() {
+    return Optional.ofNullable(replicaLag);
+  }
+
+  /** The replica's CPU utilisation, in percent, when discovered, if discovery provides it. */
+  public Optional<Double> getCpuUtilization() {
+    return Optional.ofNullable(cpuUtilization);
+  }
+
+  /** The availability zone the replica runs in, such as {@code eu-west-1a}, if known. */
+  public Optional<String> getAvailabilityZone() {
+    return Optional.ofNullable(availabilityZone);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ReplicaMetadata)) {
+      return false;
+    }
+    ReplicaMetadata that = (ReplicaMetadata) o;
+    return Objects.equals(instanceId, that.instanceId)
+        && Objects.equals(instanceClass, that.instanceClass)
+        && Objects.equals(replicaLag, that.replicaLag)
+        && Objects.equals(cpuUtilization, that.cpuUtilization)
+        && Objects.equals(availabilityZone, that.availabilityZone);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        instanceId, instanceClass, replicaLag, cpuUtilization, availabilityZone);
+  }
+
+  @Override
+  public String toString() {
+    return instanceId
+        + (instanceClass == null ? "" : " (" + instanceClass + ")")
+        + (replicaLag == null ? "" : " lagging " + replicaLag)
+        + (cpuUtilization == null ? "" : " at " + cpuUtilization + "% CPU")
+        + (availabilityZone == null ? "" : " in " + availabilityZone);
+  }
+
+  public static final class Builder {
+    private final String instanceId;
+    private String instanceClass;
+    private Duration replicaLag;
+    private Double cpuUtilization;
+    private String availabilityZone;
+
+    private Builder(String instanceId) {
+      this.instanceId = instanceId;
+    }
+
+    public Builder instanceClass(String instanceClass) {
+      this.instanceClass = instanceClass;
+      return this;
+    }
+
+    public Builder replicaLag(Duration replicaLag) {
+      this.replicaLag = replicaLag;
+      return this;
+    }
+
+    /** @param cpuUtilization the replica's CPU utilisation, in percent */
+    public Builder cpuUtilization(Double cpuUtilization) {
+      this.cpuUtilization = cpuUtilization;
+      return this;
+    }
+
+    public Builder availabilityZone(String availabilityZone) {
+      this.availabilityZone = availabilityZone;
+      return this;
+    }
+
+    public ReplicaMetadata build() {
+      return new ReplicaMetadata(this);
+    }
+  }
+}
@@ -5,9 +5,16 @@
  */
 package technology.dice.dicefairlink.discovery.members;
 
+import java.util.Collection;
 import java.util.Properties;
 
 @FunctionalInterface
 public interface ReplicaValidator {
   boolean isValid(String host, Properties properties);
+
+  /** Releases any resources held for hosts other than the given ones. */
+  default void retain(Collection<String> hosts) {}
+
+  /** Releases every resource held, once the cluster is no longer validated. */
+  default void close() {}
 }
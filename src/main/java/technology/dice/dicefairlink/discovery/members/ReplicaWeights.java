@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The share of connections each replica gets, relative to the others.
+ *
+ * <p>A replica's weight is the first of: an override for its host name, an override for its
+ * instance id, an override for its instance class, or the weight of its instance size. Sizes weigh
+ * as many vCPUs as the memory optimised classes Aurora runs on have: {@code large} weighs 2, {@code
+ * xlarge} 4 and {@code Nxlarge} 4 times N. Smaller sizes weigh 1. Replicas whose weight is unknown
+ * get the average weight of the others, or 1.
+ */
+public class ReplicaWeights {
+  private static final Pattern EXTRA_LARGE = Pattern.compile("(\\d*)xlarge");
+  private final Map<String, Integer> overrides;
+
+  public ReplicaWeights(Map<String, Integer> overrides) {
+    this.overrides = overrides;
+  }
+
+  /** The weight of each host, given what is known of them. */
+  public Map<String, Integer> of(
+      Collection<String> hosts, Map<String, ReplicaMetadata> metadataByHost) {
+    final Map<String, Integer> weights = new HashMap<>(hosts.size() * 2);
+    long knownTotal = 0;
+    for (String host : hosts) {
+      final Optional<Integer> weight = this.weightOf(host, metadataByHost.get(host));
+      if (weight.isPresent()) {
+        weights.put(host, weight.get());
+        knownTotal += weight.get();
+      }
+    }
+    final int unknownWeight =
+        weights.isEmpty() ? 1 : (int) Math.max(1, Math.round((double) knownTotal / weights.size()));
+    hosts.forEach(host -> weights.putIfAbsent(host, unknownWeight));
+    return weights;
+  }
+
+  private Optional<Integer> weightOf(String host, ReplicaMetadata metadata) {
+    final Integer forHost = this.overrides.get(host);
+    if (forHost != null || metadata == null) {
+      return Optional.ofNullable(forHost);
+    }
+    final Integer forInstance = this.overrides.get(metadata.getInstanceId());
+    if (forInstance != null) {
+      return Optional.of(forInstance);
+    }
+    return metadata
+        .getInstanceClass()
+        .flatMap(
+            instanceClass -> {
+              final Integer forClass = this.overrides.get(instanceClass);
+              return forClass != null
+                  ? Optional.of(forClass)
+                  : sizeWeight(instanceClass.substring(instanceClass.lastIndexOf('.') + 1));
+            });
+  }
+
+  static Optional<Integer> sizeWeight(String size) {
+    switch (size) {
+      case "nano":
+      case "micro":
+      case "small":
+      case "medium":
+        return Optional.of(1);
+      case "large":
+        return Optional.of(2);
+      default:
+        final Matcher extraLarge = EXTRA_LARGE.matcher(size);
+        if (!extraLarge.matches()) {
+          return Optional.empty();
+        }
+        final String multiplier = extraLarge.group(1);
+        return Optional.of(4 * (multiplier.isEmpty() ? 1 : Integer.parseInt(multiplier)));
+    }
+  }
+}
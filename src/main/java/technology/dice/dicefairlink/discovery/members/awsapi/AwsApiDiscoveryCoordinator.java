@@ -0,0 +1,417 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members.awsapi;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.services.rds.RdsAsyncClient;
+import software.amazon.awssdk.services.rds.RdsAsyncClientBuilder;
+import software.amazon.awssdk.services.rds.model.DBCluster;
+import software.amazon.awssdk.services.rds.model.DBClusterMember;
+import software.amazon.awssdk.services.rds.model.DBInstance;
+import software.amazon.awssdk.services.rds.model.DescribeDbClustersRequest;
+import software.amazon.awssdk.services.rds.model.DescribeDbClustersResponse;
+import software.amazon.awssdk.services.rds.model.DescribeDbInstancesRequest;
+import software.amazon.awssdk.services.rds.model.DescribeDbInstancesResponse;
+import software.amazon.awssdk.services.rds.model.Filter;
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.AwsClientCache;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
+import technology.dice.dicefairlink.discovery.Futures;
+import technology.dice.dicefairlink.discovery.members.ClusterInfo;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
+
+/**
+ * Discovers every registered cluster of a region and account in one batched cycle of
+ * DescribeDBClusters and DescribeDBInstances calls, filtered on all their cluster ids at once, and
+ * fans the results out to each cluster's finder. A cycle is only run when the caller's cluster is
+ * missing from the last one, or the last one is older than the age the caller accepts; concurrent
+ * callers share the cycle in flight instead of starting their own.
+ *
+ * <p>Calls are made on the asynchronous RDS client, so no thread waits for AWS while a cycle is in
+ * flight. Each call is bounded by the configured AWS API call timeout. There is one coordinator per
+ * shared RDS client, reference counted by {@link #acquire} and {@link #release}; releasing the last
+ * reference cancels the calls in flight and releases the client.
+ */
+class AwsApiDiscoveryCoordinator {
+  private static final Logger LOGGER = Logger.getLogger(AwsApiDiscoveryCoordinator.class.getName());
+  private static final AwsClientCache<RdsAsyncClient> CLIENTS =
+      new AwsClientCache<>(AwsApiDiscoveryCoordinator::newClient);
+  private static final Map<RdsAsyncClient, AwsApiDiscoveryCoordinator> COORDINATORS =
+      new HashMap<>();
+  private static final String ACTIVE_STATUS = "available";
+  private static final int MAX_FILTER_VALUES = 100;
+
+  private final AwsClientCache.Lease<RdsAsyncClient> lease;
+  private final RdsAsyncClient client;
+  private final ConcurrentMap<String, Integer> clusterIds = new ConcurrentHashMap<>();
+  private volatile Cycle lastCycle = null;
+  private InFlightCycle inFlight = null;
+  private int references = 0;
+
+  private AwsApiDiscoveryCoordinator(AwsClientCache.Lease<RdsAsyncClient> lease) {
+    this.lease = lease;
+    this.client = lease.client();
+  }
+
+  /** The coordinator of the RDS client the configuration shares, to {@link #release} after use. */
+  static AwsApiDiscoveryCoordinator acquire(FairlinkConfiguration fairlinkConfiguration) {
+    final AwsClientCache.Lease<RdsAsyncClient> lease = CLIENTS.acquire(fairlinkConfiguration);
+    synchronized (COORDINATORS) {
+      final AwsApiDiscoveryCoordinator coordinator =
+          COORDINATORS.computeIfAbsent(
+              lease.client(), client -> new AwsApiDiscoveryCoordinator(lease));
+      if (coordinator.lease != lease) {
+        // the coordinator already holds a lease on the shared client
+        lease.close();
+      }
+      coordinator.references++;
+      return coordinator;
+    }
+  }
+
+  /** Gives up a reference. The last one cancels the cycle in flight, if any, and the client. */
+  void release() {
+    synchronized (COORDINATORS) {
+      if (--this.references > 0) {
+        return;
+      }
+      COORDINATORS.remove(this.client);
+    }
+    final InFlightCycle cycle;
+    synchronized (this) {
+      cycle = this.inFlight;
+      this.inFlight = null;
+    }
+    if (cycle != null) {
+      cycle.batches.forEach(batch -> batch.cancel(true));
+    }
+    this.lease.close();
+  }
+
+  static int size() {
+    synchronized (COORDINATORS) {
+      return COORDINATORS.size();
+    }
+  }
+
+  private static RdsAsyncClient newClient(FairlinkConfiguration fairlinkConfiguration) {
+    final RdsAsyncClientBuilder clientBuilder =
+        RdsAsyncClient.builder()
+            .region(fairlinkConfiguration.getAuroraClusterRegion())
+            .credentialsProvider(fairlinkConfiguration.getAwsCredentialsProvider())
+            .overrideConfiguration(
+                ClientOverrideConfiguration.builder()
+                    .apiCallTimeout(fairlinkConfiguration.getAwsApiCallTimeout())
+                    .build());
+    fairlinkConfiguration
+        .getAwsEndpointOverride()
+        .ifPresent(o -> clientBuilder.endpointOverride(URI.create(o)));
+    return clientBuilder.build();
+  }
+
+  void register(String clusterId) {
+    this.clusterIds.merge(clusterId, 1, Integer::sum);
+  }
+
+  void unregister(String clusterId) {
+    this.clusterIds.computeIfPresent(clusterId, (id, count) -> count > 1 ? count - 1 : null);
+  }
+
+  ClusterInfo discover(String clusterId, Duration maxAge) {
+    return Futures.join(this.discoverAsync(clusterId, maxAge));
+  }
+
+  CompletableFuture<ClusterInfo> discoverAsync(String clusterId, Duration maxAge) {
+    final Cycle cycle = this.lastCycle;
+    final CompletableFuture<Cycle> usable =
+        this.isUsable(cycle, clusterId, maxAge)
+            ? CompletableFuture.completedFuture(cycle)
+            : this.cycleCovering(clusterId, maxAge);
+    return usable.thenApply(
+        discovered -> {
+          final DiscoveryException failure = discovered.failures.get(clusterId);
+          if (failure != null) {
+            throw new DiscoveryException(failure.getMessage(), failure.getCause());
+          }
+          return discovered.clusters.get(clusterId);
+        });
+  }
+
+  private boolean isUsable(Cycle cycle, String clusterId, Duration maxAge) {
+    return cycle != null
+        && System.nanoTime() - cycle.startedAtNanos < maxAge.toNanos()
+        && (cycle.clusters.containsKey(clusterId) || cycle.failures.containsKey(clusterId));
+  }
+
+  /**
+   * The last cycle if it covers the cluster, or else the cycle in flight if it covers it, or else a
+   * new cycle, which becomes the one in flight.
+   */
+  private synchronized CompletableFuture<Cycle> cycleCovering(String clusterId, Duration maxAge) {
+    final Cycle raced = this.lastCycle;
+    if (this.isUsable(raced, clusterId, maxAge)) {
+      return CompletableFuture.completedFuture(raced);
+    }
+    if (this.inFlight != null && this.inFlight.clusterIds.contains(clusterId)) {
+      return this.inFlight.result;
+    }
+    final List<String> ids = new ArrayList<>(this.clusterIds.keySet());
+    if (!ids.contains(clusterId)) {
+      ids.add(clusterId);
+    }
+    final Cycle cycle = new Cycle();
+    final List<CompletableFuture<Void>> batches = new ArrayList<>();
+    for (int from = 0; from < ids.size(); from += MAX_FILTER_VALUES) {
+      final List<String> batch = ids.subList(from, Math.min(ids.size(), from + MAX_FILTER_VALUES));
+      batches.add(this.discoverBatch(batch, cycle));
+    }
+    final InFlightCycle inFlight =
+        new InFlightCycle(
+            ids,
+            batches,
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+                .thenApply(
+                    done -> {
+                      LOGGER.log(
+                          Level.FINE,
+                          "Discovered {0} cluster(s) in one batched cycle",
+                          cycle.clusters.size() + cycle.failures.size());
+                      return cycle;
+                    }));
+    this.inFlight = inFlight;
+    inFlight.result.whenComplete((discovered, failure) -> this.completed(inFlight, discovered));
+    return inFlight.result;
+  }
+
+  /**
+   * Publishes the discovered cycle, unless a cycle started after it has already been published, as
+   * cycles covering different clusters may complete out of order.
+   */
+  private synchronized void completed(InFlightCycle cycle, Cycle discovered) {
+    final Cycle last = this.lastCycle;
+    if (discovered != null
+        && (last == null || discovered.startedAtNanos - last.startedAtNanos >= 0)) {
+      this.lastCycle = discovered;
+    }
+    if (this.inFlight == cycle) {
+      this.inFlight = null;
+    }
+  }
+
+  /**
+   * Describes the clusters and their instances at the same time. Once either fails, or the batch is
+   * cancelled, the AWS calls still in flight are cancelled rather than left to retry.
+   */
+  private CompletableFuture<Void> discoverBatch(List<String> ids, Cycle cycle) {
+    final Filter byClusterIds =
+        Filter.builder().name(AwsApiReplicasFinder.DB_CLUSTER_ID_FILTER).values(ids).build();
+    final AtomicReference<CompletableFuture<?>> clustersCall = new AtomicReference<>();
+    final AtomicReference<CompletableFuture<?>> instancesCall = new AtomicReference<>();
+    final CompletableFuture<List<DBCluster>> clusters =
+        this.describeClusters(
+            DescribeDbClustersRequest.builder().filters(byClusterIds).build(),
+            new ArrayList<>(),
+            clustersCall);
+    final CompletableFuture<List<DBInstance>> instances =
+        this.describeInstances(
+            DescribeDbInstancesRequest.builder().filters(byClusterIds).build(),
+            new ArrayList<>(),
+            instancesCall);
+    final CompletableFuture<Void> batch =
+        clusters
+            .handle(
+                (described, failure) -> {
+                  if (failure != null) {
+                    cancel(instancesCall);
+                    this.failAll(
+                        ids, cycle, id -> "Failed to describe cluster [" + id + "]", failure);
+                  }
+                  return described;
+                })
+            .thenCombine(
+                instances.handle(
+                    (described, failure) -> {
+                      if (failure != null) {
+                        cancel(clustersCall);
+                        this.failAll(
+                            ids,
+                            cycle,
+                            id -> "Failed to list replicas of cluster [" + id + "]",
+                            failure);
+                      }
+                      return described;
+                    }),
+                (describedClusters, describedInstances) -> {
+                  if (describedClusters != null && describedInstances != null) {
+                    this.fanOut(ids, describedClusters, describedInstances, cycle);
+                  }
+                  return null;
+                });
+    batch.whenComplete(
+        (done, failure) -> {
+          if (batch.isCancelled()) {
+            cancel(clustersCall);
+            cancel(instancesCall);
+          }
+        });
+    return batch;
+  }
+
+  /** Cancelling a dependent stage does not reach the AWS call, so the call itself is cancelled. */
+  private static void cancel(AtomicReference<CompletableFuture<?>> call) {
+    final CompletableFuture<?> inFlight = call.get();
+    if (inFlight != null) {
+      inFlight.cancel(true);
+    }
+  }
+
+  private CompletableFuture<List<DBCluster>> describeClusters(
+      DescribeDbClustersRequest request,
+      List<DBCluster> described,
+      AtomicReference<CompletableFuture<?>> call) {
+    final CompletableFuture<DescribeDbClustersResponse> page =
+        this.client.describeDBClusters(request);
+    call.set(page);
+    return page.thenCompose(
+        response -> {
+          described.addAll(response.dbClusters());
+          return response.marker() == null
+              ? CompletableFuture.completedFuture(described)
+              : this.describeClusters(
+                  request.toBuilder().marker(response.marker()).build(), described, call);
+        });
+  }
+
+  private CompletableFuture<List<DBInstance>> describeInstances(
+      DescribeDbInstancesRequest request,
+      List<DBInstance> described,
+      AtomicReference<CompletableFuture<?>> call) {
+    final CompletableFuture<DescribeDbInstancesResponse> page =
+        this.client.describeDBInstances(request);
+    call.set(page);
+    return page.thenCompose(
+        response -> {
+          described.addAll(response.dbInstances());
+          return response.marker() == null
+              ? CompletableFuture.completedFuture(described)
+              : this.describeInstances(
+                  request.toBuilder().marker(response.marker()).build(), described, call);
+        });
+  }
+
+  private void failAll(
+      List<String> ids, Cycle cycle, Function<String, String> message, Throwable failure) {
+    final Throwable cause = Futures.cause(failure);
+    ids.forEach(
+        id -> cycle.failures.putIfAbsent(id, new DiscoveryException(message.apply(id), cause)));
+  }
+
+  private void fanOut(
+      List<String> ids,
+      List<DBCluster> describedClusters,
+      List<DBInstance> describedInstances,
+      Cycle cycle) {
+    final Map<String, DBCluster> clusters =
+        describedClusters.stream()
+            .collect(
+                Collectors.toMap(
+                    cluster -> cluster.dbClusterIdentifier().toLowerCase(),
+                    cluster -> cluster,
+                    (first, second) -> first));
+    final Map<String, DBInstance> instances =
+        describedInstances.stream()
+            .collect(
+                Collectors.toMap(
+                    instance -> instance.dbInstanceIdentifier().toLowerCase(),
+                    instance -> instance,
+                    (first, second) -> first));
+    for (String id : ids) {
+      final DBCluster cluster = clusters.get(id.toLowerCase());
+      if (cluster == null) {
+        cycle.failures.put(
+            id,
+            new DiscoveryException(
+                String.format("Could not find exactly one cluster with cluster id [%s]", id),
+                null));
+      } else {
+        final Set<String> replicas = replicaMembersOf(cluster, instances);
+        cycle.clusters.put(
+            id,
+            new ClusterInfo(
+                cluster.readerEndpoint(), replicas, metadataOf(replicas, instances)));
+      }
+    }
+  }
+
+  private static Set<String> replicaMembersOf(
+      DBCluster cluster, Map<String, DBInstance> instances) {
+    return cluster.dbClusterMembers().stream()
+        .filter(member -> !Boolean.TRUE.equals(member.isClusterWriter()))
+        .map(DBClusterMember::dbInstanceIdentifier)
+        .filter(
+            id -> {
+              final DBInstance instance = instances.get(id.toLowerCase());
+              return instance != null && isActive(instance);
+            })
+        .collect(Collectors.toSet());
+  }
+
+  private static Map<String, ReplicaMetadata> metadataOf(
+      Set<String> replicas, Map<String, DBInstance> instances) {
+    return replicas.stream()
+        .collect(
+            Collectors.toMap(
+                id -> id,
+                id -> {
+                  final DBInstance instance = instances.get(id.toLowerCase());
+                  return ReplicaMetadata.builder(id)
+                      .instanceClass(instance.dbInstanceClass())
+                      .availabilityZone(instance.availabilityZone())
+                      .build();
+                }));
+  }
+
+  private static boolean isActive(DBInstance dbInstance) {
+    return dbInstance.dbInstanceStatus().equalsIgnoreCase(ACTIVE_STATUS);
+  }
+
+  private static final class Cycle {
+    private final long startedAtNanos = System.nanoTime();
+    private final Map<String, ClusterInfo> clusters = new ConcurrentHashMap<>();
+    private final Map<String, DiscoveryException> failures = new ConcurrentHashMap<>();
+  }
+
+  private static final class InFlightCycle {
+    private final Set<String> clusterIds;
+    private final List<CompletableFuture<Void>> batches;
+    private final CompletableFuture<Cycle> result;
+
+    private InFlightCycle(
+        List<String> clusterIds,
+        List<CompletableFuture<Void>> batches,
+        CompletableFuture<Cycle> result) {
+      this.clusterIds = new HashSet<>(clusterIds);
+      this.batches = batches;
+      this.result = result;
+    }
+  }
+}
@@ -5,13 +5,31 @@
  */
 package technology.dice.dicefairlink.discovery.members.sql;
 
+import java.time.Duration;
+import java.util.Optional;
+
 public class DatabaseInstance {
   private final DatabaseInstanceRole role;
   private final String id;
+  private final Duration replicaLag;
+  private final Duration sinceLastUpdate;
+  private final Double cpuUtilization;
 
   public DatabaseInstance(DatabaseInstanceRole role, String id) {
-    this.role = role;
-    this.id = id;
+    this(builder(role, id));
+  }
+
+  private DatabaseInstance(Builder builder) {
+    this.role = builder.role;
+    this.id = builder.id;
+    this.replicaLag = builder.replicaLag;
+    this.sinceLastUpdate = builder.sinceLastUpdate;
+    this.cpuUtilization = builder.cpuUtilization;
+  }
+
+  /** An instance with whatever else its status row tells set on the builder. */
+  public static Builder builder(DatabaseInstanceRole role, String id) {
+    return new Builder(role, id);
   }
 
   public DatabaseInstanceRole getRole() {
@@ -21,4 +39,51 @@ public class DatabaseInstance {
   public String getId() {
     return id;
   }
+
+  public Optional<Duration> getReplicaLag() {
+    return Optional.ofNullable(replicaLag);
+  }
+
+  public Optional<Duration> getSinceLastUpdate() {
+    return Optional.ofNullable(sinceLastUpdate);
+  }
+
+  public Optional<Double> getCpuUtilization() {
+    return Optional.ofNullable(cpuUtilization);
+  }
+
+  public static final class Builder {
+    private final DatabaseInstanceRole role;
+    private final String id;
+    private Duration replicaLag;
+    private Duration sinceLastUpdate;
+    private Double cpuUtilization;
+
+    private Builder(DatabaseInstanceRole role, String id) {
+      this.role = role;
+      this.id = id;
+    }
+
+    /** @param replicaLag how far behind the writer the instance is, if known */
+    public Builder replicaLag(Duration replicaLag) {
+      this.replicaLag = replicaLag;
+      return this;
+    }
+
+    /** @param sinceLastUpdate how long ago the instance last updated its status, if known */
+    public Builder sinceLastUpdate(Duration sinceLastUpdate) {
+      this.sinceLastUpdate = sinceLastUpdate;
+      return this;
+    }
+
+    /** @param cpuUtilization the instance's CPU utilisation, in percent, if known */
+    public Builder cpuUtilization(Double cpuUtilization) {
+      this.cpuUtilization = cpuUtilization;
+      return this;
+    }
+
+    public DatabaseInstance build() {
+      return new DatabaseInstance(this);
+    }
+  }
 }
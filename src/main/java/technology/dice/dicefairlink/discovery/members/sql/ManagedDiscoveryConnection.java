@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members.sql;
+
+import technology.dice.dicefairlink.driver.FairlinkConnectionString;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Connection to the cluster endpoint used by the SQL discovery modes. It is kept open across polls
+ * and runs the topology query through a prepared statement with a query timeout. When a query fails
+ * on a connection left over from a previous poll, the connection is re-established and the query
+ * retried once before giving up. Once closed, it is not re-established.
+ */
+public class ManagedDiscoveryConnection implements AutoCloseable {
+  private static final Logger LOGGER = Logger.getLogger(ManagedDiscoveryConnection.class.getName());
+  private final Driver driver;
+  private final FairlinkConnectionString fairlinkConnectionString;
+  private final String query;
+  private final int queryTimeoutSeconds;
+  private Connection connection;
+  private PreparedStatement statement;
+  private boolean closed = false;
+
+  public ManagedDiscoveryConnection(
+      Driver driver,
+      FairlinkConnectionString fairlinkConnectionString,
+      String query,
+      Duration queryTimeout) {
+    this.driver = driver;
+    this.fairlinkConnectionString = fairlinkConnectionString;
+    this.query = query;
+    this.queryTimeoutSeconds = (int) Math.max(1, queryTimeout.getSeconds());
+  }
+
+  public synchronized Set<DatabaseInstance> findInstances() throws SQLException {
+    if (this.closed) {
+      throw new SQLException("Discovery connection is closed");
+    }
+    final boolean reused = this.statement != null;
+    try {
+      return this.runQuery();
+    } catch (SQLException | RuntimeException e) {
+      this.disconnect();
+      if (!reused) {
+        throw e;
+      }
+      LOGGER.log(Level.FINE, "Discovery connection failed. Reconnecting", e);
+      try {
+        return this.runQuery();
+      } catch (SQLException | RuntimeException retryException) {
+        this.disconnect();
+        throw retryException;
+      }
+    }
+  }
+
+  private Set<DatabaseInstance> runQuery() throws SQLException {
+    final Set<DatabaseInstance> instances = new HashSet<>();
+    try (ResultSet resultSet = this.preparedStatement().executeQuery()) {
+      while (resultSet.next()) {
+        instances.add(
+            DatabaseInstance.builder(
+                    DatabaseInstanceRole.valueOf(resultSet.getString("role")),
+                    resultSet.getString("server_id"))
+                .replicaLag(durationOf(resultSet.getString("replica_lag_ms"), 1))
+                .sinceLastUpdate(durationOf(resultSet.getString("seconds_since_update"), 1000))
+                .cpuUtilization(percentOf(resultSet.getString("cpu")))
+                .build());
+      }
+    }
+    return Collections.unmodifiableSet(instances);
+  }
+
+  /**
+   * The duration of a number of units of the given number of milliseconds. Columns the query does
+   * not return, nulls, and the negative values some engines report for the writer are unknown.
+   */
+  private static Duration durationOf(String value, long unitMillis) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      final double millis = Double.parseDouble(value) * unitMillis;
+      return millis < 0 ? null : Duration.ofNanos((long) (millis * 1_000_000));
+    } catch (NumberFormatException e) {
+      LOGGER.log(Level.FINE, "Ignoring malformed duration {0}", value);
+      return null;
+    }
+  }
+
+  private static Double percentOf(String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      final double percent = Double.parseDouble(value);
+      return percent < 0 ? null : percent;
+    } catch (NumberFormatException e) {
+      LOGGER.log(Level.FINE, "Ignoring malformed percentage {0}", value);
+      return null;
+    }
+  }
+
+  private PreparedStatement preparedStatement() throws SQLException {
+    if (this.statement == null) {
+      this.connection =
+          this.driver.connect(
+              this.fairlinkConnectionString.delegateConnectionString(),
+              this.fairlinkConnectionString.getProperties());
+      if (this.connection == null) {
+        throw new SQLException(
+            "Driver did not accept "
+                + this.fairlinkConnectionString.delegateConnectionString());
+      }
+      this.statement = this.connection.prepareStatement(this.query);
+      this.statement.setQueryTimeout(this.queryTimeoutSeconds);
+    }
+    return this.statement;
+  }
+
+  @Override
+  public synchronized void close() {
+    this.closed = true;
+    this.disconnect();
+  }
+
+  private void disconnect() {
+    if (this.statement != null) {
+      try {
+        this.statement.close();
+      } catch (SQLException e) {
+        LOGGER.log(Level.FINE, "Error closing discovery statement", e);
+      }
+      this.statement = null;
+    }
+    if (this.connection != null) {
+      try {
+        this.connection.close();
+      } catch (SQLException e) {
+        LOGGER.log(Level.FINE, "Error closing discovery connection", e);
+      }
+      this.connection = null;
+    }
+  }
+}
@@ -1,69 +1,68 @@
 package technology.dice.dicefairlink.discovery.members.sql;
 
+import technology.dice.dicefairlink.discovery.DiscoveryException;
 import technology.dice.dicefairlink.discovery.members.ClusterInfo;
 import technology.dice.dicefairlink.discovery.members.MemberFinderMethod;
 import technology.dice.dicefairlink.driver.FairlinkConnectionString;
 
-import java.sql.Connection;
 import java.sql.Driver;
-import java.sql.ResultSet;
-import java.util.Collections;
-import java.util.HashSet;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import java.util.stream.Collectors;
-
-public class PostgresSQLReplicasFinder implements MemberFinderMethod {
-    private static final Logger LOGGER = Logger.getLogger(PostgresSQLReplicasFinder.class.getName());
-    private static final Set<DatabaseInstance> EMPTY_SET =
-        Collections.unmodifiableSet(new HashSet<>(0));
 
+public class PostgresSQLReplicasFinder implements MemberFinderMethod, AutoCloseable {
     private static final String FIND_NODES_QUERY =
         "select server_id, "
         + "case when session_id = 'MASTER_SESSION_ID' then 'WRITER' else 'READER' end "
-        + "as role from aurora_replica_status();";
+        + "as role, replica_lag_in_msec as replica_lag_ms, cpu, "
+        + "extract(epoch from now() - last_update_timestamp) as seconds_since_update "
+        + "from aurora_replica_status()";
 
-    private final Driver driverForDelegate;
     private final FairlinkConnectionString fairlinkConnectionString;
+    private final ManagedDiscoveryConnection discoveryConnection;
+    private final Optional<Duration> maxReplicaLag;
 
     public PostgresSQLReplicasFinder(FairlinkConnectionString fairlinkConnectionString, Driver driverForDelegate) {
+        this(fairlinkConnectionString, driverForDelegate, SqlDiscoveryOptions.defaults());
+    }
+
+    public PostgresSQLReplicasFinder(
+        FairlinkConnectionString fairlinkConnectionString,
+        Driver driverForDelegate,
+        SqlDiscoveryOptions options) {
         this.fairlinkConnectionString = fairlinkConnectionString;
-        this.driverForDelegate = driverForDelegate;
+        this.discoveryConnection =
+            new ManagedDiscoveryConnection(
+                driverForDelegate,
+                fairlinkConnectionString,
+                FIND_NODES_QUERY,
+                options.getQueryTimeout());
+        this.maxReplicaLag = options.getMaxReplicaLag();
     }
 
     protected Set<DatabaseInstance> findReplicas() {
-        Set<DatabaseInstance> instances = new HashSet<>();
-        try (final Connection c =
-                this.driverForDelegate.connect(
-                    fairlinkConnectionString.delegateConnectionString(),
-                    fairlinkConnectionString.getProperties());
-            final ResultSet resultSet =
-                c.createStatement()
-                    .executeQuery(FIND_NODES_QUERY)) {
-          while (resultSet.next()) {
-            instances.add(
-                new DatabaseInstance(
-                    DatabaseInstanceRole.valueOf(resultSet.getString("role")),
-                    resultSet.getString("server_id")));
-          }
+        try {
+          return this.discoveryConnection.findInstances();
         } catch (Exception e) {
-          LOGGER.log(
-              Level.SEVERE,
-              "Failed to obtain cluster members due to exception. Returning empty set",
+          throw new DiscoveryException(
+              "Failed to obtain members of cluster ["
+                  + fairlinkConnectionString.getFairlinkUri()
+                  + "]",
               e);
-          return EMPTY_SET;
         }
-        return Collections.unmodifiableSet(instances);
       }
 
     @Override
     public ClusterInfo discoverCluster() {
-        return new ClusterInfo(
+        return TopologyReaders.clusterInfo(
               this.fairlinkConnectionString.delegateConnectionString(),
-              this.findReplicas().stream()
-                  .filter(databaseInstance -> databaseInstance.getRole() == DatabaseInstanceRole.READER)
-                  .map(DatabaseInstance::getId)
-                  .collect(Collectors.toSet()));
+              this.findReplicas(),
+              this.maxReplicaLag);
+    }
+
+    /** Closes the discovery connection. */
+    @Override
+    public void close() {
+        this.discoveryConnection.close();
     }
 }
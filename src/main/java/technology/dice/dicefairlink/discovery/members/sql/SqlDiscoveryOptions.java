@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members.sql;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/** How the SQL finders query the replica status, built with {@link #builder()}. */
+public final class SqlDiscoveryOptions {
+  private static final Duration DEFAULT_QUERY_TIMEOUT = Duration.ofSeconds(5);
+  private static final SqlDiscoveryOptions DEFAULTS = builder().build();
+  private final Duration queryTimeout;
+  private final Optional<Duration> maxReplicaLag;
+
+  private SqlDiscoveryOptions(Builder builder) {
+    this.queryTimeout = builder.queryTimeout;
+    this.maxReplicaLag = builder.maxReplicaLag;
+  }
+
+  /** A five second query timeout, and no bound on replica lag. */
+  public static SqlDiscoveryOptions defaults() {
+    return DEFAULTS;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public Duration getQueryTimeout() {
+    return queryTimeout;
+  }
+
+  /** How far behind the writer a replica may be to be used, if bounded. */
+  public Optional<Duration> getMaxReplicaLag() {
+    return maxReplicaLag;
+  }
+
+  public static final class Builder {
+    private Duration queryTimeout = DEFAULT_QUERY_TIMEOUT;
+    private Optional<Duration> maxReplicaLag = Optional.empty();
+
+    private Builder() {}
+
+    public Builder queryTimeout(Duration queryTimeout) {
+      if (queryTimeout == null) {
+        throw new IllegalArgumentException("Query timeout must not be null");
+      }
+      this.queryTimeout = queryTimeout;
+      return this;
+    }
+
+    public Builder maxReplicaLag(Optional<Duration> maxReplicaLag) {
+      this.maxReplicaLag = maxReplicaLag;
+      return this;
+    }
+
+    public SqlDiscoveryOptions build() {
+      return new SqlDiscoveryOptions(this);
+    }
+  }
+}
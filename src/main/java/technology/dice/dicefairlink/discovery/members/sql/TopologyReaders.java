@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members.sql;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import technology.dice.dicefairlink.discovery.members.ClusterInfo;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
+
+/**
+ * The readers of a cluster, as listed by its topology table. Rows that have not been updated for a
+ * while are left over by deleted instances, and are ignored. So are readers lagging further behind
+ * the writer than allowed.
+ */
+final class TopologyReaders {
+  private static final Logger LOGGER = Logger.getLogger(TopologyReaders.class.getName());
+  private static final Duration STALE_STATUS_AFTER = Duration.ofMinutes(5);
+
+  private TopologyReaders() {}
+
+  static ClusterInfo clusterInfo(
+      String readonlyEndpoint, Set<DatabaseInstance> instances, Optional<Duration> maxReplicaLag) {
+    final Set<String> readers = new HashSet<>();
+    final Map<String, ReplicaMetadata> metadata = new HashMap<>();
+    for (DatabaseInstance instance : instances) {
+      if (instance.getRole() != DatabaseInstanceRole.READER) {
+        continue;
+      }
+      final Optional<Duration> sinceLastUpdate = instance.getSinceLastUpdate();
+      if (sinceLastUpdate.isPresent() && sinceLastUpdate.get().compareTo(STALE_STATUS_AFTER) > 0) {
+        LOGGER.log(
+            Level.FINE,
+            "Ignoring replica {0}, whose status was last updated {1} ago",
+            new Object[] {instance.getId(), sinceLastUpdate.get()});
+        continue;
+      }
+      final Optional<Duration> lag = instance.getReplicaLag();
+      if (lag.isPresent()
+          && maxReplicaLag.isPresent()
+          && lag.get().compareTo(maxReplicaLag.get()) > 0) {
+        LOGGER.log(
+            Level.INFO,
+            "Ignoring replica {0}, which is {1} behind the writer",
+            new Object[] {instance.getId(), lag.get()});
+        continue;
+      }
+      readers.add(instance.getId());
+      final Optional<Double> cpu = instance.getCpuUtilization();
+      if (lag.isPresent() || cpu.isPresent()) {
+        metadata.put(
+            instance.getId(),
+            ReplicaMetadata.builder(instance.getId())
+                .replicaLag(lag.orElse(null))
+                .cpuUtilization(cpu.orElse(null))
+                .build());
+      }
+    }
+    return new ClusterInfo(readonlyEndpoint, readers, metadata);
+  }
+}
@@ -5,6 +5,8 @@
  */
 package technology.dice.dicefairlink.discovery.tags;
 
+import java.util.Objects;
+
 public class ExclusionTag {
   private final String key;
   private final String value;
@@ -21,4 +23,26 @@ public class ExclusionTag {
   public String getValue() {
     return value;
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    ExclusionTag that = (ExclusionTag) o;
+    return Objects.equals(key, that.key) && Objects.equals(value, that.value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(key, value);
+  }
+
+  @Override
+  public String toString() {
+    return key + "=" + value;
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.tags;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
+import technology.dice.dicefairlink.discovery.Futures;
+
+/**
+ * A {@link TagFilter} that polls its delegate on its own schedule and answers every caller from an
+ * immutable snapshot of the last poll. Excluded instances are listed account-wide, so a single
+ * poller can serve every cluster in the same region with the same credentials, instead of each
+ * cluster scanning the whole account on its own.
+ *
+ * <p>A tag is first polled, on the calling thread, when it is first asked for. Later polls use the
+ * delegate's non-blocking method, and a tag is not polled again while its previous poll is in
+ * flight. If the last poll of a tag failed, callers get a {@link DiscoveryException} until a poll
+ * succeeds again. Closing the poller stops polling and closes the delegate.
+ */
+public class SharedExclusionPoller implements TagFilter, AutoCloseable {
+  private static final Logger LOGGER = Logger.getLogger(SharedExclusionPoller.class.getName());
+
+  private final TagFilter delegate;
+  private final ConcurrentMap<ExclusionTag, Snapshot> snapshots = new ConcurrentHashMap<>();
+  private final Set<ExclusionTag> inFlight = ConcurrentHashMap.newKeySet();
+  private final ScheduledFuture<?> polling;
+
+  public SharedExclusionPoller(
+      TagFilter delegate, ScheduledExecutorService executor, Duration pollInterval) {
+    this.delegate = delegate;
+    this.polling =
+        executor.scheduleAtFixedRate(
+            this::pollAll,
+            pollInterval.toMillis(),
+            pollInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Set<String> listExcludedInstances(ExclusionTag tag) {
+    Snapshot snapshot = this.snapshots.get(tag);
+    if (snapshot == null) {
+      snapshot = this.firstPoll(tag);
+    }
+    if (snapshot.failure != null) {
+      throw new DiscoveryException(
+          "Last poll of instances tagged " + tag + " failed", snapshot.failure);
+    }
+    return snapshot.exclusions;
+  }
+
+  private void pollAll() {
+    for (ExclusionTag tag : this.snapshots.keySet()) {
+      if (!this.inFlight.add(tag)) {
+        continue;
+      }
+      CompletableFuture<Set<String>> poll;
+      try {
+        poll = this.delegate.listExcludedInstancesAsync(tag);
+      } catch (RuntimeException e) {
+        poll = Futures.failed(e);
+      }
+      poll.whenComplete(
+          (exclusions, failure) -> {
+            this.publish(tag, exclusions, failure);
+            this.inFlight.remove(tag);
+          });
+    }
+  }
+
+  private synchronized Snapshot firstPoll(ExclusionTag tag) {
+    final Snapshot raced = this.snapshots.get(tag);
+    return raced != null ? raced : this.poll(tag);
+  }
+
+  private Snapshot poll(ExclusionTag tag) {
+    try {
+      return this.publish(tag, this.delegate.listExcludedInstances(tag), null);
+    } catch (RuntimeException e) {
+      return this.publish(tag, null, e);
+    }
+  }
+
+  private Snapshot publish(ExclusionTag tag, Set<String> exclusions, Throwable failure) {
+    final Snapshot snapshot;
+    if (failure == null) {
+      snapshot = new Snapshot(Collections.unmodifiableSet(new HashSet<>(exclusions)), null);
+    } else {
+      LOGGER.log(Level.FINE, "Could not poll instances tagged " + tag, Futures.cause(failure));
+      snapshot = new Snapshot(null, Futures.asRuntimeException(failure));
+    }
+    this.snapshots.put(tag, snapshot);
+    return snapshot;
+  }
+
+  @Override
+  public void close() {
+    if (this.polling != null) {
+      this.polling.cancel(false);
+    }
+    if (this.delegate instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) this.delegate).close();
+      } catch (Exception e) {
+        LOGGER.log(Level.FINE, "Could not close the tag filter", e);
+      }
+    }
+  }
+
+  private static final class Snapshot {
+    private final Set<String> exclusions;
+    private final RuntimeException failure;
+
+    private Snapshot(Set<String> exclusions, RuntimeException failure) {
+      this.exclusions = exclusions;
+      this.failure = failure;
+    }
+  }
+}
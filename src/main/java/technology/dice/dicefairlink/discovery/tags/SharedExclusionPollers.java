@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.tags;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+
+/**
+ * One {@link SharedExclusionPoller} per region, endpoint override and credentials. The poller is
+ * created by the first cluster needing it, with that cluster's tag poll interval. Each cluster gets
+ * its own claim on the poller, and the poller is closed, along with its delegate, once the last
+ * claim on it is closed.
+ */
+public class SharedExclusionPollers {
+  private final Map<String, Entry> pollers = new HashMap<>();
+  private final Supplier<ScheduledExecutorService> executor;
+
+  public SharedExclusionPollers(Supplier<ScheduledExecutorService> executor) {
+    this.executor = executor;
+  }
+
+  public synchronized Claim get(
+      FairlinkConfiguration fairlinkConfiguration, Supplier<TagFilter> delegate) {
+    final String key =
+        fairlinkConfiguration.getAuroraClusterRegion().id()
+            + "|"
+            + fairlinkConfiguration.getAwsEndpointOverride().orElse("")
+            + "|"
+            + fairlinkConfiguration.getAwsCredentialsIdentity();
+    Entry entry = this.pollers.get(key);
+    if (entry == null) {
+      entry =
+          new Entry(
+              new SharedExclusionPoller(
+                  delegate.get(),
+                  this.executor.get(),
+                  fairlinkConfiguration.getTagsPollerInterval()));
+      this.pollers.put(key, entry);
+    }
+    entry.claims++;
+    return new Claim(key, entry.poller);
+  }
+
+  private synchronized void release(String key, SharedExclusionPoller poller) {
+    final Entry entry = this.pollers.get(key);
+    if (entry == null || entry.poller != poller) {
+      return;
+    }
+    entry.claims--;
+    if (entry.claims <= 0) {
+      this.pollers.remove(key);
+      poller.close();
+    }
+  }
+
+  public synchronized int size() {
+    return this.pollers.size();
+  }
+
+  /** A cluster's claim on a shared poller. Closing it more than once has no further effect. */
+  public class Claim implements TagFilter, AutoCloseable {
+    private final String key;
+    private final SharedExclusionPoller poller;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private Claim(String key, SharedExclusionPoller poller) {
+      this.key = key;
+      this.poller = poller;
+    }
+
+    @Override
+    public Set<String> listExcludedInstances(ExclusionTag tag) {
+      return this.poller.listExcludedInstances(tag);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> listExcludedInstancesAsync(ExclusionTag tag) {
+      return this.poller.listExcludedInstancesAsync(tag);
+    }
+
+    @Override
+    public void close() {
+      if (this.closed.compareAndSet(false, true)) {
+        release(this.key, this.poller);
+      }
+    }
+  }
+
+  private static class Entry {
+    private final SharedExclusionPoller poller;
+    private int claims = 0;
+
+    private Entry(SharedExclusionPoller poller) {
+      this.poller = poller;
+    }
+  }
+}
@@ -6,8 +6,18 @@
 package technology.dice.dicefairlink.discovery.tags;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import technology.dice.dicefairlink.discovery.Futures;
 
 @FunctionalInterface
 public interface TagFilter {
   Set<String> listExcludedInstances(ExclusionTag tag);
+
+  /**
+   * Lists the excluded instances without blocking the calling thread. Filters without a
+   * non-blocking implementation run {@link #listExcludedInstances} on the calling thread.
+   */
+  default CompletableFuture<Set<String>> listExcludedInstancesAsync(ExclusionTag tag) {
+    return Futures.completed(() -> this.listExcludedInstances(tag));
+  }
 }
@@ -6,11 +6,14 @@
 package technology.dice.dicefairlink.discovery.tags.awsapi;
 
 import java.net.URI;
-import software.amazon.awssdk.services.resourcegroupstaggingapi.ResourceGroupsTaggingApiClient;
-import software.amazon.awssdk.services.resourcegroupstaggingapi.ResourceGroupsTaggingApiClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.services.resourcegroupstaggingapi.ResourceGroupsTaggingApiAsyncClient;
+import software.amazon.awssdk.services.resourcegroupstaggingapi.ResourceGroupsTaggingApiAsyncClientBuilder;
 import software.amazon.awssdk.services.resourcegroupstaggingapi.model.GetResourcesRequest;
-import software.amazon.awssdk.services.resourcegroupstaggingapi.paginators.GetResourcesIterable;
 import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.AwsClientCache;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
+import technology.dice.dicefairlink.discovery.Futures;
 import technology.dice.dicefairlink.discovery.tags.ExclusionTag;
 import technology.dice.dicefairlink.discovery.tags.TagFilter;
 
@@ -19,67 +22,105 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.logging.Level;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
-public class ResourceGroupApiTagDiscovery implements TagFilter {
+public class ResourceGroupApiTagDiscovery implements TagFilter, AutoCloseable {
   private static final Logger LOGGER =
       Logger.getLogger(ResourceGroupApiTagDiscovery.class.getName());
   private static final String RDS_DB_INSTANCE_FILTER = "rds:db";
+  private static final AwsClientCache<ResourceGroupsTaggingApiAsyncClient> CLIENTS =
+      new AwsClientCache<>(ResourceGroupApiTagDiscovery::newClient);
 
-  private final ResourceGroupsTaggingApiClient client;
+  private final AwsClientCache.Lease<ResourceGroupsTaggingApiAsyncClient> lease;
+  private final ResourceGroupsTaggingApiAsyncClient client;
   private final Collection<String> typeFilter;
 
   public ResourceGroupApiTagDiscovery(FairlinkConfiguration fairlinkConfiguration) {
+    this.lease = CLIENTS.acquire(fairlinkConfiguration);
+    this.client = this.lease.client();
+    Collection<String> temporaryTypeFilter = new ArrayList<>(1);
+    temporaryTypeFilter.add(RDS_DB_INSTANCE_FILTER);
+    this.typeFilter = Collections.unmodifiableCollection(temporaryTypeFilter);
+  }
 
-    final ResourceGroupsTaggingApiClientBuilder clientBuilder =
-        ResourceGroupsTaggingApiClient.builder()
+  private static ResourceGroupsTaggingApiAsyncClient newClient(
+      FairlinkConfiguration fairlinkConfiguration) {
+    final ResourceGroupsTaggingApiAsyncClientBuilder clientBuilder =
+        ResourceGroupsTaggingApiAsyncClient.builder()
             .region(fairlinkConfiguration.getAuroraClusterRegion())
-            .credentialsProvider(fairlinkConfiguration.getAwsCredentialsProvider());
+            .credentialsProvider(fairlinkConfiguration.getAwsCredentialsProvider())
+            .overrideConfiguration(
+                ClientOverrideConfiguration.builder()
+                    .apiCallTimeout(fairlinkConfiguration.getAwsApiCallTimeout())
+                    .build());
     fairlinkConfiguration
         .getAwsEndpointOverride()
         .ifPresent(o -> clientBuilder.endpointOverride(URI.create(o)));
-    this.client = clientBuilder.build();
-    Collection<String> temporaryTypeFilter = new ArrayList<>(1);
-    temporaryTypeFilter.add(RDS_DB_INSTANCE_FILTER);
-    this.typeFilter = Collections.unmodifiableCollection(temporaryTypeFilter);
+    return clientBuilder.build();
+  }
+
+  static int clients() {
+    return CLIENTS.size();
   }
 
   @Override
   public Set<String> listExcludedInstances(ExclusionTag tags) {
+    return Futures.join(this.listExcludedInstancesAsync(tags));
+  }
+
+  @Override
+  public CompletableFuture<Set<String>> listExcludedInstancesAsync(ExclusionTag tags) {
+    GetResourcesRequest request =
+        GetResourcesRequest.builder()
+            .resourceTypeFilters(this.typeFilter)
+            .tagFilters(
+                software.amazon.awssdk.services.resourcegroupstaggingapi.model.TagFilter.builder()
+                    .key(tags.getKey())
+                    .values(tags.getValue())
+                    .build())
+            .build();
+    final CompletableFuture<Set<String>> excludedDbInstances;
     try {
-      GetResourcesRequest request =
-          GetResourcesRequest.builder()
-              .resourceTypeFilters(this.typeFilter)
-              .tagFilters(
-                  software.amazon.awssdk.services.resourcegroupstaggingapi.model.TagFilter.builder()
-                      .key(tags.getKey())
-                      .values(tags.getValue())
-                      .build())
-              .build();
-      final GetResourcesIterable resourcesPaginator = client.getResourcesPaginator(request);
-      final Set<String> excludedDbInstances =
-          resourcesPaginator.stream()
-              .flatMap(
-                  p ->
-                      p.resourceTagMappingList().stream()
-                          .map(
-                              e -> e.resourceARN().substring(e.resourceARN().lastIndexOf(":") + 1)))
-              .collect(Collectors.toSet());
-      LOGGER.fine(
-          "Found "
-              + excludedDbInstances.size()
-              + " excluded replica"
-              + (excludedDbInstances.size() != 1 ? "s" : "")
-              + " in the account, across all clusters");
-      return excludedDbInstances;
+      excludedDbInstances = this.getResources(request, new HashSet<>());
     } catch (Exception e) {
-      LOGGER.log(
-          Level.SEVERE,
-          "Failed to obtain excluded instances. All instances assumed not to be excluded",
-          e);
-      return Collections.unmodifiableSet(new HashSet<>(0));
+      return Futures.failed(new DiscoveryException("Failed to obtain excluded instances", e));
     }
+    return excludedDbInstances.handle(
+        (excluded, failure) -> {
+          if (failure != null) {
+            throw new DiscoveryException(
+                "Failed to obtain excluded instances", Futures.cause(failure));
+          }
+          LOGGER.fine(
+              "Found "
+                  + excluded.size()
+                  + " excluded replica"
+                  + (excluded.size() != 1 ? "s" : "")
+                  + " in the account, across all clusters");
+          return excluded;
+        });
+  }
+
+  private CompletableFuture<Set<String>> getResources(
+      GetResourcesRequest request, Set<String> excluded) {
+    return this.client
+        .getResources(request)
+        .thenCompose(
+            page -> {
+              page.resourceTagMappingList().stream()
+                  .map(e -> e.resourceARN().substring(e.resourceARN().lastIndexOf(":") + 1))
+                  .forEach(excluded::add);
+              return page.paginationToken() == null || page.paginationToken().isEmpty()
+                  ? CompletableFuture.completedFuture(excluded)
+                  : this.getResources(
+                      request.toBuilder().paginationToken(page.paginationToken()).build(),
+                      excluded);
+            });
+  }
+
+  @Override
+  public void close() {
+    this.lease.close();
   }
 }
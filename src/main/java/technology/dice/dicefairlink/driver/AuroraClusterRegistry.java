@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.driver;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import technology.dice.dicefairlink.AuroraReadonlyEndpoint;
+
+/**
+ * Registry of the {@link AuroraReadonlyEndpoint}s known to a driver, keyed by fairlink URL.
+ * Initialisation is single-flight: the first caller for a URL builds the endpoint on its own
+ * thread, and concurrent callers for the same URL wait for that result instead of starting their
+ * own discovery. Failed or empty initialisations are not kept, so the next caller tries again.
+ * {@link #close()} forgets every endpoint and closes it, once initialised for the ones still being
+ * initialised, and shuts down the pool the endpoints hedge their connections on.
+ */
+public class AuroraClusterRegistry {
+  private final ConcurrentMap<String, Initialisation> clusters = new ConcurrentHashMap<>();
+  private ScheduledExecutorService hedgeExecutor = null;
+
+  public AuroraReadonlyEndpoint get(String url) {
+    final Initialisation cluster = this.clusters.get(url);
+    if (cluster == null || !cluster.isDone()) {
+      return null;
+    }
+    try {
+      return cluster.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      return null;
+    }
+  }
+
+  public AuroraReadonlyEndpoint getOrInitialise(
+      String url, Callable<AuroraReadonlyEndpoint> initialiser) throws SQLException {
+    Initialisation cluster = this.clusters.get(url);
+    if (cluster == null) {
+      final Initialisation candidate = new Initialisation(initialiser);
+      cluster = this.clusters.putIfAbsent(url, candidate);
+      if (cluster == null) {
+        cluster = candidate;
+        candidate.run();
+      }
+    }
+    try {
+      final AuroraReadonlyEndpoint endpoint = cluster.get();
+      if (endpoint == null) {
+        this.clusters.remove(url, cluster);
+      }
+      return endpoint;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for cluster " + url + " to initialise", e);
+    } catch (ExecutionException e) {
+      this.clusters.remove(url, cluster);
+      final Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new SQLException("Could not initialise cluster " + url, cause);
+    }
+  }
+
+  /** The pool every endpoint hedges its connections on, started by the first one to hedge. */
+  public synchronized ScheduledExecutorService hedgeExecutor() {
+    if (this.hedgeExecutor == null) {
+      this.hedgeExecutor = AuroraReadonlyEndpoint.newHedgeExecutor();
+    }
+    return this.hedgeExecutor;
+  }
+
+  public void close() {
+    for (String url : this.clusters.keySet()) {
+      final Initialisation cluster = this.clusters.remove(url);
+      if (cluster != null) {
+        cluster.close();
+      }
+    }
+    synchronized (this) {
+      if (this.hedgeExecutor != null) {
+        this.hedgeExecutor.shutdown();
+      }
+    }
+  }
+
+  private static final class Initialisation extends FutureTask<AuroraReadonlyEndpoint> {
+    private volatile boolean closed = false;
+
+    private Initialisation(Callable<AuroraReadonlyEndpoint> initialiser) {
+      super(initialiser);
+    }
+
+    /** Closes the endpoint now if initialised, or else as soon as it is. */
+    private void close() {
+      this.closed = true;
+      if (this.isDone()) {
+        this.closeEndpoint();
+      }
+    }
+
+    @Override
+    protected void done() {
+      if (this.closed) {
+        this.closeEndpoint();
+      }
+    }
+
+    private void closeEndpoint() {
+      try {
+        final AuroraReadonlyEndpoint endpoint = this.get();
+        if (endpoint != null) {
+          endpoint.close();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException | CancellationException e) {
+        // nothing was initialised, so there is nothing to close
+      }
+    }
+  }
+}
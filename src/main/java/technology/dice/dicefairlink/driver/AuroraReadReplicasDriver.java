@@ -8,16 +8,17 @@ package technology.dice.dicefairlink.driver;
 import java.net.URISyntaxException;
 import java.sql.Connection;
 import java.sql.Driver;
+import java.sql.DriverAction;
 import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -25,27 +26,33 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import software.amazon.awssdk.regions.Region;
 import technology.dice.dicefairlink.AuroraReadonlyEndpoint;
-import technology.dice.dicefairlink.ParsedUrl;
 import technology.dice.dicefairlink.config.FairlinkConfiguration;
 import technology.dice.dicefairlink.discovery.members.FairlinkMemberFinder;
 import technology.dice.dicefairlink.discovery.members.JdbcConnectionValidator;
+import technology.dice.dicefairlink.discovery.members.MemberFinder;
 import technology.dice.dicefairlink.discovery.members.MemberFinderMethod;
+import technology.dice.dicefairlink.discovery.members.PersistentConnectionValidator;
 import technology.dice.dicefairlink.discovery.members.ReplicaValidator;
 import technology.dice.dicefairlink.discovery.members.awsapi.AwsApiReplicasFinder;
 import technology.dice.dicefairlink.discovery.members.sql.MySQLReplicasFinder;
 import technology.dice.dicefairlink.discovery.members.sql.PostgresSQLReplicasFinder;
+import technology.dice.dicefairlink.discovery.members.sql.SqlDiscoveryOptions;
+import technology.dice.dicefairlink.discovery.tags.SharedExclusionPollers;
 import technology.dice.dicefairlink.discovery.tags.TagFilter;
 import technology.dice.dicefairlink.discovery.tags.awsapi.ResourceGroupApiTagDiscovery;
 import technology.dice.dicefairlink.iterators.RandomisedCyclicIterator;
 import technology.dice.dicefairlink.iterators.SizedIterator;
+import technology.dice.dicefairlink.scheduling.SharedScheduler;
 
-public class AuroraReadReplicasDriver implements Driver {
+public class AuroraReadReplicasDriver implements Driver, DriverAction {
   private static final Logger LOGGER = Logger.getLogger(AuroraReadReplicasDriver.class.getName());
-  private final Map<String, Driver> delegates = new HashMap<>();
-  private final Map<String, AuroraReadonlyEndpoint> auroraClusters = new HashMap<>();
+  private final Map<String, Driver> delegates = new ConcurrentHashMap<>();
+  private final AuroraClusterRegistry auroraClusters = new AuroraClusterRegistry();
+  private final FairlinkConnectionStringCache connectionStrings =
+      new FairlinkConnectionStringCache();
 
   private final Supplier<ScheduledExecutorService> discoveryExecutor;
-  private final Supplier<ScheduledExecutorService> tagPollExecutor;
+  private final SharedExclusionPollers exclusionPollers;
   private final Optional<Supplier<TagFilter>> tagFilter;
   private final Optional<Supplier<FairlinkMemberFinder>> fairlinkMemberFinder;
   private final Optional<Function<Collection<String>, SizedIterator<String>>> sizedIteratorBuilder;
@@ -53,7 +60,8 @@ public class AuroraReadReplicasDriver implements Driver {
 
   static {
     try {
-      DriverManager.registerDriver(new AuroraReadReplicasDriver());
+      final AuroraReadReplicasDriver driver = new AuroraReadReplicasDriver();
+      DriverManager.registerDriver(driver, driver);
       LOGGER.fine("AuroraReadReplicasDriver is now registered.");
     } catch (Exception e) {
       throw new RuntimeException("Can't register driver!", e);
@@ -61,13 +69,11 @@ public class AuroraReadReplicasDriver implements Driver {
   }
 
   public AuroraReadReplicasDriver() {
-    this(
-        () -> Executors.newScheduledThreadPool(1),
-        () -> Executors.newScheduledThreadPool(1),
-        null,
-        null,
-        null,
-        null);
+    this(new SharedScheduler());
+  }
+
+  private AuroraReadReplicasDriver(final SharedScheduler scheduler) {
+    this(scheduler::newClusterExecutor, scheduler::newClusterExecutor, null, null, null, null);
   }
 
   public AuroraReadReplicasDriver(
@@ -79,7 +85,7 @@ public class AuroraReadReplicasDriver implements Driver {
       final Function<Collection<String>, SizedIterator<String>> iteratorBuilder) {
     LOGGER.fine("Starting...");
     this.discoveryExecutor = discoveryExecutor;
-    this.tagPollExecutor = tagPollExecutor;
+    this.exclusionPollers = new SharedExclusionPollers(tagPollExecutor);
     this.tagFilter = Optional.ofNullable(tagFilter);
     this.replicaValidator = Optional.ofNullable(replicaValidator);
     this.fairlinkMemberFinder = Optional.ofNullable(memberFinder);
@@ -92,21 +98,34 @@ public class AuroraReadReplicasDriver implements Driver {
       throw new SQLException("Url must not be null");
     }
     boolean matches = FairlinkConnectionString.accepts(url);
-    LOGGER.info(String.format("Accepting URL: [%s] : %s", url, matches));
+    if (LOGGER.isLoggable(Level.FINE)) {
+      LOGGER.fine(String.format("Accepting URL: [%s] : %s", url, matches));
+    }
     return matches;
   }
 
   /** {@inheritDoc} */
   @Override
   public Connection connect(final String url, final Properties properties) throws SQLException {
-    final Optional<ParsedUrl> parsedUrlOptional = parseUrlAndCacheDriver(url, properties);
-
-    if (!parsedUrlOptional.isPresent()) {
+    if (url == null || !FairlinkConnectionString.hasFairlinkPrefix(url)) {
+      return null;
+    }
+    final FairlinkConnectionString fairlinkConnectionString = this.parseUrl(url, properties);
+    if (fairlinkConnectionString == null) {
+      return null;
+    }
+    final AuroraReadonlyEndpoint auroraReadonlyEndpoint =
+        this.clusterFor(fairlinkConnectionString, properties);
+    if (auroraReadonlyEndpoint == null) {
+      return null;
+    }
+    try {
+      return auroraReadonlyEndpoint.connect(
+          replica -> this.connectTo(fairlinkConnectionString, replica, properties),
+          FairlinkConfiguration.maxStaleness(properties));
+    } catch (NoSuchElementException e) {
       return null;
     }
-    return delegates
-        .get(parsedUrlOptional.get().getDelegateProtocol())
-        .connect(parsedUrlOptional.get().getDelegateUrl(), properties);
   }
 
   /** {@inheritDoc} */
@@ -139,80 +158,129 @@ public class AuroraReadReplicasDriver implements Driver {
     return false;
   }
 
-  private Optional<ParsedUrl> parseUrlAndCacheDriver(final String url, final Properties properties)
-      throws SQLException {
-    LOGGER.log(Level.FINE, "URI: {0}", url);
-    FairlinkConnectionString fairlinkConnectionString;
+  /** Closes every cluster's endpoint, releasing the AWS clients they share, once deregistered. */
+  @Override
+  public void deregister() {
+    LOGGER.fine("Deregistered. Closing every cluster.");
+    this.auroraClusters.close();
+  }
 
+  private FairlinkConnectionString parseUrl(final String url, final Properties properties) {
+    LOGGER.log(Level.FINE, "URI: {0}", url);
     try {
-      try {
-      fairlinkConnectionString =
-          new FairlinkConnectionString(url, properties);
-      } catch (IllegalArgumentException e) {
-        return Optional.empty();
-      }
-
-      if (!this.auroraClusters.containsKey(fairlinkConnectionString.getFairlinkUri())) {
-        FairlinkConfiguration fairlinkConfiguration =
-            new FairlinkConfiguration(properties, System.getenv());
-        if (!fairlinkConfiguration.isDiscoveryModeValidForDelegate(
-            fairlinkConnectionString.getDelegateProtocol())) {
-          return Optional.empty();
-        }
-        LOGGER.log(
-            Level.FINE, "Delegate driver: {0}", fairlinkConnectionString.getDelegateProtocol());
-        LOGGER.log(Level.FINE, "Driver URI: {0}", fairlinkConnectionString.getFairlinkUri());
-        final Region region = fairlinkConfiguration.getAuroraClusterRegion();
-        LOGGER.log(Level.FINE, "Region: {0}", region);
-        // because AWS credentials, region and poll interval properties
-        // are only processed once per uri, the driver does not support dynamically changing them
-
-        this.addDriverForDelegate(
-            fairlinkConnectionString.getDelegateProtocol(),
-            fairlinkConnectionString.delegateConnectionString());
-
-        final AuroraReadonlyEndpoint roEndpoint =
-            new AuroraReadonlyEndpoint(
-                fairlinkConfiguration,
-                this.fairlinkMemberFinder
-                    .map(Supplier::get)
-                    .orElseGet(
-                        () ->
-                            newMemberFinder(
-                                fairlinkConnectionString, fairlinkConfiguration, properties)),
-                this.discoveryExecutor.get());
+      return this.connectionStrings.get(url, properties);
+    } catch (IllegalArgumentException | URISyntaxException e) {
+      LOGGER.log(Level.FINE, "Can not get replicas for cluster URI: " + url, e);
+      return null;
+    }
+  }
 
-        LOGGER.log(Level.FINE, "RO url: {0}", fairlinkConnectionString.getHost());
-        this.auroraClusters.put(fairlinkConnectionString.getFairlinkUri(), roEndpoint);
-      }
+  private AuroraReadonlyEndpoint clusterFor(
+      final FairlinkConnectionString fairlinkConnectionString, final Properties properties)
+      throws SQLException {
+    final AuroraReadonlyEndpoint known =
+        this.auroraClusters.get(fairlinkConnectionString.getFairlinkUri());
+    if (known != null) {
+      return known;
+    }
+    try {
+      return this.auroraClusters.getOrInitialise(
+          fairlinkConnectionString.getFairlinkUri(),
+          () ->
+              this.newAuroraReadonlyEndpoint(
+                  fairlinkConnectionString.withProperties(properties), properties));
+    } catch (NoSuchElementException e) {
+      return null;
+    }
+  }
 
-      final String nextReplica =
-          auroraClusters.get(fairlinkConnectionString.getFairlinkUri()).getNextReplica();
+  private Connection connectTo(
+      FairlinkConnectionString fairlinkConnectionString, String replica, Properties properties)
+      throws SQLException {
+    if (LOGGER.isLoggable(Level.FINE)) {
       LOGGER.fine(
           String.format(
               "Obtained [%s] for the next replica to use for cluster [%s]",
-              nextReplica, fairlinkConnectionString.getHost()));
-      final String delegatedReplicaUri =
-          fairlinkConnectionString.delegateConnectionString(nextReplica);
+              replica, fairlinkConnectionString.getHost()));
+    }
+    final String delegatedReplicaUri = this.delegateUri(fairlinkConnectionString, replica);
+    if (delegatedReplicaUri == null) {
+      return null;
+    }
+    return delegates
+        .get(fairlinkConnectionString.getDelegateProtocol())
+        .connect(delegatedReplicaUri, properties);
+  }
 
+  private String delegateUri(FairlinkConnectionString fairlinkConnectionString, String replica) {
+    try {
+      final String delegatedReplicaUri =
+          fairlinkConnectionString.delegateConnectionString(replica);
       LOGGER.log(Level.FINE, "URI to connect to: {0}", delegatedReplicaUri);
+      return delegatedReplicaUri;
+    } catch (URISyntaxException e) {
+      LOGGER.log(
+          Level.FINE,
+          "Can not get replicas for cluster URI: " + fairlinkConnectionString.getFairlinkUri(),
+          e);
+      return null;
+    }
+  }
 
-      return Optional.of(
-          new ParsedUrl(fairlinkConnectionString.getDelegateProtocol(), delegatedReplicaUri));
+  private AuroraReadonlyEndpoint newAuroraReadonlyEndpoint(
+      FairlinkConnectionString fairlinkConnectionString, Properties properties)
+      throws SQLException {
+    FairlinkConfiguration fairlinkConfiguration =
+        new FairlinkConfiguration(properties, System.getenv());
+    if (!fairlinkConfiguration.isDiscoveryModeValidForDelegate(
+        fairlinkConnectionString.getDelegateProtocol())) {
+      return null;
+    }
+    LOGGER.log(Level.FINE, "Delegate driver: {0}", fairlinkConnectionString.getDelegateProtocol());
+    LOGGER.log(Level.FINE, "Driver URI: {0}", fairlinkConnectionString.getFairlinkUri());
+    final Region region = fairlinkConfiguration.getAuroraClusterRegion();
+    LOGGER.log(Level.FINE, "Region: {0}", region);
+    // because AWS credentials, region and poll interval properties
+    // are only processed once per uri, the driver does not support dynamically changing them
 
-    } catch (URISyntaxException e) {
-      LOGGER.log(Level.FINE, "Can not get replicas for cluster URI: " + url, e);
-      return Optional.empty();
-    } catch (NoSuchElementException e) {
-      return Optional.empty();
+    this.addDriverForDelegate(
+        fairlinkConnectionString.getDelegateProtocol(),
+        fairlinkConnectionString.delegateConnectionString());
+
+    final MemberFinder memberFinder =
+        this.fairlinkMemberFinder
+            .map(Supplier::get)
+            .orElseGet(
+                () -> newMemberFinder(fairlinkConnectionString, fairlinkConfiguration, properties));
+    final AuroraReadonlyEndpoint roEndpoint;
+    try {
+      roEndpoint =
+          new AuroraReadonlyEndpoint(
+              fairlinkConfiguration,
+              memberFinder,
+              this.discoveryExecutor.get(),
+              this.auroraClusters::hedgeExecutor);
+    } catch (RuntimeException e) {
+      // the endpoint will not be kept, so neither are the shared clients its finder holds
+      memberFinder.close();
+      throw e;
     }
+
+    LOGGER.log(Level.FINE, "RO url: {0}", fairlinkConnectionString.getHost());
+    return roEndpoint;
   }
 
-  public void refreshReplicas(String url) {
+  /**
+   * Refreshes the replicas of the cluster behind the given URL, joining its refresh in flight if
+   * there is one, without waiting for it. The returned future completes once the replicas have
+   * been refreshed, straight away for URLs of clusters that are not known.
+   */
+  public CompletableFuture<Void> refreshReplicas(String url) {
     final AuroraReadonlyEndpoint auroraReadonlyEndpoint = this.auroraClusters.get(url);
     if (auroraReadonlyEndpoint != null) {
-      auroraReadonlyEndpoint.refresh();
+      return auroraReadonlyEndpoint.refreshAsync();
     }
+    return CompletableFuture.completedFuture(null);
   }
 
   private FairlinkMemberFinder newMemberFinder(
@@ -222,10 +290,9 @@ public class AuroraReadReplicasDriver implements Driver {
     return new FairlinkMemberFinder(
         fairlinkConfiguration,
         fairlinkConnectionString,
-        this.tagPollExecutor.get(),
-        this.tagFilter
-            .map(Supplier::get)
-            .orElseGet(() -> new ResourceGroupApiTagDiscovery(fairlinkConfiguration)),
+        this.exclusionPollers.get(
+            fairlinkConfiguration,
+            this.tagFilter.orElse(() -> new ResourceGroupApiTagDiscovery(fairlinkConfiguration))),
         this.newMemberFinderMethod(
             fairlinkConfiguration,
             fairlinkConnectionString,
@@ -234,9 +301,22 @@ public class AuroraReadReplicasDriver implements Driver {
         this.sizedIteratorBuilder.orElse(strings -> RandomisedCyclicIterator.of(strings)),
         this.replicaValidator
             .map(Supplier::get)
-            .orElse(
-                new JdbcConnectionValidator(
-                    this.delegates.get(fairlinkConnectionString.getDelegateProtocol()))));
+            .orElseGet(
+                () ->
+                    newReplicaValidator(
+                        fairlinkConfiguration,
+                        this.delegates.get(fairlinkConnectionString.getDelegateProtocol()))));
+  }
+
+  private static ReplicaValidator newReplicaValidator(
+      FairlinkConfiguration fairlinkConfiguration, Driver driver) {
+    if (fairlinkConfiguration.isPersistentValidationConnections()) {
+      return new PersistentConnectionValidator(
+          driver,
+          fairlinkConfiguration.getValidationTimeout(),
+          fairlinkConfiguration.getValidationQuery());
+    }
+    return new JdbcConnectionValidator(driver);
   }
 
   private MemberFinderMethod newMemberFinderMethod(
@@ -251,11 +331,13 @@ public class AuroraReadReplicasDriver implements Driver {
         return new MySQLReplicasFinder(
             fairlinkConnectionString,
             driver,
-            properties.getProperty("_fairlinkMySQLSchemaOverride"));
+            properties.getProperty("_fairlinkMySQLSchemaOverride"),
+            sqlDiscoveryOptions(fairlinkConfiguration));
       case SQL_POSTGRES:
         return new PostgresSQLReplicasFinder(
             fairlinkConnectionString,
-            driver);
+            driver,
+            sqlDiscoveryOptions(fairlinkConfiguration));
       default:
         throw new IllegalArgumentException(
             fairlinkConfiguration.getReplicasDiscoveryMode().name()
@@ -263,6 +345,14 @@ public class AuroraReadReplicasDriver implements Driver {
     }
   }
 
+  private static SqlDiscoveryOptions sqlDiscoveryOptions(
+      FairlinkConfiguration fairlinkConfiguration) {
+    return SqlDiscoveryOptions.builder()
+        .queryTimeout(fairlinkConfiguration.getDiscoveryQueryTimeout())
+        .maxReplicaLag(fairlinkConfiguration.getMaxReplicaLag())
+        .build();
+  }
+
   private void addDriverForDelegate(String delegate, final String stringURI) throws SQLException {
     this.delegates.putIfAbsent(delegate, DriverManager.getDriver(stringURI));
   }
@@ -7,7 +7,12 @@ package technology.dice.dicefairlink.driver;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,16 +27,25 @@ public class FairlinkConnectionString {
               + DRIVER_PROTOCOL_BACKWARD_COMPATIBILITY
               + ":(?<delegate>[^:]*):(?<uri>.*\\/\\/.+)");
   private static final String JDBC_PREFIX = "jdbc";
+  private static final String URL_PREFIX = JDBC_PREFIX + ":" + DRIVER_PROTOCOL + ":";
+  private static final String URL_PREFIX_BACKWARD_COMPATIBILITY =
+      JDBC_PREFIX + ":" + DRIVER_PROTOCOL_BACKWARD_COMPATIBILITY + ":";
   private final String delegateProtocol;
   private final String fairlinKUri;
   private final URI delegateUri;
   private final Properties properties;
+  private final AtomicReference<Map<String, String>> renderedDelegates;
 
   public FairlinkConnectionString(String connectionString, Properties properties)
       throws URISyntaxException {
     this.fairlinKUri = connectionString;
     this.properties = properties;
+    this.renderedDelegates = new AtomicReference<>(Collections.emptyMap());
 
+    if (!hasFairlinkPrefix(connectionString)) {
+      throw new IllegalArgumentException(
+          connectionString + " is not a valid fairlink connection string");
+    }
     Matcher matcher = DRIVER_PATTERN.matcher(connectionString);
     Matcher matcherBackwardCompatibility =
         DRIVER_PATTERN_BACKWARD_COMPATIBILITY.matcher(connectionString);
@@ -48,6 +62,22 @@ public class FairlinkConnectionString {
     }
   }
 
+  private FairlinkConnectionString(FairlinkConnectionString parsed, Properties properties) {
+    this.fairlinKUri = parsed.fairlinKUri;
+    this.delegateProtocol = parsed.delegateProtocol;
+    this.delegateUri = parsed.delegateUri;
+    this.properties = properties;
+    this.renderedDelegates = parsed.renderedDelegates;
+  }
+
+  /**
+   * A copy of this already parsed connection string, bound to a different set of properties. The
+   * copy shares the delegate connection strings rendered by {@link #prerenderDelegates}.
+   */
+  public FairlinkConnectionString withProperties(Properties properties) {
+    return new FairlinkConnectionString(this, properties);
+  }
+
   public String getDelegateProtocol() {
     return delegateProtocol;
   }
@@ -56,7 +86,37 @@ public class FairlinkConnectionString {
     return JDBC_PREFIX + ":" + this.delegateUri.toASCIIString();
   }
 
+  /**
+   * Renders, once, the delegate connection string of each of the given hosts, so that {@link
+   * #delegateConnectionString(String)} becomes a lookup for them. Hosts rendered by a previous call
+   * and not present in this one are forgotten.
+   */
+  public void prerenderDelegates(Collection<String> hosts) {
+    final Map<String, String> previous = this.renderedDelegates.get();
+    final Map<String, String> rendered = new HashMap<>(hosts.size() * 2);
+    for (String host : hosts) {
+      String connectionString = previous.get(host);
+      if (connectionString == null) {
+        try {
+          connectionString = this.renderDelegateConnectionString(host);
+        } catch (URISyntaxException e) {
+          continue;
+        }
+      }
+      rendered.put(host, connectionString);
+    }
+    this.renderedDelegates.set(Collections.unmodifiableMap(rendered));
+  }
+
   public String delegateConnectionString(String forHost) throws URISyntaxException {
+    final String rendered = this.renderedDelegates.get().get(forHost);
+    if (rendered != null) {
+      return rendered;
+    }
+    return this.renderDelegateConnectionString(forHost);
+  }
+
+  private String renderDelegateConnectionString(String forHost) throws URISyntaxException {
     final URI portExtractor = new URI(JDBC_PREFIX + "://" + forHost);
     return new URI(
             JDBC_PREFIX + ":" + delegateUri.getScheme(),
@@ -81,7 +141,18 @@ public class FairlinkConnectionString {
     return properties;
   }
 
+  /**
+   * Cheap check, without any regular expression, that rules out URLs that can not belong to
+   * fairlink. URLs passing it still need to be fully parsed.
+   */
+  public static boolean hasFairlinkPrefix(String url) {
+    return url.startsWith(URL_PREFIX) || url.startsWith(URL_PREFIX_BACKWARD_COMPATIBILITY);
+  }
+
   public static boolean accepts(String url) {
+    if (!hasFairlinkPrefix(url)) {
+      return false;
+    }
     Matcher matcher = DRIVER_PATTERN.matcher(url);
     Matcher matcherBackwardCompatibility = DRIVER_PATTERN_BACKWARD_COMPATIBILITY.matcher(url);
     return matcher.matches() || matcherBackwardCompatibility.matches();
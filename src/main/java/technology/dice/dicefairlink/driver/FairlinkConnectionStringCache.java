@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.driver;
+
+import java.net.URISyntaxException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded cache of parsed {@link FairlinkConnectionString}s, keyed by URL, so the regular
+ * expressions and URI parsing run once per distinct URL rather than once per connection. Once the
+ * cache is full, further URLs are parsed on every call instead of evicting existing entries.
+ *
+ * <p>Cached instances keep the properties they were first parsed with. Callers that need the
+ * properties of the current call must use {@link FairlinkConnectionString#withProperties}.
+ */
+public class FairlinkConnectionStringCache {
+  public static final int DEFAULT_MAX_SIZE = 256;
+  private final ConcurrentMap<String, FairlinkConnectionString> connectionStrings =
+      new ConcurrentHashMap<>();
+  private final int maxSize;
+
+  public FairlinkConnectionStringCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  public FairlinkConnectionStringCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public FairlinkConnectionString get(String url, Properties properties)
+      throws URISyntaxException {
+    final FairlinkConnectionString cached = this.connectionStrings.get(url);
+    if (cached != null) {
+      return cached;
+    }
+    final FairlinkConnectionString parsed = new FairlinkConnectionString(url, properties);
+    if (this.connectionStrings.size() < this.maxSize) {
+      final FairlinkConnectionString raced = this.connectionStrings.putIfAbsent(url, parsed);
+      return raced == null ? parsed : raced;
+    }
+    return parsed;
+  }
+
+  public int size() {
+    return this.connectionStrings.size();
+  }
+}
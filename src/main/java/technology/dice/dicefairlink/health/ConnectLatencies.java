@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.health;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The latencies of the last successful connections to a cluster, in a fixed size window, and their
+ * percentiles. Percentiles are only given once enough connections have been recorded for them to
+ * mean something.
+ */
+public class ConnectLatencies {
+  private static final int WINDOW = 256;
+  private static final int MIN_SAMPLES = 20;
+  private final long[] samples = new long[WINDOW];
+  private long recorded = 0;
+
+  public synchronized void record(Duration latency) {
+    this.samples[(int) (this.recorded % WINDOW)] = latency.toNanos();
+    this.recorded++;
+  }
+
+  /** The given percentile, between 0 exclusive and 100 inclusive, of the recorded latencies. */
+  public Optional<Duration> percentile(double percentile) {
+    final long[] window;
+    synchronized (this) {
+      if (this.recorded < MIN_SAMPLES) {
+        return Optional.empty();
+      }
+      window = Arrays.copyOf(this.samples, (int) Math.min(this.recorded, WINDOW));
+    }
+    Arrays.sort(window);
+    final int rank = (int) Math.ceil(percentile / 100 * window.length) - 1;
+    return Optional.of(
+        Duration.ofNanos(window[Math.max(0, Math.min(window.length - 1, rank))]));
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.health;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The number of connections handed out to each replica and not closed yet. */
+public class OutstandingConnections {
+  private final ConcurrentMap<String, AtomicInteger> outstanding = new ConcurrentHashMap<>();
+
+  /**
+   * Adds a connection to the replica.
+   *
+   * @return the replica's outstanding connections, to decrement once the connection is closed
+   */
+  public AtomicInteger acquire(String replica) {
+    final AtomicInteger connections =
+        this.outstanding.computeIfAbsent(replica, r -> new AtomicInteger());
+    connections.incrementAndGet();
+    return connections;
+  }
+
+  public int of(String replica) {
+    final AtomicInteger connections = replica == null ? null : this.outstanding.get(replica);
+    return connections == null ? 0 : connections.get();
+  }
+}
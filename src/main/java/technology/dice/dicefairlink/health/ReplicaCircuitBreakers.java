@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.health;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Per replica circuit breakers, fed by the outcome of the connections handed out by the driver.
+ *
+ * <ul>
+ *   <li>A replica that fails to connect a number of times in a row is opened: it is taken out of
+ *       rotation without waiting for the next discovery.
+ *   <li>Once the open interval has passed, a single connection is let through to probe it
+ *       (half-open). If it succeeds the replica is back in rotation, otherwise it is opened again.
+ *       If the probe never reports back, another one is let through after the open interval.
+ * </ul>
+ *
+ * Only replicas that failed since their last successful connection are tracked.
+ */
+public class ReplicaCircuitBreakers {
+  private static final String CONNECTION_EXCEPTION_SQL_STATE_CLASS = "08";
+  private final int failureThreshold;
+  private final Duration openInterval;
+  private final LongSupplier nanoClock;
+  private final ConcurrentMap<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+  public ReplicaCircuitBreakers(int failureThreshold, Duration openInterval) {
+    this(failureThreshold, openInterval, System::nanoTime);
+  }
+
+  ReplicaCircuitBreakers(int failureThreshold, Duration openInterval, LongSupplier nanoClock) {
+    this.failureThreshold = failureThreshold;
+    this.openInterval = openInterval;
+    this.nanoClock = nanoClock;
+  }
+
+  /** Whether the failure says the replica could not be reached, rather than refused the request. */
+  public static boolean isConnectionFailure(SQLException e) {
+    return e instanceof SQLTransientConnectionException
+        || e instanceof SQLNonTransientConnectionException
+        || e instanceof SQLTimeoutException
+        || (e.getSQLState() != null
+            && e.getSQLState().startsWith(CONNECTION_EXCEPTION_SQL_STATE_CLASS));
+  }
+
+  /** Whether a connection may be made to the replica, taking the half-open probe if it is due. */
+  public boolean tryAcquire(String replica) {
+    if (replica == null) {
+      return true;
+    }
+    final Breaker breaker = this.breakers.get(replica);
+    return breaker == null || breaker.tryAcquire(this.nanoClock.getAsLong());
+  }
+
+  public void onSuccess(String replica) {
+    if (replica != null) {
+      this.breakers.remove(replica);
+    }
+  }
+
+  /**
+   * Records a failed connection to the replica.
+   *
+   * @return whether this failure took the replica out of rotation
+   */
+  public boolean onFailure(String replica) {
+    if (replica == null || this.failureThreshold <= 0) {
+      return false;
+    }
+    return this.breakers
+        .computeIfAbsent(replica, r -> new Breaker())
+        .onFailure(this.nanoClock.getAsLong());
+  }
+
+  public boolean isOpen(String replica) {
+    final Breaker breaker = replica == null ? null : this.breakers.get(replica);
+    return breaker != null && breaker.state != State.CLOSED;
+  }
+
+  private enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final class Breaker {
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long retryAtNanos;
+
+    private synchronized boolean tryAcquire(long now) {
+      if (this.state == State.CLOSED) {
+        return true;
+      }
+      if (now - this.retryAtNanos < 0) {
+        return false;
+      }
+      this.state = State.HALF_OPEN;
+      this.retryAtNanos = now + openInterval.toNanos();
+      return true;
+    }
+
+    private synchronized boolean onFailure(long now) {
+      this.consecutiveFailures++;
+      final State previous = this.state;
+      if (previous == State.HALF_OPEN
+          || (previous == State.CLOSED && this.consecutiveFailures >= failureThreshold)) {
+        this.state = State.OPEN;
+        this.retryAtNanos = now + openInterval.toNanos();
+      }
+      return previous == State.CLOSED && this.state == State.OPEN;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.health;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Exponentially weighted moving averages of each replica's connect latency and failure rate, to
+ * score replicas against each other.
+ *
+ * <p>Averages decay towards zero while a replica is not connected to, so a replica that was slow a
+ * while ago is eventually tried again rather than shunned for good. Replicas never connected to
+ * score zero, so new replicas are tried straight away. Recording and scoring are lock-free.
+ */
+public class ReplicaLatencies {
+  private static final double SAMPLE_WEIGHT = 0.3;
+  private static final long FAILURE_PENALTY_NANOS = Duration.ofSeconds(1).toNanos();
+  private final double decayNanos;
+  private final LongSupplier nanoClock;
+  private final ConcurrentMap<String, AtomicReference<Average>> averages =
+      new ConcurrentHashMap<>();
+
+  /** @param decay how long it takes an average to decay to about a third when not updated */
+  public ReplicaLatencies(Duration decay) {
+    this(decay, System::nanoTime);
+  }
+
+  ReplicaLatencies(Duration decay, LongSupplier nanoClock) {
+    this.decayNanos = Math.max(1, decay.toNanos());
+    this.nanoClock = nanoClock;
+  }
+
+  public void onSuccess(String replica, Duration latency) {
+    this.record(replica, latency.toNanos(), 0);
+  }
+
+  public void onFailure(String replica, Duration latency) {
+    this.record(replica, latency.toNanos(), 1);
+  }
+
+  /**
+   * The replica's expected cost of connecting, in nanoseconds: its average latency plus a penalty
+   * in proportion to its failure rate. Lower is better.
+   */
+  public double score(String replica) {
+    final AtomicReference<Average> recorded = replica == null ? null : this.averages.get(replica);
+    final Average average = recorded == null ? null : recorded.get();
+    if (average == null) {
+      return 0;
+    }
+    final Average decayed = average.decayedTo(this.nanoClock.getAsLong(), this.decayNanos);
+    return decayed.latencyNanos + decayed.failureRate * FAILURE_PENALTY_NANOS;
+  }
+
+  private void record(String replica, long latencyNanos, double failed) {
+    if (replica == null) {
+      return;
+    }
+    final long now = this.nanoClock.getAsLong();
+    this.averages
+        .computeIfAbsent(replica, r -> new AtomicReference<>())
+        .updateAndGet(
+            previous ->
+                previous == null
+                    ? new Average(latencyNanos, failed, now)
+                    : previous.decayedTo(now, this.decayNanos).with(latencyNanos, failed, now));
+  }
+
+  private static final class Average {
+    private final double latencyNanos;
+    private final double failureRate;
+    private final long atNanos;
+
+    private Average(double latencyNanos, double failureRate, long atNanos) {
+      this.latencyNanos = latencyNanos;
+      this.failureRate = failureRate;
+      this.atNanos = atNanos;
+    }
+
+    private Average decayedTo(long now, double decayNanos) {
+      final long elapsed = now - this.atNanos;
+      if (elapsed <= 0) {
+        return this;
+      }
+      final double weight = Math.exp(-elapsed / decayNanos);
+      return new Average(this.latencyNanos * weight, this.failureRate * weight, now);
+    }
+
+    private Average with(long latencyNanos, double failed, long now) {
+      return new Average(
+          this.latencyNanos + SAMPLE_WEIGHT * (latencyNanos - this.latencyNanos),
+          this.failureRate + SAMPLE_WEIGHT * (failed - this.failureRate),
+          now);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.iterators;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cyclic iterator over an immutable array, advanced by an atomic cursor. {@link #next()} is
+ * wait-free and allocation-free. An element equal to the one before it in the cycle is skipped,
+ * unless it is the only element. Across iterators, {@link #continueAfter} keeps a new iterator from
+ * repeating the element the one it replaces returned last.
+ */
+public class AtomicCyclicIterator<T> implements SizedIterator<T> {
+  private final Object[] elements;
+  private final boolean[] repeatsPrevious;
+  private final boolean severalDistinct;
+  private final AtomicLong cursor = new AtomicLong();
+
+  protected AtomicCyclicIterator(Collection<? extends T> collection) {
+    this(collection, true);
+  }
+
+  /** @param skipRepeated whether an element equal to the one before it in the cycle is skipped */
+  protected AtomicCyclicIterator(Collection<? extends T> collection, boolean skipRepeated) {
+    this.elements = collection.toArray();
+    this.severalDistinct = new HashSet<>(collection).size() > 1;
+    this.repeatsPrevious = new boolean[this.elements.length];
+    for (int i = 0; skipRepeated && i < this.elements.length && this.elements.length > 1; i++) {
+      final Object current = this.elements[i];
+      final Object previous = this.elements[(i + this.elements.length - 1) % this.elements.length];
+      this.repeatsPrevious[i] = current != null && current.equals(previous);
+    }
+  }
+
+  public static <T> AtomicCyclicIterator<T> of(Collection<? extends T> collection) {
+    return new AtomicCyclicIterator<>(collection);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return elements.length > 0;
+  }
+
+  @Override
+  public int size() {
+    return elements.length;
+  }
+
+  @Override
+  public int cycleLength() {
+    return elements.length;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T next() {
+    if (elements.length == 0) {
+      throw new NoSuchElementException();
+    }
+    int index = this.indexOf(cursor.getAndIncrement());
+    if (repeatsPrevious[index]) {
+      index = this.indexOf(cursor.getAndIncrement());
+    }
+    return (T) elements[index];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Optional<T> lastReturned() {
+    final long position = cursor.get();
+    if (position == 0 || elements.length == 0) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable((T) elements[this.indexOf(position - 1)]);
+  }
+
+  @Override
+  public void continueAfter(T previous) {
+    if (severalDistinct && Objects.equals(elements[this.indexOf(cursor.get())], previous)) {
+      cursor.incrementAndGet();
+    }
+  }
+
+  private int indexOf(long position) {
+    return (int) ((position & Long.MAX_VALUE) % elements.length);
+  }
+}
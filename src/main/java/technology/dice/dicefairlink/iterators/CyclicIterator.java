@@ -17,7 +17,7 @@ public class CyclicIterator<T> implements SizedIterator<T> {
   private volatile Iterator<T> iterator;
 
   protected CyclicIterator(Collection<? extends T> collection) {
-    this.elements = Collections.unmodifiableList(new ArrayList(collection));
+    this.elements = Collections.unmodifiableList(new ArrayList<>(collection));
     this.iterator = this.elements.iterator();
   }
 
@@ -10,7 +10,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.ThreadLocalRandom;
 
-public class RandomisedCyclicIterator<T> extends CyclicIterator<T> {
+public class RandomisedCyclicIterator<T> extends AtomicCyclicIterator<T> {
 
   protected RandomisedCyclicIterator(Collection<? extends T> collection) {
     super(shuffle(collection));
@@ -6,7 +6,24 @@
 package technology.dice.dicefairlink.iterators;
 
 import java.util.Iterator;
+import java.util.Optional;
 
 public interface SizedIterator<T> extends Iterator<T> {
   int size();
+
+  /** The number of calls to {@link #next()} after which every element has been returned. */
+  default int cycleLength() {
+    return this.size();
+  }
+
+  /** The element {@link #next()} returned last, if known. */
+  default Optional<T> lastReturned() {
+    return Optional.empty();
+  }
+
+  /**
+   * Moves past the next element if it is the given one, and there are others, so that an iterator
+   * replacing one that just returned that element does not return it again straight away.
+   */
+  default void continueAfter(T previous) {}
 }
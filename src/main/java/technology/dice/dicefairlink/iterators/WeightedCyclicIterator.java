@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.iterators;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cyclic iterator returning each element in proportion to its weight. The cycle is laid out once,
+ * with smooth weighted round-robin, which spreads each element's turns evenly across the cycle
+ * instead of returning them in bursts; iterating it then costs the same as {@link
+ * AtomicCyclicIterator}. Elements are shuffled first, so that clients do not all start on the same
+ * one.
+ *
+ * <p>Weights are reduced by their greatest common divisor and, if the cycle would still be longer
+ * than {@value #MAX_CYCLE_LENGTH}, scaled down to fit it. Every element keeps at least one turn.
+ */
+public class WeightedCyclicIterator<T> extends AtomicCyclicIterator<T> {
+  static final int MAX_CYCLE_LENGTH = 1024;
+  private final int size;
+
+  protected WeightedCyclicIterator(Map<? extends T, Integer> weights) {
+    super(cycle(weights), false);
+    this.size = weights.size();
+  }
+
+  public static <T> WeightedCyclicIterator<T> of(Map<? extends T, Integer> weights) {
+    return new WeightedCyclicIterator<>(weights);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private static <T> List<T> cycle(Map<? extends T, Integer> weightsByElement) {
+    final List<T> elements = new ArrayList<>(weightsByElement.keySet());
+    Collections.shuffle(elements, ThreadLocalRandom.current());
+    final long[] weights = new long[elements.size()];
+    long gcd = 0;
+    long total = 0;
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = Math.max(1, weightsByElement.get(elements.get(i)));
+      gcd = BigInteger.valueOf(gcd).gcd(BigInteger.valueOf(weights[i])).longValue();
+      total += weights[i];
+    }
+    final long scaledTotal = total / Math.max(1, gcd);
+    total = 0;
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] /= gcd;
+      if (scaledTotal > MAX_CYCLE_LENGTH) {
+        weights[i] = Math.max(1, weights[i] * MAX_CYCLE_LENGTH / scaledTotal);
+      }
+      total += weights[i];
+    }
+    final List<T> cycle = new ArrayList<>((int) total);
+    final long[] current = new long[weights.length];
+    for (long turn = 0; turn < total; turn++) {
+      int chosen = 0;
+      for (int i = 0; i < weights.length; i++) {
+        current[i] += weights[i];
+        if (current[i] > current[chosen]) {
+          chosen = i;
+        }
+      }
+      current[chosen] -= total;
+      cycle.add(elements.get(chosen));
+    }
+    return cycle;
+  }
+}
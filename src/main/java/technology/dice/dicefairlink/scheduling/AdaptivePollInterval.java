@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.scheduling;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import technology.dice.dicefairlink.discovery.members.DiscoveryOutcome;
+
+/**
+ * The delay before the next poll of a cluster, given how the last one went.
+ *
+ * <ul>
+ *   <li>For a window after the replicas change, or after {@link #accelerate()}, polls run at the
+ *       minimum interval.
+ *   <li>Outside of it, each poll that finds no change grows the interval by half, up to the
+ *       maximum.
+ *   <li>Failed polls back off exponentially from the minimum, up to the maximum, with a random
+ *       jitter of up to half the delay so that clusters failing together do not retry together.
+ * </ul>
+ */
+public class AdaptivePollInterval {
+  private static final double BACK_OFF_FACTOR = 1.5;
+  private static final int MAX_FAILURE_DOUBLINGS = 30;
+  private final Duration min;
+  private final Duration max;
+  private final Duration fastWindow;
+  private final LongSupplier nanoClock;
+  private final DoubleSupplier random;
+  private Duration current;
+  private long fastUntilNanos;
+  private int consecutiveFailures = 0;
+
+  public AdaptivePollInterval(Duration min, Duration max, Duration fastWindow) {
+    this(min, max, fastWindow, System::nanoTime, () -> ThreadLocalRandom.current().nextDouble());
+  }
+
+  AdaptivePollInterval(
+      Duration min,
+      Duration max,
+      Duration fastWindow,
+      LongSupplier nanoClock,
+      DoubleSupplier random) {
+    this.min = min;
+    this.max = max;
+    this.fastWindow = fastWindow;
+    this.nanoClock = nanoClock;
+    this.random = random;
+    this.current = max;
+    this.fastUntilNanos = nanoClock.getAsLong();
+  }
+
+  public synchronized Duration next(DiscoveryOutcome outcome) {
+    if (outcome == DiscoveryOutcome.FAILED) {
+      this.consecutiveFailures++;
+      final Duration backOff =
+          capped(
+              this.min.multipliedBy(
+                  1L << Math.min(this.consecutiveFailures - 1, MAX_FAILURE_DOUBLINGS)));
+      final long jitter = (long) (backOff.toMillis() / 2 * this.random.getAsDouble());
+      return backOff.minusMillis(jitter);
+    }
+    this.consecutiveFailures = 0;
+    if (outcome == DiscoveryOutcome.CHANGED) {
+      this.accelerate();
+    }
+    if (this.nanoClock.getAsLong() - this.fastUntilNanos < 0) {
+      this.current = this.min;
+    } else {
+      this.current = capped(Duration.ofMillis((long) (this.current.toMillis() * BACK_OFF_FACTOR)));
+    }
+    return this.current;
+  }
+
+  /** Starts a window of polling at the minimum interval. */
+  public synchronized void accelerate() {
+    this.fastUntilNanos = this.nanoClock.getAsLong() + this.fastWindow.toNanos();
+    this.current = this.min;
+  }
+
+  public Duration getMin() {
+    return min;
+  }
+
+  private Duration capped(Duration interval) {
+    if (interval.compareTo(this.max) > 0 || interval.isNegative()) {
+      return this.max;
+    }
+    return interval.compareTo(this.min) < 0 ? this.min : interval;
+  }
+}
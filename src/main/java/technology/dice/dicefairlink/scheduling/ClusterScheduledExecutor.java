@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The view of a {@link SharedScheduler} given to one cluster. Delays are kept by the shared timer,
+ * and tasks run on the shared workers one at a time, in submission order. Periodic tasks are not
+ * queued up behind themselves: a run that comes due while the previous one is still going is
+ * skipped. Unlike {@link java.util.concurrent.ScheduledThreadPoolExecutor}, a periodic task that
+ * throws keeps being scheduled. Shutting the view down cancels its own tasks only.
+ */
+class ClusterScheduledExecutor extends AbstractExecutorService
+    implements ScheduledExecutorService {
+  private static final Logger LOGGER = Logger.getLogger(ClusterScheduledExecutor.class.getName());
+  private final ScheduledExecutorService timer;
+  private final Executor workers;
+  private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final AtomicInteger active = new AtomicInteger();
+  private final Set<ClusterScheduledFuture<?>> scheduled = ConcurrentHashMap.newKeySet();
+  private final Lock termination = new ReentrantLock();
+  private final Condition terminated = this.termination.newCondition();
+  private volatile boolean shutdown;
+
+  ClusterScheduledExecutor(ScheduledExecutorService timer, Executor workers) {
+    this.timer = timer;
+    this.workers = workers;
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (this.shutdown) {
+      throw new RejectedExecutionException("Executor has been shut down");
+    }
+    this.active.incrementAndGet();
+    this.queue.add(command);
+    this.drain();
+  }
+
+  private void drain() {
+    if (!this.queue.isEmpty() && this.running.compareAndSet(false, true)) {
+      try {
+        this.workers.execute(this::runNext);
+      } catch (RejectedExecutionException e) {
+        this.running.set(false);
+        throw e;
+      }
+    }
+  }
+
+  private void runNext() {
+    try {
+      final Runnable next = this.queue.poll();
+      if (next != null) {
+        try {
+          next.run();
+        } catch (RuntimeException e) {
+          LOGGER.log(Level.WARNING, "Scheduled task failed", e);
+        } finally {
+          this.taskDone();
+        }
+      }
+    } finally {
+      // hand the worker back after every task so that clusters take turns
+      this.running.set(false);
+      this.drain();
+    }
+  }
+
+  @Override
+  public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+    return this.schedule(
+        () -> {
+          command.run();
+          return null;
+        },
+        delay,
+        unit);
+  }
+
+  @Override
+  public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+    final ClusterScheduledFuture<V> future = this.track(new ClusterScheduledFuture<>());
+    future.trigger(
+        this.timer.schedule(
+            () ->
+                this.executeQuietly(
+                    () -> {
+                      if (!future.isDone()) {
+                        try {
+                          future.result.complete(callable.call());
+                        } catch (Throwable t) {
+                          future.result.completeExceptionally(t);
+                        }
+                      }
+                      this.scheduled.remove(future);
+                    }),
+            delay,
+            unit));
+    return future;
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleAtFixedRate(
+      Runnable command, long initialDelay, long period, TimeUnit unit) {
+    final ClusterScheduledFuture<Void> future = this.track(new ClusterScheduledFuture<>());
+    final AtomicBoolean inFlight = new AtomicBoolean();
+    future.trigger(
+        this.timer.scheduleAtFixedRate(
+            () -> {
+              if (future.isDone() || !inFlight.compareAndSet(false, true)) {
+                LOGGER.log(Level.FINE, "Previous run still in progress. Skipping this one");
+                return;
+              }
+              this.executeQuietly(
+                  () -> {
+                    try {
+                      command.run();
+                    } finally {
+                      inFlight.set(false);
+                    }
+                  });
+            },
+            initialDelay,
+            period,
+            unit));
+    return future;
+  }
+
+  @Override
+  public ScheduledFuture<?> scheduleWithFixedDelay(
+      Runnable command, long initialDelay, long delay, TimeUnit unit) {
+    final ClusterScheduledFuture<Void> future = this.track(new ClusterScheduledFuture<>());
+    this.scheduleNextRun(future, command, initialDelay, delay, unit);
+    return future;
+  }
+
+  private void scheduleNextRun(
+      ClusterScheduledFuture<Void> future,
+      Runnable command,
+      long nextDelay,
+      long delay,
+      TimeUnit unit) {
+    if (future.isDone() || this.shutdown) {
+      return;
+    }
+    future.trigger(
+        this.timer.schedule(
+            () ->
+                this.executeQuietly(
+                    () -> {
+                      try {
+                        command.run();
+                      } finally {
+                        this.scheduleNextRun(future, command, delay, delay, unit);
+                      }
+                    }),
+            nextDelay,
+            unit));
+  }
+
+  private void executeQuietly(Runnable task) {
+    try {
+      this.execute(task);
+    } catch (RejectedExecutionException e) {
+      LOGGER.log(Level.FINE, "Task not run, executor has been shut down", e);
+    }
+  }
+
+  private <V> ClusterScheduledFuture<V> track(ClusterScheduledFuture<V> future) {
+    if (this.shutdown) {
+      throw new RejectedExecutionException("Executor has been shut down");
+    }
+    this.scheduled.add(future);
+    return future;
+  }
+
+  private void taskDone() {
+    if (this.active.decrementAndGet() == 0 && this.shutdown) {
+      this.signalTermination();
+    }
+  }
+
+  private void signalTermination() {
+    this.termination.lock();
+    try {
+      this.terminated.signalAll();
+    } finally {
+      this.termination.unlock();
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    this.shutdown = true;
+    for (ClusterScheduledFuture<?> future : this.scheduled) {
+      future.cancel(false);
+    }
+    this.scheduled.clear();
+    if (this.active.get() == 0) {
+      this.signalTermination();
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    this.shutdown();
+    final List<Runnable> neverRun = new ArrayList<>();
+    Runnable next;
+    while ((next = this.queue.poll()) != null) {
+      neverRun.add(next);
+      this.taskDone();
+    }
+    return neverRun;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return this.shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return this.shutdown && this.active.get() == 0;
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long remainingNanos = unit.toNanos(timeout);
+    this.termination.lock();
+    try {
+      while (!this.isTerminated()) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = this.terminated.awaitNanos(remainingNanos);
+      }
+      return true;
+    } finally {
+      this.termination.unlock();
+    }
+  }
+
+  private class ClusterScheduledFuture<V> implements ScheduledFuture<V> {
+    private final CompletableFuture<V> result = new CompletableFuture<>();
+    private volatile ScheduledFuture<?> trigger;
+
+    private void trigger(ScheduledFuture<?> trigger) {
+      this.trigger = trigger;
+      if (this.isDone()) {
+        trigger.cancel(false);
+      }
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      final ScheduledFuture<?> current = this.trigger;
+      return current == null ? 0 : current.getDelay(unit);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(
+          this.getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      final boolean cancelled = this.result.cancel(mayInterruptIfRunning);
+      final ScheduledFuture<?> current = this.trigger;
+      if (current != null) {
+        current.cancel(false);
+      }
+      scheduled.remove(this);
+      return cancelled;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return this.result.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+      return this.result.isDone();
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+      return this.result.get();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException {
+      return this.result.get(timeout, unit);
+    }
+  }
+}
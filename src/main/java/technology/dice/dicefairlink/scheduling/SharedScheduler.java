@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.scheduling;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single daemon timer thread, plus a fixed pool of daemon workers, driving the discovery of
+ * every cluster known to a driver. Each cluster gets its own {@link ClusterScheduledExecutor},
+ * which runs its tasks one at a time and hands the worker back after each: a slow cluster holds on
+ * to at most one worker, and its overdue runs are skipped rather than queued up. Tasks of other
+ * clusters wait in turn for a free worker, so the thread count stays the same however many
+ * clusters there are.
+ */
+public class SharedScheduler {
+  private static final int DEFAULT_WORKERS =
+      Math.max(4, Runtime.getRuntime().availableProcessors());
+  private final ScheduledThreadPoolExecutor timer;
+  private final ThreadPoolExecutor workers;
+
+  public SharedScheduler() {
+    this(DEFAULT_WORKERS);
+  }
+
+  /** @param workers how many workers run the clusters' tasks, each let go after a minute idle */
+  public SharedScheduler(int workers) {
+    this.timer = new ScheduledThreadPoolExecutor(1, daemonThreads("fairlink-timer"));
+    this.timer.setRemoveOnCancelPolicy(true);
+    this.workers =
+        new ThreadPoolExecutor(
+            workers,
+            workers,
+            1,
+            TimeUnit.MINUTES,
+            new LinkedBlockingQueue<>(),
+            daemonThreads("fairlink-discovery"));
+    this.workers.allowCoreThreadTimeOut(true);
+  }
+
+  public ScheduledExecutorService newClusterExecutor() {
+    return new ClusterScheduledExecutor(this.timer, this.workers);
+  }
+
+  private static ThreadFactory daemonThreads(String prefix) {
+    final AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      final Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.selection;
+
+import technology.dice.dicefairlink.driver.TrackedConnection;
+import technology.dice.dicefairlink.health.OutstandingConnections;
+import technology.dice.dicefairlink.iterators.SizedIterator;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The candidate with the fewest outstanding connections, found in one pass starting from a random
+ * replica so that ties are broken at random. A replica out of rotation is picked as soon as its
+ * half-open probe is due. Connections handed out count towards their replica until closed.
+ */
+public class LeastOutstandingSelector implements ReplicaSelector {
+  private static final Logger LOGGER = Logger.getLogger(LeastOutstandingSelector.class.getName());
+  private final OutstandingConnections outstandingConnections = new OutstandingConnections();
+
+  @Override
+  public String select(
+      SizedIterator<String> rotation, List<String> replicas, ReplicaCandidates candidates) {
+    final int size = replicas.size();
+    if (size == 0) {
+      return rotation.next();
+    }
+    final int start = ThreadLocalRandom.current().nextInt(size);
+    String first = null;
+    boolean anyFresh = false;
+    String least = null;
+    int leastOutstanding = Integer.MAX_VALUE;
+    for (int i = 0; i < size; i++) {
+      final String candidate = replicas.get((start + i) % size);
+      if (candidates.isStale(candidate)) {
+        continue;
+      }
+      if (!anyFresh) {
+        first = candidate;
+        anyFresh = true;
+      }
+      if (!candidates.isAllowed(candidate)) {
+        LOGGER.log(Level.FINER, "Skipping replica {0}", candidate);
+      } else if (candidates.isOutOfRotation(candidate)) {
+        if (candidates.tryAcquire(candidate)) {
+          LOGGER.log(Level.FINER, "Probing replica {0}", candidate);
+          return candidate;
+        }
+        LOGGER.log(Level.FINER, "Skipping replica {0}", candidate);
+      } else {
+        final int outstanding = this.outstandingConnections.of(candidate);
+        if (outstanding < leastOutstanding) {
+          least = candidate;
+          leastOutstanding = outstanding;
+        }
+      }
+    }
+    if (least != null) {
+      if (LOGGER.isLoggable(Level.FINER)) {
+        LOGGER.log(
+            Level.FINER,
+            "Obtained replica {0} with {1} outstanding connections",
+            new Object[] {least, leastOutstanding});
+      }
+      return least;
+    }
+    if (!anyFresh) {
+      // the replicas were refreshed since the staleness was checked
+      first = replicas.get(start);
+    }
+    LOGGER.log(Level.FINE, "Every replica was skipped. Using {0}", first);
+    return first;
+  }
+
+  @Override
+  public Connection onConnected(String replica, Connection connection, Duration latency) {
+    return replica == null
+        ? connection
+        : new TrackedConnection(connection, this.outstandingConnections.acquire(replica));
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.selection;
+
+import technology.dice.dicefairlink.health.ReplicaLatencies;
+import technology.dice.dicefairlink.iterators.SizedIterator;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The better scoring of two replicas picked at random, scored by their recent connect latencies
+ * and failures. If neither of them can be picked, the next candidate in rotation is.
+ */
+public class PowerOfTwoChoicesSelector implements ReplicaSelector {
+  private final ReplicaLatencies replicaLatencies;
+  private final RoundRobinSelector roundRobin = new RoundRobinSelector();
+
+  /** @param latencyDecay how long it takes a replica's score to decay to about a third */
+  public PowerOfTwoChoicesSelector(Duration latencyDecay) {
+    this.replicaLatencies = new ReplicaLatencies(latencyDecay);
+  }
+
+  @Override
+  public String select(
+      SizedIterator<String> rotation, List<String> replicas, ReplicaCandidates candidates) {
+    final String chosen = this.betterOfTwo(replicas, candidates);
+    return chosen != null ? chosen : this.roundRobin.select(rotation, replicas, candidates);
+  }
+
+  private String betterOfTwo(List<String> replicas, ReplicaCandidates candidates) {
+    if (replicas.size() < 2) {
+      return null;
+    }
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final int first = random.nextInt(replicas.size());
+    final int second = (first + 1 + random.nextInt(replicas.size() - 1)) % replicas.size();
+    final boolean secondIsBetter =
+        this.replicaLatencies.score(replicas.get(second))
+            < this.replicaLatencies.score(replicas.get(first));
+    final String better = replicas.get(secondIsBetter ? second : first);
+    if (candidates.tryPick(better)) {
+      return better;
+    }
+    final String worse = replicas.get(secondIsBetter ? first : second);
+    return candidates.tryPick(worse) ? worse : null;
+  }
+
+  @Override
+  public Connection onConnected(String replica, Connection connection, Duration latency) {
+    this.replicaLatencies.onSuccess(replica, latency);
+    return connection;
+  }
+
+  @Override
+  public void onUnreachable(String replica, Duration latency) {
+    this.replicaLatencies.onFailure(replica, latency);
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.selection;
+
+import technology.dice.dicefairlink.health.ReplicaCircuitBreakers;
+
+import java.util.function.Predicate;
+
+/**
+ * Which replicas a connection may go to: those allowed, such as replicas not tried yet, and no
+ * further behind the writer than asked at the last discovery. Replicas whose circuit breaker is
+ * open are only picked when their half-open probe is due.
+ */
+public class ReplicaCandidates {
+  private final Predicate<String> allowed;
+  private final Predicate<String> stale;
+  private final ReplicaCircuitBreakers circuitBreakers;
+
+  public ReplicaCandidates(
+      Predicate<String> allowed,
+      Predicate<String> stale,
+      ReplicaCircuitBreakers circuitBreakers) {
+    this.allowed = allowed;
+    this.stale = stale;
+    this.circuitBreakers = circuitBreakers;
+  }
+
+  public boolean isAllowed(String replica) {
+    return this.allowed.test(replica);
+  }
+
+  public boolean isStale(String replica) {
+    return this.stale.test(replica);
+  }
+
+  public boolean isOutOfRotation(String replica) {
+    return this.circuitBreakers.isOpen(replica);
+  }
+
+  /** Whether a connection may be made to the replica, taking the half-open probe if it is due. */
+  public boolean tryAcquire(String replica) {
+    return this.circuitBreakers.tryAcquire(replica);
+  }
+
+  /** Whether the replica is fresh enough, allowed, and acquired. */
+  public boolean tryPick(String replica) {
+    return !this.isStale(replica) && this.isAllowed(replica) && this.tryAcquire(replica);
+  }
+
+  /** These candidates, narrowed down to the replicas the filter allows. */
+  public ReplicaCandidates only(Predicate<String> filter) {
+    return new ReplicaCandidates(this.allowed.and(filter), this.stale, this.circuitBreakers);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.selection;
+
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
+import technology.dice.dicefairlink.iterators.SizedIterator;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Picks the replica each connection goes to. A selector is built once per member finder, so what
+ * it keeps track of, such as the connections outstanding on each replica, outlives discoveries.
+ */
+public interface ReplicaSelector {
+  /**
+   * The replica to connect to next.
+   *
+   * @param rotation the discovered replicas, in rotation
+   * @param replicas the discovered replicas, without repeats, or empty if not known
+   * @param candidates which replicas this connection may go to
+   */
+  String select(
+      SizedIterator<String> rotation, List<String> replicas, ReplicaCandidates candidates);
+
+  /** The connection to hand out, made to the replica in the given time. */
+  default Connection onConnected(String replica, Connection connection, Duration latency) {
+    return connection;
+  }
+
+  /** Records a failure to reach the replica, given up on after the given time. */
+  default void onUnreachable(String replica, Duration latency) {}
+
+  /**
+   * The selector configured, preferring the client's availability zone if asked to.
+   *
+   * @param metadata what the last discovery found out about a replica
+   */
+  static ReplicaSelector of(
+      FairlinkConfiguration fairlinkConfiguration,
+      Function<String, Optional<ReplicaMetadata>> metadata) {
+    final ReplicaSelector selector;
+    switch (fairlinkConfiguration.getReplicaSelection()) {
+      case LEAST_OUTSTANDING:
+        selector = new LeastOutstandingSelector();
+        break;
+      case POWER_OF_TWO_CHOICES:
+        selector = new PowerOfTwoChoicesSelector(fairlinkConfiguration.getReplicaLatencyDecay());
+        break;
+      default:
+        // weighted round robin is laid out by the iterator
+        selector = new RoundRobinSelector();
+    }
+    final Optional<String> zone =
+        fairlinkConfiguration.isZoneAffinity()
+            ? fairlinkConfiguration.getAvailabilityZone()
+            : Optional.empty();
+    return zone.isPresent()
+        ? new ZoneAffinitySelector(
+            selector, zone.get(), fairlinkConfiguration.getMinReplicasInZone(), metadata)
+        : selector;
+  }
+}
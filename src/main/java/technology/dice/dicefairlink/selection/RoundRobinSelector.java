@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.selection;
+
+import technology.dice.dicefairlink.iterators.SizedIterator;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The next candidate in rotation. If every replica is skipped, the first one within the staleness
+ * is returned regardless, as there is nowhere better to go.
+ */
+public class RoundRobinSelector implements ReplicaSelector {
+  private static final Logger LOGGER = Logger.getLogger(RoundRobinSelector.class.getName());
+
+  @Override
+  public String select(
+      SizedIterator<String> rotation, List<String> replicas, ReplicaCandidates candidates) {
+    final int cycleLength = Math.max(1, rotation.cycleLength());
+    String first = null;
+    boolean anyFresh = false;
+    for (int i = 0; i < cycleLength; i++) {
+      final String candidate = rotation.next();
+      if (candidates.isStale(candidate)) {
+        continue;
+      }
+      if (!anyFresh) {
+        first = candidate;
+        anyFresh = true;
+      }
+      if (candidates.isAllowed(candidate) && candidates.tryAcquire(candidate)) {
+        LOGGER.log(Level.FINER, "Obtained replica: {0}", candidate);
+        return candidate;
+      }
+      LOGGER.log(Level.FINER, "Skipping replica {0}", candidate);
+    }
+    if (!anyFresh) {
+      // the replicas were refreshed since the staleness was checked
+      first = rotation.next();
+    }
+    LOGGER.log(Level.FINE, "Every replica was skipped. Using {0}", first);
+    return first;
+  }
+}
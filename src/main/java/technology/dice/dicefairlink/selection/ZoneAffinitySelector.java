@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.selection;
+
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
+import technology.dice.dicefairlink.iterators.SizedIterator;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps connections in the client's availability zone while it has enough usable replicas, and
+ * otherwise lets them spill over to the other zones. Replicas that are not allowed, out of
+ * rotation, too stale, or whose CPU is saturated are not usable. The replica is then picked among
+ * those as the given selector picks it.
+ */
+public class ZoneAffinitySelector implements ReplicaSelector {
+  private static final Logger LOGGER = Logger.getLogger(ZoneAffinitySelector.class.getName());
+  private static final double SATURATED_CPU = 90;
+  private final ReplicaSelector selector;
+  private final Optional<String> zone;
+  private final int minReplicasInZone;
+  private final Function<String, Optional<ReplicaMetadata>> metadata;
+
+  public ZoneAffinitySelector(
+      ReplicaSelector selector,
+      String zone,
+      int minReplicasInZone,
+      Function<String, Optional<ReplicaMetadata>> metadata) {
+    this.selector = selector;
+    this.zone = Optional.of(zone);
+    this.minReplicasInZone = minReplicasInZone;
+    this.metadata = metadata;
+  }
+
+  @Override
+  public String select(
+      SizedIterator<String> rotation, List<String> replicas, ReplicaCandidates candidates) {
+    if (this.enoughInZone(replicas, candidates)) {
+      return this.selector.select(rotation, replicas, candidates.only(this::isUsableInZone));
+    }
+    return this.selector.select(rotation, replicas, candidates);
+  }
+
+  private boolean enoughInZone(List<String> replicas, ReplicaCandidates candidates) {
+    int usableInZone = 0;
+    for (int i = 0; i < replicas.size() && usableInZone < this.minReplicasInZone; i++) {
+      final String replica = replicas.get(i);
+      if (candidates.isAllowed(replica)
+          && !candidates.isOutOfRotation(replica)
+          && !candidates.isStale(replica)
+          && this.isUsableInZone(replica)) {
+        usableInZone++;
+      }
+    }
+    if (usableInZone >= this.minReplicasInZone) {
+      return true;
+    }
+    if (LOGGER.isLoggable(Level.FINE)) {
+      LOGGER.log(
+          Level.FINE,
+          "{0} usable replicas in {1}. Spilling over to other zones",
+          new Object[] {usableInZone, this.zone.get()});
+    }
+    return false;
+  }
+
+  private boolean isUsableInZone(String replica) {
+    final Optional<ReplicaMetadata> replicaMetadata = this.metadata.apply(replica);
+    return replicaMetadata.flatMap(ReplicaMetadata::getAvailabilityZone).equals(this.zone)
+        && !replicaMetadata
+            .flatMap(ReplicaMetadata::getCpuUtilization)
+            .filter(cpu -> cpu >= SATURATED_CPU)
+            .isPresent();
+  }
+
+  @Override
+  public Connection onConnected(String replica, Connection connection, Duration latency) {
+    return this.selector.onConnected(replica, connection, latency);
+  }
+
+  @Override
+  public void onUnreachable(String replica, Duration latency) {
+    this.selector.onUnreachable(replica, latency);
+  }
+}
@@ -3,15 +3,37 @@ package technology.dice.dicefairlink;
 import org.junit.Assert;
 import org.junit.Test;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableList;
+import org.testcontainers.shaded.com.google.common.collect.ImmutableMap;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableSet;
 import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
+import technology.dice.dicefairlink.iterators.SizedIterator;
 import technology.dice.dicefairlink.support.discovery.members.FixedMemberFinder;
+import technology.dice.dicefairlink.support.driver.StubConnection;
+import technology.dice.dicefairlink.support.iterators.TestCyclicIterator;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AuroraReadonlyEndpointTest {
+  private static final Connection CONNECTION = new StubConnection().connection();
+
   private Properties baseTestProperties() {
     Properties p = new Properties();
     p.setProperty("auroraClusterRegion", "eu-west-1");
@@ -69,6 +91,602 @@ public class AuroraReadonlyEndpointTest {
     Assert.assertEquals("r3", underTest.getNextReplica());
   }
 
+  @Test
+  public void refreshDoesNotRepeatTheLastReplica() {
+    final FixedMemberFinder finder = new FixedMemberFinder(ImmutableList.of("r1", "r2"));
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            finder,
+            new StepByStepExecutor(1));
+    Assert.assertEquals("r1", underTest.getNextReplica());
+    finder.updateMembers(ImmutableList.of("r1", "r3"));
+    underTest.refresh();
+    Assert.assertEquals("r3", underTest.getNextReplica());
+    Assert.assertEquals("r1", underTest.getNextReplica());
+  }
+
+  @Test
+  public void scheduledRefreshKeepsPolling() {
+    final FixedMemberFinder finder = new FixedMemberFinder(ImmutableSet.of("r1"));
+    final StepByStepExecutor executor = new StepByStepExecutor(1);
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            finder,
+            executor);
+    Assert.assertEquals("r1", underTest.getNextReplica());
+    finder.updateMembers(ImmutableList.of("r2"));
+    executor.step();
+    Assert.assertEquals("r2", underTest.getNextReplica());
+    finder.updateMembers(ImmutableList.of("r3"));
+    executor.step();
+    Assert.assertEquals("r3", underTest.getNextReplica());
+  }
+
+  @Test
+  public void refreshesInFlightAreCoalesced() {
+    final PendingMemberFinder finder = new PendingMemberFinder(ImmutableSet.of("r1"));
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            finder,
+            new StepByStepExecutor(1));
+    final CompletableFuture<Void> first = underTest.refreshAsync();
+    final CompletableFuture<Void> second = underTest.refreshAsync();
+    Assert.assertFalse(first.isDone());
+    Assert.assertFalse(second.isDone());
+    Assert.assertEquals(1, finder.discoveries.get());
+    finder.pending.complete(TestCyclicIterator.of(ImmutableList.of("r2")));
+    Assert.assertTrue(first.isDone());
+    Assert.assertTrue(second.isDone());
+    Assert.assertEquals("r2", underTest.getNextReplica());
+    underTest.refreshAsync();
+    Assert.assertEquals(2, finder.discoveries.get());
+  }
+
+  @Test
+  public void unreachableReplicaIsTakenOutOfRotation() {
+    final FixedMemberFinder finder = new FixedMemberFinder(ImmutableList.of("r1", "r2"));
+    final StepByStepExecutor executor = new StepByStepExecutor(1);
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            finder,
+            executor);
+    for (int i = 0; i < 3; i++) {
+      underTest.onConnectionFailure("r1", new SQLNonTransientConnectionException());
+    }
+    for (int i = 0; i < 4; i++) {
+      Assert.assertEquals("r2", underTest.getNextReplica());
+    }
+    underTest.onConnectionFailure("r2", new SQLException("Access denied", "28000"));
+    underTest.onConnectionFailure("r2", new SQLException("Access denied", "28000"));
+    underTest.onConnectionFailure("r2", new SQLException("Access denied", "28000"));
+    Assert.assertEquals("r2", underTest.getNextReplica());
+  }
+
+  @Test
+  public void everyReplicaOpenStillReturnsOne() {
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FixedMemberFinder(ImmutableSet.of("r1")),
+            new StepByStepExecutor(1));
+    for (int i = 0; i < 3; i++) {
+      underTest.onConnectionFailure("r1", new SQLNonTransientConnectionException());
+    }
+    Assert.assertEquals("r1", underTest.getNextReplica());
+  }
+
+  @Test
+  public void onlyConnectionFailuresSpeedPollingUp() {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("replicaPollIntervalMin", "1");
+    final List<Long> delays = new ArrayList<>();
+    final ScheduledThreadPoolExecutor executor =
+        new ScheduledThreadPoolExecutor(1) {
+          @Override
+          public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+            delays.add(unit.toMillis(delay));
+            return super.schedule(task, delay, unit);
+          }
+        };
+    try {
+      AuroraReadonlyEndpoint underTest =
+          new AuroraReadonlyEndpoint(
+              new FairlinkConfiguration(properties, new HashMap<>()),
+              new FixedMemberFinder(ImmutableSet.of("r1")),
+              executor);
+      underTest.onConnectionFailure("r1", new SQLException("Access denied", "28000"));
+      Assert.assertEquals(1, delays.size());
+      underTest.onConnectionFailure("r1", new SQLNonTransientConnectionException());
+      Assert.assertEquals(2, delays.size());
+      Assert.assertEquals(1000L, (long) delays.get(1));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void connectionIsRetriedOnAnotherReplica() throws SQLException {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("connectAttempts", "3");
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2", "r3")),
+            new StepByStepExecutor(1));
+    final List<String> attempted = new ArrayList<>();
+    final Connection connection =
+        underTest.connect(
+            replica -> {
+              attempted.add(replica);
+              if (!replica.equals("r3")) {
+                throw new SQLNonTransientConnectionException("Connection refused");
+              }
+              return CONNECTION;
+            });
+    Assert.assertSame(CONNECTION, connection);
+    Assert.assertEquals(ImmutableList.of("r1", "r2", "r3"), attempted);
+  }
+
+  @Test
+  public void connectionRetriesAreBounded() {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("connectAttempts", "2");
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2", "r3")),
+            new StepByStepExecutor(1));
+    final List<String> attempted = new ArrayList<>();
+    try {
+      underTest.connect(
+          replica -> {
+            attempted.add(replica);
+            throw new SQLNonTransientConnectionException("Connection refused to " + replica);
+          });
+      Assert.fail("Expected the connection to fail");
+    } catch (SQLException e) {
+      Assert.assertEquals("Connection refused to r1", e.getMessage());
+      Assert.assertEquals(1, e.getSuppressed().length);
+    }
+    Assert.assertEquals(ImmutableList.of("r1", "r2"), attempted);
+  }
+
+  @Test
+  public void connectionIsNotRetriedAfterTheDeadline() {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("connectAttempts", "3");
+    properties.setProperty("connectDeadline", "50ms");
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2", "r3")),
+            new StepByStepExecutor(1));
+    final List<String> attempted = new ArrayList<>();
+    try {
+      underTest.connect(
+          replica -> {
+            attempted.add(replica);
+            try {
+              Thread.sleep(60);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            throw new SQLNonTransientConnectionException("Connection timed out");
+          });
+      Assert.fail("Expected the connection to fail");
+    } catch (SQLException e) {
+      Assert.assertEquals(ImmutableList.of("r1"), attempted);
+    }
+  }
+
+  @Test
+  public void otherFailuresAreNotRetried() {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("connectAttempts", "3");
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2", "r3")),
+            new StepByStepExecutor(1));
+    final List<String> attempted = new ArrayList<>();
+    try {
+      underTest.connect(
+          replica -> {
+            attempted.add(replica);
+            throw new SQLException("Access denied", "28000");
+          });
+      Assert.fail("Expected the connection to fail");
+    } catch (SQLException e) {
+      Assert.assertEquals(ImmutableList.of("r1"), attempted);
+    }
+  }
+
+  @Test
+  public void slowConnectionIsHedgedOnAnotherReplica() throws Exception {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("connectHedgePercentile", "95");
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2")),
+            new StepByStepExecutor(1));
+    for (int i = 0; i < 20; i++) {
+      underTest.connect(replica -> CONNECTION);
+    }
+    final StubConnection slow = new StubConnection();
+    final StubConnection fast = new StubConnection();
+    final List<Thread> slowThreads = new ArrayList<>();
+    final Connection connection =
+        underTest.connect(
+            replica -> {
+              if (replica.equals("r1")) {
+                slowThreads.add(Thread.currentThread());
+                try {
+                  Thread.sleep(500);
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                }
+                return slow.connection();
+              }
+              return fast.connection();
+            });
+    Assert.assertEquals(ImmutableList.of(Thread.currentThread()), slowThreads);
+    connection.close();
+    Assert.assertTrue(fast.isClosed());
+    for (int i = 0; i < 50 && !slow.isClosed(); i++) {
+      Thread.sleep(20);
+    }
+    Assert.assertTrue(slow.isClosed());
+  }
+
+  @Test
+  public void noConnectionOnTheCallingThreadWaitsForTheHedge() throws Exception {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("connectHedgePercentile", "95");
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2")),
+            new StepByStepExecutor(1));
+    for (int i = 0; i < 20; i++) {
+      underTest.connect(replica -> CONNECTION);
+    }
+    final StubConnection hedged = new StubConnection();
+    final Connection connection =
+        underTest.connect(
+            replica -> {
+              try {
+                Thread.sleep(replica.equals("r1") ? 100 : 300);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return replica.equals("r1") ? null : hedged.connection();
+            });
+    Assert.assertNotNull(connection);
+    Assert.assertFalse(hedged.isClosed());
+    connection.close();
+    Assert.assertTrue(hedged.isClosed());
+  }
+
+  @Test
+  public void noHedgedConnectionIsAFailure() throws Exception {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("connectHedgePercentile", "95");
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2")),
+            new StepByStepExecutor(1));
+    for (int i = 0; i < 20; i++) {
+      underTest.connect(replica -> CONNECTION);
+    }
+    try {
+      underTest.connect(
+          replica -> {
+            if (replica.equals("r1")) {
+              try {
+                Thread.sleep(300);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              throw new SQLException("Connection refused", "08001");
+            }
+            return null;
+          });
+      Assert.fail("Expected the connection to fail");
+    } catch (SQLException e) {
+      Assert.assertEquals("Connection refused", e.getMessage());
+    }
+  }
+
+  @Test
+  public void noHedgingUnlessEnabled() throws SQLException {
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2")),
+            new StepByStepExecutor(1));
+    for (int i = 0; i < 20; i++) {
+      underTest.connect(replica -> CONNECTION);
+    }
+    final List<String> attempted = new ArrayList<>();
+    underTest.connect(
+        replica -> {
+          attempted.add(replica);
+          try {
+            Thread.sleep(50);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return CONNECTION;
+        });
+    Assert.assertEquals(ImmutableList.of("r1"), attempted);
+  }
+
+  @Test
+  public void leastOutstandingPicksTheLeastLoadedReplica() throws SQLException {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("replicaSelection", "LEAST_OUTSTANDING");
+    final FairlinkConfiguration configuration =
+        new FairlinkConfiguration(properties, new HashMap<>());
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            configuration,
+            new FixedMemberFinder(ImmutableList.of("r1", "r2", "r3"), configuration),
+            new StepByStepExecutor(1));
+    final List<String> attempted = new ArrayList<>();
+    final AuroraReadonlyEndpoint.ReplicaConnector connector =
+        replica -> {
+          attempted.add(replica);
+          return new StubConnection().connection();
+        };
+    final Connection first = underTest.connect(connector);
+    final Connection second = underTest.connect(connector);
+    final Connection third = underTest.connect(connector);
+    Assert.assertEquals(3, ImmutableSet.copyOf(attempted).size());
+
+    second.close();
+    underTest.connect(connector);
+    Assert.assertEquals(attempted.get(1), attempted.get(3));
+    first.abort(Runnable::run);
+    third.close();
+    third.close();
+    underTest.connect(connector);
+    Assert.assertNotEquals(attempted.get(1), attempted.get(4));
+  }
+
+  @Test
+  public void powerOfTwoChoicesAvoidsTheSlowReplica() throws SQLException {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("replicaSelection", "POWER_OF_TWO_CHOICES");
+    final FairlinkConfiguration configuration =
+        new FairlinkConfiguration(properties, new HashMap<>());
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            configuration,
+            new FixedMemberFinder(ImmutableList.of("r1", "r2", "r3"), configuration),
+            new StepByStepExecutor(1));
+    final List<String> attempted = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      underTest.connect(
+          replica -> {
+            attempted.add(replica);
+            try {
+              Thread.sleep(replica.equals("r1") ? 20 : 1);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return CONNECTION;
+          });
+    }
+    Assert.assertTrue(attempted.stream().filter("r1"::equals).count() <= 3);
+    Assert.assertTrue(attempted.contains("r2"));
+    Assert.assertTrue(attempted.contains("r3"));
+  }
+
+  @Test
+  public void replicasBehindTheAskedStalenessAreSkipped() throws SQLException {
+    final Map<String, Duration> lags =
+        ImmutableMap.of("r1", Duration.ofSeconds(5), "r2", Duration.ofMillis(10));
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2", "r3")) {
+              @Override
+              public Optional<ReplicaMetadata> replicaMetadata(String replica) {
+                return Optional.ofNullable(lags.get(replica))
+                    .map(lag -> ReplicaMetadata.builder(replica).replicaLag(lag).build());
+              }
+            },
+            new StepByStepExecutor(1));
+    final List<String> attempted = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      underTest.connect(
+          replica -> {
+            attempted.add(replica);
+            return CONNECTION;
+          },
+          Optional.of(Duration.ofSeconds(1)));
+    }
+    Assert.assertEquals(ImmutableList.of("r2", "r3", "r2", "r3"), attempted);
+    underTest.connect(
+        replica -> {
+          attempted.add(replica);
+          return CONNECTION;
+        });
+    Assert.assertEquals("r1", attempted.get(4));
+  }
+
+  @Test
+  public void checkingTheStalenessDoesNotMoveTheIteratorAlong() throws SQLException {
+    final AtomicInteger nextCalls = new AtomicInteger();
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2", "r3")) {
+              @Override
+              public SizedIterator<String> discoverReplicas() {
+                final SizedIterator<String> replicas = super.discoverReplicas();
+                return new SizedIterator<String>() {
+                  @Override
+                  public int size() {
+                    return replicas.size();
+                  }
+
+                  @Override
+                  public boolean hasNext() {
+                    return replicas.hasNext();
+                  }
+
+                  @Override
+                  public String next() {
+                    nextCalls.incrementAndGet();
+                    return replicas.next();
+                  }
+                };
+              }
+
+              @Override
+              public Optional<ReplicaMetadata> replicaMetadata(String replica) {
+                return Optional.of(
+                    ReplicaMetadata.builder(replica).replicaLag(Duration.ofMillis(10)).build());
+              }
+            },
+            new StepByStepExecutor(1));
+    underTest.connect(replica -> CONNECTION, Optional.of(Duration.ofSeconds(1)));
+    underTest.connect(replica -> CONNECTION, Optional.of(Duration.ofSeconds(1)));
+    Assert.assertEquals(2, nextCalls.get());
+  }
+
+  @Test
+  public void unavailableReplicasWithinTheStalenessAreNotReportedAsStale() throws SQLException {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("connectAttempts", "2");
+    final Map<String, Duration> lags =
+        ImmutableMap.of("r1", Duration.ofSeconds(5), "r2", Duration.ofMillis(10));
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1", "r2")) {
+              @Override
+              public Optional<ReplicaMetadata> replicaMetadata(String replica) {
+                return Optional.of(
+                    ReplicaMetadata.builder(replica).replicaLag(lags.get(replica)).build());
+              }
+            },
+            new StepByStepExecutor(1));
+    for (int i = 0; i < 3; i++) {
+      underTest.onConnectionFailure("r2", new SQLNonTransientConnectionException());
+    }
+    final List<String> attempted = new ArrayList<>();
+    try {
+      underTest.connect(
+          replica -> {
+            attempted.add(replica);
+            throw new SQLNonTransientConnectionException("down");
+          },
+          Optional.of(Duration.ofSeconds(1)));
+      Assert.fail("r2 is down");
+    } catch (SQLNonTransientConnectionException expected) {
+    }
+    Assert.assertEquals(ImmutableList.of("r2"), attempted);
+  }
+
+  @Test(expected = SQLTransientException.class)
+  public void noReplicaWithinTheAskedStaleness() throws SQLException {
+    AuroraReadonlyEndpoint underTest =
+        new AuroraReadonlyEndpoint(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FixedMemberFinder(ImmutableList.of("r1")) {
+              @Override
+              public Optional<ReplicaMetadata> replicaMetadata(String replica) {
+                return Optional.of(
+                    ReplicaMetadata.builder(replica).replicaLag(Duration.ofSeconds(5)).build());
+              }
+            },
+            new StepByStepExecutor(1));
+    underTest.connect(replica -> CONNECTION, Optional.of(Duration.ofSeconds(1)));
+  }
+
+  private AuroraReadonlyEndpoint zoned(
+      Properties properties, Map<String, ReplicaMetadata> metadata) {
+    properties.setProperty("zoneAffinity", "true");
+    properties.setProperty("availabilityZone", "eu-west-1a");
+    final FairlinkConfiguration configuration =
+        new FairlinkConfiguration(properties, new HashMap<>());
+    return new AuroraReadonlyEndpoint(
+        configuration,
+        new FixedMemberFinder(ImmutableList.of("a1", "b1", "a2", "b2"), configuration) {
+          @Override
+          public Optional<ReplicaMetadata> replicaMetadata(String replica) {
+            return Optional.ofNullable(metadata.get(replica));
+          }
+        },
+        new StepByStepExecutor(1));
+  }
+
+  private static ReplicaMetadata inZone(String replica, String zone, Double cpu) {
+    return ReplicaMetadata.builder(replica).cpuUtilization(cpu).availabilityZone(zone).build();
+  }
+
+  @Test
+  public void replicasInTheClientZoneArePreferred() {
+    AuroraReadonlyEndpoint underTest =
+        this.zoned(
+            this.baseTestProperties(),
+            ImmutableMap.of(
+                "a1", inZone("a1", "eu-west-1a", null),
+                "b1", inZone("b1", "eu-west-1b", null),
+                "a2", inZone("a2", "eu-west-1a", null),
+                "b2", inZone("b2", "eu-west-1b", null)));
+    final List<String> chosen = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      chosen.add(underTest.getNextReplica());
+    }
+    Assert.assertEquals(ImmutableList.of("a1", "a2", "a1", "a2"), chosen);
+  }
+
+  @Test
+  public void spillsOverWhenTheZoneHasTooFewUsableReplicas() {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("minReplicasInZone", "2");
+    AuroraReadonlyEndpoint underTest =
+        this.zoned(
+            properties,
+            ImmutableMap.of(
+                "a1", inZone("a1", "eu-west-1a", null),
+                "b1", inZone("b1", "eu-west-1b", null),
+                "a2", inZone("a2", "eu-west-1a", 97.0),
+                "b2", inZone("b2", "eu-west-1b", null)));
+    final List<String> chosen = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      chosen.add(underTest.getNextReplica());
+    }
+    Assert.assertEquals(ImmutableList.of("a1", "b1", "a2", "b2"), chosen);
+  }
+
+  @Test
+  public void spillsOverWhenTheZoneIsOutOfRotation() {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("circuitBreakerFailureThreshold", "1");
+    AuroraReadonlyEndpoint underTest =
+        this.zoned(
+            properties,
+            ImmutableMap.of(
+                "a1", inZone("a1", "eu-west-1a", null),
+                "b1", inZone("b1", "eu-west-1b", null),
+                "b2", inZone("b2", "eu-west-1b", null)));
+    Assert.assertEquals("a1", underTest.getNextReplica());
+    underTest.onConnectionFailure("a1", new SQLNonTransientConnectionException());
+    Assert.assertEquals("b1", underTest.getNextReplica());
+    Assert.assertEquals("a2", underTest.getNextReplica());
+    Assert.assertEquals("b2", underTest.getNextReplica());
+  }
+
   @Test
   public void triesToSkipRepeated() {
     AuroraReadonlyEndpoint underTest =
@@ -95,4 +713,20 @@ public class AuroraReadonlyEndpointTest {
     Assert.assertNull(underTest.getNextReplica());
     Assert.assertEquals("r3", underTest.getNextReplica());
   }
+
+  private static class PendingMemberFinder extends FixedMemberFinder {
+    private final AtomicInteger discoveries = new AtomicInteger();
+    private CompletableFuture<SizedIterator<String>> pending;
+
+    private PendingMemberFinder(Collection<String> members) {
+      super(members);
+    }
+
+    @Override
+    public CompletableFuture<SizedIterator<String>> discoverReplicasAsync(Executor executor) {
+      discoveries.incrementAndGet();
+      pending = new CompletableFuture<>();
+      return pending;
+    }
+  }
 }
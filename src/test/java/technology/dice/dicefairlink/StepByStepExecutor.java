@@ -19,6 +19,18 @@ public class StepByStepExecutor extends ScheduledThreadPoolExecutor {
     return null;
   }
 
+  @Override
+  public ScheduledFuture<?> schedule(Runnable task, long ignoredDelay, TimeUnit ignoredTimeUnit) {
+    this.task = task;
+    return null;
+  }
+
+  /** Runs tasks on the calling thread, so that asynchronous discovery completes within a step. */
+  @Override
+  public void execute(Runnable task) {
+    task.run();
+  }
+
   public void step() {
     task.run();
   }
@@ -11,6 +11,7 @@ import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 
 import java.time.Duration;
+import java.util.Optional;
 import java.util.Properties;
 
 public class FairlinkConfigurationTest {
@@ -200,6 +201,30 @@ public class FairlinkConfigurationTest {
     FairlinkConfiguration underTest = new FairlinkConfiguration(p, Maps.newHashMap());
     Assert.assertEquals(Duration.ofMinutes(2), underTest.getTagsPollerInterval());
     Assert.assertEquals(Duration.ofSeconds(30), underTest.getReplicaPollInterval());
+    Assert.assertEquals(Duration.ofMinutes(10), underTest.getLastKnownGoodTtl());
+    Assert.assertEquals(Duration.ofSeconds(5), underTest.getValidationTimeout());
+    Assert.assertEquals(Duration.ofSeconds(10), underTest.getValidationDeadline());
+    Assert.assertEquals(8, underTest.getValidationConcurrency());
+    Assert.assertEquals(
+        UnansweredReplicaPolicy.KEEP_PREVIOUS, underTest.getUnansweredReplicaPolicy());
+    Assert.assertFalse(underTest.isPersistentValidationConnections());
+    Assert.assertFalse(underTest.getValidationQuery().isPresent());
+    Assert.assertEquals(Duration.ofSeconds(10), underTest.getAwsApiCallTimeout());
+    Assert.assertEquals(Duration.ofSeconds(5), underTest.getReplicaPollIntervalMin());
+    Assert.assertEquals(underTest.getReplicaPollInterval(), underTest.getReplicaPollIntervalMax());
+    Assert.assertEquals(Duration.ofMinutes(1), underTest.getReplicaPollFastWindow());
+    Assert.assertEquals(3, underTest.getCircuitBreakerFailureThreshold());
+    Assert.assertEquals(Duration.ofSeconds(10), underTest.getCircuitBreakerOpenInterval());
+    Assert.assertEquals(1, underTest.getConnectAttempts());
+    Assert.assertFalse(underTest.getConnectDeadline().isPresent());
+    Assert.assertEquals(0, underTest.getConnectHedgePercentile(), 0);
+    Assert.assertEquals(ReplicaSelection.ROUND_ROBIN, underTest.getReplicaSelection());
+    Assert.assertTrue(underTest.getReplicaWeights().isEmpty());
+    Assert.assertEquals(Duration.ofSeconds(30), underTest.getReplicaLatencyDecay());
+    Assert.assertEquals(Optional.empty(), underTest.getMaxReplicaLag());
+    Assert.assertFalse(underTest.isWeightByCpuHeadroom());
+    Assert.assertFalse(underTest.isZoneAffinity());
+    Assert.assertEquals(1, underTest.getMinReplicasInZone());
   }
 
   @Test
@@ -212,10 +237,153 @@ public class FairlinkConfigurationTest {
     p.setProperty("discoveryMode", "SQL_MYSQL");
     p.setProperty("replicaPollInterval", "abc");
     p.setProperty("tagsPollInterval", "def");
+    p.setProperty("lastKnownGoodTtl", "-1");
     p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
     p.setProperty("validateConnection", "true");
     FairlinkConfiguration underTest = new FairlinkConfiguration(p, Maps.newHashMap());
     Assert.assertEquals(Duration.ofMinutes(2), underTest.getTagsPollerInterval());
     Assert.assertEquals(Duration.ofSeconds(30), underTest.getReplicaPollInterval());
+    Assert.assertEquals(Duration.ofMinutes(10), underTest.getLastKnownGoodTtl());
+    Assert.assertEquals(Duration.ofSeconds(5), underTest.getValidationTimeout());
+    Assert.assertEquals(Duration.ofSeconds(10), underTest.getValidationDeadline());
+    Assert.assertEquals(8, underTest.getValidationConcurrency());
+    Assert.assertEquals(
+        UnansweredReplicaPolicy.KEEP_PREVIOUS, underTest.getUnansweredReplicaPolicy());
+    Assert.assertFalse(underTest.isPersistentValidationConnections());
+    Assert.assertFalse(underTest.getValidationQuery().isPresent());
+  }
+
+  @Test
+  public void lastKnownGoodTtl() {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", "eu-west-1");
+    p.setProperty("discoveryMode", "SQL_MYSQL");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    p.setProperty("lastKnownGoodTtl", "45");
+    FairlinkConfiguration underTest = new FairlinkConfiguration(p, Maps.newHashMap());
+    Assert.assertEquals(Duration.ofSeconds(45), underTest.getLastKnownGoodTtl());
+    p.setProperty("lastKnownGoodTtl", "1500ms");
+    Assert.assertEquals(
+        Duration.ofMillis(1500),
+        new FairlinkConfiguration(p, Maps.newHashMap()).getLastKnownGoodTtl());
+  }
+
+  @Test
+  public void validationSettings() {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", "eu-west-1");
+    p.setProperty("discoveryMode", "SQL_MYSQL");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    p.setProperty("validationTimeout", "2");
+    p.setProperty("validationDeadline", "4");
+    p.setProperty("validationConcurrency", "3");
+    p.setProperty("unansweredReplicaPolicy", "drop");
+    p.setProperty("persistentValidationConnections", "true");
+    p.setProperty("validationQuery", "SELECT 1");
+    FairlinkConfiguration underTest = new FairlinkConfiguration(p, Maps.newHashMap());
+    Assert.assertEquals(Duration.ofSeconds(2), underTest.getValidationTimeout());
+    Assert.assertEquals(Duration.ofSeconds(4), underTest.getValidationDeadline());
+    Assert.assertEquals(3, underTest.getValidationConcurrency());
+    Assert.assertEquals(UnansweredReplicaPolicy.DROP, underTest.getUnansweredReplicaPolicy());
+    Assert.assertTrue(underTest.isPersistentValidationConnections());
+    Assert.assertEquals("SELECT 1", underTest.getValidationQuery().get());
+  }
+
+  @Test
+  public void adaptivePollIntervals() {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", "eu-west-1");
+    p.setProperty("discoveryMode", "AWS_API");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    p.setProperty("replicaPollIntervalMin", "60");
+    p.setProperty("replicaPollIntervalMax", "20");
+    p.setProperty("replicaPollFastWindow", "90");
+    final FairlinkConfiguration underTest = new FairlinkConfiguration(p, ImmutableMap.of());
+    Assert.assertEquals(Duration.ofSeconds(20), underTest.getReplicaPollIntervalMin());
+    Assert.assertEquals(Duration.ofSeconds(20), underTest.getReplicaPollIntervalMax());
+    Assert.assertEquals(Duration.ofSeconds(90), underTest.getReplicaPollFastWindow());
+  }
+
+  @Test
+  public void millisecondIntervals() {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", "eu-west-1");
+    p.setProperty("discoveryMode", "AWS_API");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    p.setProperty("replicaPollInterval", "1500ms");
+    p.setProperty("replicaPollIntervalMin", "250ms");
+    p.setProperty("tagsPollInterval", "800ms");
+    p.setProperty("validationTimeout", "0ms");
+    final FairlinkConfiguration underTest = new FairlinkConfiguration(p, ImmutableMap.of());
+    Assert.assertEquals(Duration.ofMillis(1500), underTest.getReplicaPollInterval());
+    Assert.assertEquals(Duration.ofMillis(1500), underTest.getReplicaPollIntervalMax());
+    Assert.assertEquals(Duration.ofMillis(250), underTest.getReplicaPollIntervalMin());
+    Assert.assertEquals(Duration.ofMillis(800), underTest.getTagsPollerInterval());
+    Assert.assertEquals(Duration.ofSeconds(5), underTest.getValidationTimeout());
+  }
+
+  @Test
+  public void weightedReplicaSelection() {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", "eu-west-1");
+    p.setProperty("discoveryMode", "AWS_API");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    p.setProperty("replicaSelection", "weighted_round_robin");
+    p.setProperty("replicaWeights", "db.r6g.large:1, my-replica:3,broken,zero:0,:2");
+    final FairlinkConfiguration underTest = new FairlinkConfiguration(p, ImmutableMap.of());
+    Assert.assertEquals(ReplicaSelection.WEIGHTED_ROUND_ROBIN, underTest.getReplicaSelection());
+    Assert.assertEquals(
+        ImmutableMap.of("db.r6g.large", 1, "my-replica", 3), underTest.getReplicaWeights());
+  }
+
+  @Test
+  public void staleness() {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", "eu-west-1");
+    p.setProperty("discoveryMode", "SQL_MYSQL");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    p.setProperty("maxReplicaLag", "1500ms");
+    p.setProperty("maxStalenessMs", "250");
+    final FairlinkConfiguration underTest = new FairlinkConfiguration(p, ImmutableMap.of());
+    Assert.assertEquals(Optional.of(Duration.ofMillis(1500)), underTest.getMaxReplicaLag());
+    Assert.assertEquals(
+        Optional.of(Duration.ofMillis(250)), FairlinkConfiguration.maxStaleness(p));
+    p.setProperty("maxStalenessMs", "soon");
+    Assert.assertEquals(Optional.empty(), FairlinkConfiguration.maxStaleness(p));
+  }
+
+  @Test
+  public void zoneAffinity() {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", "eu-west-1");
+    p.setProperty("discoveryMode", "AWS_API");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    p.setProperty("zoneAffinity", "true");
+    p.setProperty("minReplicasInZone", "2");
+    final FairlinkConfiguration withoutZone = new FairlinkConfiguration(p, ImmutableMap.of());
+    Assert.assertFalse(withoutZone.isZoneAffinity());
+    final FairlinkConfiguration fromEnv =
+        new FairlinkConfiguration(p, ImmutableMap.of("FAIRLINK_AVAILABILITY_ZONE", "eu-west-1b"));
+    Assert.assertTrue(fromEnv.isZoneAffinity());
+    Assert.assertEquals(Optional.of("eu-west-1b"), fromEnv.getAvailabilityZone());
+    Assert.assertEquals(2, fromEnv.getMinReplicasInZone());
+    p.setProperty("availabilityZone", "eu-west-1a");
+    Assert.assertEquals(
+        Optional.of("eu-west-1a"),
+        new FairlinkConfiguration(p, ImmutableMap.of("FAIRLINK_AVAILABILITY_ZONE", "eu-west-1b"))
+            .getAvailabilityZone());
+  }
+
+  @Test
+  public void nonPositivePollIntervalsFallBackToTheDefaults() {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", "eu-west-1");
+    p.setProperty("discoveryMode", "AWS_API");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    p.setProperty("replicaPollInterval", "0");
+    p.setProperty("tagsPollInterval", "-10");
+    final FairlinkConfiguration underTest = new FairlinkConfiguration(p, ImmutableMap.of());
+    Assert.assertEquals(Duration.ofSeconds(30), underTest.getReplicaPollInterval());
+    Assert.assertEquals(Duration.ofMinutes(2), underTest.getTagsPollerInterval());
   }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+
+public class AwsClientCacheTest {
+  private final AtomicInteger built = new AtomicInteger();
+  private final AwsClientCache<StubClient> underTest =
+      new AwsClientCache<>(
+          configuration -> {
+            built.incrementAndGet();
+            return new StubClient();
+          });
+
+  private static FairlinkConfiguration configuration(
+      String region, String endpointOverride, String keyId, String secret) {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", region);
+    p.setProperty("discoveryMode", "AWS_API");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    if (endpointOverride != null) {
+      p.setProperty("awsEndpointOverride", endpointOverride);
+    }
+    if (keyId != null) {
+      p.setProperty("auroraDiscoveryAuthMode", "basic");
+      p.setProperty("auroraDiscoveryKeyId", keyId);
+      p.setProperty("auroraDiscoverKeySecret", secret);
+    }
+    return new FairlinkConfiguration(p, ImmutableMap.of());
+  }
+
+  @Test
+  public void sameKeySharesOneClient() {
+    final AwsClientCache.Lease<StubClient> first =
+        underTest.acquire(configuration("eu-west-1", null, null, null));
+    final AwsClientCache.Lease<StubClient> second =
+        underTest.acquire(configuration("eu-west-1", null, null, null));
+    Assert.assertSame(first.client(), second.client());
+    Assert.assertEquals(1, built.get());
+    Assert.assertEquals(1, underTest.size());
+  }
+
+  @Test
+  public void differentKeysGetDifferentClients() {
+    underTest.acquire(configuration("eu-west-1", null, null, null));
+    underTest.acquire(configuration("eu-west-2", null, null, null));
+    underTest.acquire(configuration("eu-west-1", "http://localhost:11342", null, null));
+    underTest.acquire(configuration("eu-west-1", null, "keyId", "secret"));
+    underTest.acquire(configuration("eu-west-1", null, "keyId", "anotherSecret"));
+    underTest.acquire(configuration("eu-west-1", null, "anotherKeyId", "secret"));
+    Assert.assertEquals(6, built.get());
+    Assert.assertEquals(6, underTest.size());
+  }
+
+  @Test
+  public void clientIsClosedWithItsLastLease() {
+    final AwsClientCache.Lease<StubClient> first =
+        underTest.acquire(configuration("eu-west-1", null, "keyId", "secret"));
+    final AwsClientCache.Lease<StubClient> second =
+        underTest.acquire(configuration("eu-west-1", null, "keyId", "secret"));
+    first.close();
+    first.close();
+    Assert.assertEquals(0, first.client().closes.get());
+    Assert.assertEquals(1, underTest.size());
+    second.close();
+    Assert.assertEquals(1, first.client().closes.get());
+    Assert.assertEquals(0, underTest.size());
+  }
+
+  @Test
+  public void reacquiringAfterCloseBuildsANewClient() {
+    final AwsClientCache.Lease<StubClient> first =
+        underTest.acquire(configuration("eu-west-1", null, null, null));
+    first.close();
+    final AwsClientCache.Lease<StubClient> second =
+        underTest.acquire(configuration("eu-west-1", null, null, null));
+    Assert.assertNotSame(first.client(), second.client());
+    Assert.assertEquals(2, built.get());
+  }
+
+  @Test
+  public void credentialsIdentityDoesNotExposeTheSecret() {
+    final String identity =
+        configuration("eu-west-1", null, "keyId", "keySecret").getAwsCredentialsIdentity();
+    Assert.assertTrue(identity.contains("keyId"));
+    Assert.assertFalse(identity.contains("keySecret"));
+  }
+
+  private static class StubClient implements SdkAutoCloseable {
+    private final AtomicInteger closes = new AtomicInteger();
+
+    @Override
+    public void close() {
+      closes.incrementAndGet();
+    }
+  }
+}
@@ -2,6 +2,7 @@ package technology.dice.dicefairlink.discovery.members;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.testcontainers.shaded.com.google.common.collect.ImmutableMap;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableSet;
 
 public class ClusterInfoTest {
@@ -28,6 +29,32 @@ public class ClusterInfoTest {
     Assert.assertFalse(c1.equals(null));
   }
 
+  @Test
+  public void metadataIsPartOfEquality() {
+    ClusterInfo c1 =
+        new ClusterInfo(
+            "a",
+            ImmutableSet.of("r1"),
+            ImmutableMap.of(
+                "r1", ReplicaMetadata.builder("r1").instanceClass("db.r6g.large").build()));
+    ClusterInfo c2 =
+        new ClusterInfo(
+            "a",
+            ImmutableSet.of("r1"),
+            ImmutableMap.of(
+                "r1", ReplicaMetadata.builder("r1").instanceClass("db.r6g.large").build()));
+    ClusterInfo c3 =
+        new ClusterInfo(
+            "a",
+            ImmutableSet.of("r1"),
+            ImmutableMap.of(
+                "r1", ReplicaMetadata.builder("r1").instanceClass("db.r6g.xlarge").build()));
+    Assert.assertEquals(c1, c2);
+    Assert.assertEquals(c1.hashCode(), c2.hashCode());
+    Assert.assertNotEquals(c1, c3);
+    Assert.assertNotEquals(c1, new ClusterInfo("a", ImmutableSet.of("r1")));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void ctorEmptyReadOnlyEndpoint() {
     new ClusterInfo("", ImmutableSet.of("r1", "r2"));
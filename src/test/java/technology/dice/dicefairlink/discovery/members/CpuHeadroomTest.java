@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CpuHeadroomTest {
+  private static final Map<String, Integer> EVEN = ImmutableMap.of("r1", 1, "r2", 1, "r3", 1);
+  private final CpuHeadroom underTest = new CpuHeadroom();
+
+  private static Map<String, ReplicaMetadata> cpu(double r1, double r2, double r3) {
+    return ImmutableMap.of(
+        "r1", ReplicaMetadata.builder("r1").cpuUtilization(r1).build(),
+        "r2", ReplicaMetadata.builder("r2").cpuUtilization(r2).build(),
+        "r3", ReplicaMetadata.builder("r3").cpuUtilization(r3).build());
+  }
+
+  @Test
+  public void weightsFollowHeadroom() {
+    Assert.assertEquals(
+        ImmutableMap.of("r1", 5, "r2", 80, "r3", 180),
+        underTest.weigh(ImmutableMap.of("r1", 1, "r2", 1, "r3", 2), cpu(95, 20, 10)));
+  }
+
+  @Test
+  public void saturatedReplicasKeepSomeWeight() {
+    Assert.assertEquals(
+        (Integer) CpuHeadroom.MIN_HEADROOM, underTest.weigh(EVEN, cpu(100, 0, 0)).get("r1"));
+  }
+
+  @Test
+  public void smallChangesAreIgnored() {
+    underTest.weigh(EVEN, cpu(50, 50, 50));
+    Assert.assertEquals(
+        ImmutableMap.of("r1", 50, "r2", 50, "r3", 30), underTest.weigh(EVEN, cpu(59, 41, 70)));
+    Assert.assertEquals(
+        ImmutableMap.of("r1", 40, "r2", 50, "r3", 30), underTest.weigh(EVEN, cpu(60, 45, 65)));
+  }
+
+  @Test
+  public void unknownUtilisationGetsTheAverageHeadroom() {
+    Assert.assertEquals(
+        ImmutableMap.of("r1", 20, "r2", 60, "r3", 40),
+        underTest.weigh(
+            EVEN,
+            ImmutableMap.of(
+                "r1", ReplicaMetadata.builder("r1").cpuUtilization(80.0).build(),
+                "r2", ReplicaMetadata.builder("r2").cpuUtilization(40.0).build())));
+    Assert.assertEquals(
+        ImmutableMap.of("r1", 100, "r2", 100, "r3", 100),
+        new CpuHeadroom().weigh(EVEN, ImmutableMap.of()));
+  }
+}
@@ -3,12 +3,14 @@ package technology.dice.dicefairlink.discovery.members;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.junit.Assert;
-import org.junit.Before;
 import org.junit.Test;
-import technology.dice.dicefairlink.StepByStepExecutor;
 import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
+import technology.dice.dicefairlink.discovery.Futures;
 import technology.dice.dicefairlink.driver.FairlinkConnectionString;
 import technology.dice.dicefairlink.iterators.SizedIterator;
+import technology.dice.dicefairlink.selection.LeastOutstandingSelector;
+import technology.dice.dicefairlink.selection.ReplicaSelector;
 import technology.dice.dicefairlink.support.discovery.members.FailingReplicasFinder;
 import technology.dice.dicefairlink.support.discovery.members.FixedSetReplicasFinder;
 import technology.dice.dicefairlink.support.discovery.tags.FailingExcludedReplicasFinder;
@@ -19,10 +21,12 @@ import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class FairlinkMemberFinderTest {
-  private StepByStepExecutor exclusionTagsExecutor;
 
   private Properties baseTestProperties() {
     Properties p = new Properties();
@@ -42,11 +46,6 @@ public class FairlinkMemberFinderTest {
     return ImmutableSet.of("replica1", "replica2", "replica3", "replica4");
   }
 
-  @Before
-  public void setup() {
-    this.exclusionTagsExecutor = new StepByStepExecutor(1);
-  }
-
   private Set<String> addDomain(Set<String> ids, Properties properties) {
     return ids.stream()
         .map(id -> String.format(properties.getProperty("replicaEndpointTemplate"), id))
@@ -65,12 +64,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableList.of()),
             new FixedSetReplicasFinder("my-fallback.domain.com", baseReplicaList()),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -80,6 +77,92 @@ public class FairlinkMemberFinderTest {
         ((TestCyclicIterator) result).getElements());
   }
 
+  @Test
+  public void replicaSelectorIsConfiguredAndKeptAcrossDiscoveries() throws URISyntaxException {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("replicaSelection", "LEAST_OUTSTANDING");
+    FairlinkMemberFinder underTest =
+        new FairlinkMemberFinder(
+            new FairlinkConfiguration(properties, new HashMap<>()),
+            new FairlinkConnectionString(
+                "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com", properties),
+            new FixedSetExcludedReplicasFinder(ImmutableList.of()),
+            new FixedSetReplicasFinder("my-fallback.domain.com", baseReplicaList()),
+            strings -> TestCyclicIterator.of(strings),
+            (host, p) -> true);
+    final ReplicaSelector selector = underTest.replicaSelector();
+    underTest.discoverReplicas();
+    underTest.discoverReplicas();
+
+    Assert.assertTrue(selector instanceof LeastOutstandingSelector);
+    Assert.assertSame(selector, underTest.replicaSelector());
+  }
+
+  @Test
+  public void asyncDiscovery() throws URISyntaxException {
+    final CompletableFuture<ClusterInfo> discovery = new CompletableFuture<>();
+    FairlinkMemberFinder underTest =
+        new FairlinkMemberFinder(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FairlinkConnectionString(
+                "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
+                this.baseTestProperties()),
+            new FixedSetExcludedReplicasFinder(ImmutableList.of()),
+            new MemberFinderMethod() {
+              @Override
+              public ClusterInfo discoverCluster() {
+                throw new UnsupportedOperationException();
+              }
+
+              @Override
+              public CompletableFuture<ClusterInfo> discoverClusterAsync() {
+                return discovery;
+              }
+            },
+            strings -> TestCyclicIterator.of(strings),
+            (host, properties) -> true);
+    final CompletableFuture<SizedIterator<String>> result =
+        underTest.discoverReplicasAsync(Runnable::run);
+    Assert.assertFalse(result.isDone());
+
+    discovery.complete(new ClusterInfo("my-fallback.domain.com", baseReplicaList()));
+    Assert.assertEquals(
+        this.addDomain(baseReplicaList(), this.baseTestProperties()),
+        ((TestCyclicIterator) result.join()).getElements());
+  }
+
+  @Test
+  public void asyncDiscoveryFailureKeepsLastKnownGood() throws URISyntaxException {
+    final AtomicInteger discoveries = new AtomicInteger();
+    FairlinkMemberFinder underTest =
+        new FairlinkMemberFinder(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FairlinkConnectionString(
+                "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
+                this.baseTestProperties()),
+            new FixedSetExcludedReplicasFinder(ImmutableList.of()),
+            new MemberFinderMethod() {
+              @Override
+              public ClusterInfo discoverCluster() {
+                discoveries.incrementAndGet();
+                return new ClusterInfo("my-fallback.domain.com", baseReplicaList());
+              }
+
+              @Override
+              public CompletableFuture<ClusterInfo> discoverClusterAsync() {
+                return Futures.failed(new DiscoveryException("Programmed failure", null));
+              }
+            },
+            strings -> TestCyclicIterator.of(strings),
+            (host, properties) -> true);
+    underTest.init();
+    final SizedIterator<String> result = underTest.discoverReplicasAsync(Runnable::run).join();
+    Assert.assertEquals(1, discoveries.get());
+    Assert.assertEquals(
+        this.addDomain(baseReplicaList(), this.baseTestProperties()),
+        ((TestCyclicIterator) result).getElements());
+  }
+
   @Test
   public void noReplicas() throws URISyntaxException {
     FairlinkMemberFinder underTest =
@@ -88,12 +171,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableList.of()),
             new FixedSetReplicasFinder("my-fallback.domain.com", ImmutableSet.of()),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -111,12 +192,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConfiguration(properties, new HashMap<>()),
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com", properties),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableList.of()),
             new FixedSetReplicasFinder("my-fallback.domain.com", ImmutableSet.of()),
             strings -> TestCyclicIterator.of(strings),
             (host, p) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -134,12 +213,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableSet.of("r1")),
             new FixedSetReplicasFinder("my-fallback.domain.com", ImmutableSet.of("r1")),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -156,12 +233,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com/schema?p=xx",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableSet.of("r1", "r2", "r3")),
             new FixedSetReplicasFinder("my-fallback.domain.com", ImmutableSet.of("r1", "r2", "r3")),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -178,12 +253,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
             new FixedSetReplicasFinder("my-fallback.domain.com", ImmutableSet.of("r1")),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -203,12 +276,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableList.of()),
             new FixedSetReplicasFinder("my-fallback.domain.com", baseReplicaList()),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> false);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -226,13 +297,11 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableList.of()),
             new FixedSetReplicasFinder(
                 "my-fallback.domain.com", ImmutableSet.of("r1", "<>±±://", "r2")),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -250,14 +319,12 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableSet.of("replica1", "replica3")),
             new FixedSetReplicasFinder(
                 "my-fallback.domain.com",
                 ImmutableSet.of("replica1", "replica2", "replica3", "replica4")),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -275,7 +342,6 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
             new FixedSetReplicasFinder(
                 "my-fallback.domain.com",
@@ -285,7 +351,6 @@ public class FairlinkMemberFinderTest {
                 !host.equalsIgnoreCase(
                     "jdbc:fairlinktestdriver://"
                         + this.addDomain("replica1", this.baseTestProperties())));
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -307,12 +372,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
             fixedSetReplicasFinder,
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -342,12 +405,10 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
             fixedSetReplicasFinder,
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -375,14 +436,12 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             exclusionsFinder,
             new FixedSetReplicasFinder(
                 "my-fallback.domain.com",
                 ImmutableSet.of("replica1", "replica2", "replica3", "replica4")),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -392,7 +451,6 @@ public class FairlinkMemberFinderTest {
         ((TestCyclicIterator) result).getElements());
 
     exclusionsFinder.updateExclusions(ImmutableSet.of("replica1", "replica4"));
-    this.exclusionTagsExecutor.step();
 
     final SizedIterator<String> afterAddingReplica = underTest.discoverReplicas();
     Assert.assertTrue(afterAddingReplica instanceof TestCyclicIterator);
@@ -410,31 +468,29 @@ public class FairlinkMemberFinderTest {
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableList.of()),
             () -> {
               throw new RuntimeException("boom");
             },
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     underTest.discoverReplicas();
   }
 
   @Test
   public void discoveryExceptionFallback() throws URISyntaxException {
+    final Properties expiredLastKnownGood = this.baseTestProperties();
+    expiredLastKnownGood.setProperty("lastKnownGoodTtl", "0");
     FairlinkMemberFinder underTest =
         new FairlinkMemberFinder(
-            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FairlinkConfiguration(expiredLastKnownGood, new HashMap<>()),
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableList.of()),
             new FailingReplicasFinder("my-fallback.domain.com", baseReplicaList(), 1),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -453,20 +509,20 @@ public class FairlinkMemberFinderTest {
 
   @Test
   public void exclusionDiscoveryException() throws URISyntaxException {
+    final Properties expiredLastKnownGood = this.baseTestProperties();
+    expiredLastKnownGood.setProperty("lastKnownGoodTtl", "0");
     FairlinkMemberFinder underTest =
         new FairlinkMemberFinder(
-            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FairlinkConfiguration(expiredLastKnownGood, new HashMap<>()),
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
                 this.baseTestProperties()),
-            this.exclusionTagsExecutor,
             new FailingExcludedReplicasFinder(ImmutableSet.of("replica1", "replica3"), 1),
             new FixedSetReplicasFinder(
                 "my-fallback.domain.com",
                 ImmutableSet.of("replica1", "replica2", "replica3", "replica4")),
             strings -> TestCyclicIterator.of(strings),
             (host, properties) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -475,7 +531,6 @@ public class FairlinkMemberFinderTest {
         this.addDomain(ImmutableSet.of("replica2", "replica4"), this.baseTestProperties()),
         ((TestCyclicIterator) result).getElements());
 
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> secondResult = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -496,14 +551,12 @@ public class FairlinkMemberFinderTest {
             new FairlinkConfiguration(properties, new HashMap<>()),
             new FairlinkConnectionString(
                 "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com", properties),
-            this.exclusionTagsExecutor,
             new FixedSetExcludedReplicasFinder(ImmutableList.of()),
             () -> {
               throw new RuntimeException("Cluster discovery always fails in this test");
             },
             TestCyclicIterator::of,
             (host, p) -> true);
-    this.exclusionTagsExecutor.step();
     final SizedIterator<String> result = underTest.discoverReplicas();
 
     Assert.assertTrue(result instanceof TestCyclicIterator);
@@ -512,4 +565,171 @@ public class FairlinkMemberFinderTest {
         ImmutableSet.of("overridden-fallback.domain.com"),
         ((TestCyclicIterator) result).getElements());
   }
+
+  @Test
+  public void prerendersDelegateConnectionStrings() throws URISyntaxException {
+    final FairlinkConnectionString connectionString =
+        new FairlinkConnectionString(
+            "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com:3306/schema",
+            this.baseTestProperties());
+    FairlinkMemberFinder underTest =
+        new FairlinkMemberFinder(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            connectionString,
+            new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
+            new FixedSetReplicasFinder("my-fallback.domain.com", ImmutableSet.of("replica1")),
+            TestCyclicIterator::of,
+            (host, properties) -> true);
+    final String host = underTest.discoverReplicas().next();
+
+    final String delegate = connectionString.delegateConnectionString(host);
+    Assert.assertEquals(
+        "jdbc:fairlinktestdriver://replica1.rest-of-myhost.name:3306/schema", delegate);
+    Assert.assertSame(delegate, connectionString.delegateConnectionString(host));
+  }
+
+  @Test
+  public void discoveryExceptionKeepsLastKnownGood() throws URISyntaxException {
+    FairlinkMemberFinder underTest =
+        new FairlinkMemberFinder(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FairlinkConnectionString(
+                "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
+                this.baseTestProperties()),
+            new FixedSetExcludedReplicasFinder(ImmutableList.of()),
+            new FailingReplicasFinder("my-fallback.domain.com", baseReplicaList(), 1),
+            strings -> TestCyclicIterator.of(strings),
+            (host, properties) -> true);
+    underTest.discoverReplicas();
+
+    final SizedIterator<String> secondResult = underTest.discoverReplicas();
+    Assert.assertTrue(secondResult instanceof TestCyclicIterator);
+    Assert.assertEquals(4, secondResult.size());
+    Assert.assertEquals(
+        this.addDomain(baseReplicaList(), this.baseTestProperties()),
+        ((TestCyclicIterator) secondResult).getElements());
+  }
+
+  @Test
+  public void emptyClusterIsNotAFailure() throws URISyntaxException {
+    final FixedSetReplicasFinder fixedSetReplicasFinder =
+        new FixedSetReplicasFinder("my-fallback.domain.com", baseReplicaList());
+    FairlinkMemberFinder underTest =
+        new FairlinkMemberFinder(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FairlinkConnectionString(
+                "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
+                this.baseTestProperties()),
+            new FixedSetExcludedReplicasFinder(ImmutableList.of()),
+            fixedSetReplicasFinder,
+            strings -> TestCyclicIterator.of(strings),
+            (host, properties) -> true);
+    Assert.assertEquals(4, underTest.discoverReplicas().size());
+
+    fixedSetReplicasFinder.updateReplicas(ImmutableSet.of());
+    final SizedIterator<String> secondResult = underTest.discoverReplicas();
+    Assert.assertEquals(
+        ImmutableSet.of("my-fallback.domain.com"),
+        ((TestCyclicIterator) secondResult).getElements());
+  }
+
+  @Test
+  public void exclusionDiscoveryExceptionKeepsLastKnownGood() throws URISyntaxException {
+    FairlinkMemberFinder underTest =
+        new FairlinkMemberFinder(
+            new FairlinkConfiguration(this.baseTestProperties(), new HashMap<>()),
+            new FairlinkConnectionString(
+                "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com",
+                this.baseTestProperties()),
+            new FailingExcludedReplicasFinder(ImmutableSet.of("replica1", "replica3"), 1),
+            new FixedSetReplicasFinder(
+                "my-fallback.domain.com",
+                ImmutableSet.of("replica1", "replica2", "replica3", "replica4")),
+            strings -> TestCyclicIterator.of(strings),
+            (host, properties) -> true);
+    underTest.discoverReplicas();
+
+    final SizedIterator<String> secondResult = underTest.discoverReplicas();
+    Assert.assertEquals(2, secondResult.size());
+    Assert.assertEquals(
+        this.addDomain(ImmutableSet.of("replica2", "replica4"), this.baseTestProperties()),
+        ((TestCyclicIterator) secondResult).getElements());
+  }
+
+  private FairlinkMemberFinder slowValidationFinder(
+      Properties properties, ReplicaValidator replicaValidator) throws URISyntaxException {
+    properties.setProperty("validationTimeout", "1");
+    return new FairlinkMemberFinder(
+        new FairlinkConfiguration(properties, new HashMap<>()),
+        new FairlinkConnectionString(
+            "jdbc:fairlink:fairlinktestdriver://my-fallback.domain.com", properties),
+        new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
+        new FixedSetReplicasFinder(
+            "my-fallback.domain.com", ImmutableSet.of("replica1", "replica2")),
+        TestCyclicIterator::of,
+        replicaValidator);
+  }
+
+  private boolean hangOnSecondRound(String host, AtomicInteger checks) {
+    if (checks.incrementAndGet() > 2 && host.contains("replica2")) {
+      try {
+        Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+      } catch (InterruptedException e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Test
+  public void unansweredValidationKeepsPreviousState() throws URISyntaxException {
+    final AtomicInteger checks = new AtomicInteger();
+    FairlinkMemberFinder underTest =
+        this.slowValidationFinder(
+            this.baseTestProperties(), (host, p) -> this.hangOnSecondRound(host, checks));
+    Assert.assertEquals(2, underTest.discoverReplicas().size());
+
+    final SizedIterator<String> secondResult = underTest.discoverReplicas();
+    Assert.assertEquals(
+        this.addDomain(ImmutableSet.of("replica1", "replica2"), this.baseTestProperties()),
+        ((TestCyclicIterator) secondResult).getElements());
+  }
+
+  @Test
+  public void unansweredValidationDropped() throws URISyntaxException {
+    final AtomicInteger checks = new AtomicInteger();
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("unansweredReplicaPolicy", "drop");
+    FairlinkMemberFinder underTest =
+        this.slowValidationFinder(properties, (host, p) -> this.hangOnSecondRound(host, checks));
+    Assert.assertEquals(2, underTest.discoverReplicas().size());
+
+    final SizedIterator<String> secondResult = underTest.discoverReplicas();
+    Assert.assertEquals(
+        this.addDomain(ImmutableSet.of("replica1"), this.baseTestProperties()),
+        ((TestCyclicIterator) secondResult).getElements());
+  }
+
+  @Test
+  public void closeClosesTheValidator() throws URISyntaxException {
+    final AtomicInteger closed = new AtomicInteger();
+    FairlinkMemberFinder underTest =
+        this.slowValidationFinder(
+            this.baseTestProperties(),
+            new ReplicaValidator() {
+              @Override
+              public boolean isValid(String host, Properties properties) {
+                return true;
+              }
+
+              @Override
+              public void close() {
+                closed.incrementAndGet();
+              }
+            });
+    Assert.assertEquals(2, underTest.discoverReplicas().size());
+
+    underTest.close();
+    Assert.assertEquals(1, closed.get());
+  }
 }
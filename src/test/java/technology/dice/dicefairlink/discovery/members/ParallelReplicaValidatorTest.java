@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelReplicaValidatorTest {
+  private ExecutorService executor;
+  private CountDownLatch never;
+
+  @Before
+  public void setup() {
+    this.executor = Executors.newFixedThreadPool(4);
+    this.never = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() {
+    this.never.countDown();
+    this.executor.shutdownNow();
+  }
+
+  private boolean hang() {
+    try {
+      return this.never.await(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      return false;
+    }
+  }
+
+  @Test
+  public void validAndInvalid() {
+    final ParallelReplicaValidator underTest =
+        new ParallelReplicaValidator(executor, Duration.ofSeconds(5), Duration.ofSeconds(10));
+    final ParallelReplicaValidator.Result result =
+        underTest.validate(
+            ImmutableSet.of("r1", "r2", "r3", "r4"),
+            host -> {
+              if (host.equals("r4")) {
+                throw new IllegalStateException("boom");
+              }
+              return !host.equals("r2");
+            });
+
+    Assert.assertEquals(ImmutableSet.of("r1", "r3"), result.getValid());
+    Assert.assertEquals(ImmutableSet.of(), result.getUnanswered());
+  }
+
+  @Test
+  public void checkTimeout() {
+    final ParallelReplicaValidator underTest =
+        new ParallelReplicaValidator(executor, Duration.ofMillis(100), Duration.ofSeconds(10));
+    final long before = System.nanoTime();
+    final ParallelReplicaValidator.Result result =
+        underTest.validate(
+            ImmutableSet.of("r1", "r2", "r3"), host -> host.equals("r2") ? this.hang() : true);
+
+    Assert.assertTrue(System.nanoTime() - before < TimeUnit.SECONDS.toNanos(5));
+    Assert.assertEquals(ImmutableSet.of("r1", "r3"), result.getValid());
+    Assert.assertEquals(ImmutableSet.of("r2"), result.getUnanswered());
+  }
+
+  @Test
+  public void deadline() {
+    final ParallelReplicaValidator underTest =
+        new ParallelReplicaValidator(executor, Duration.ofSeconds(30), Duration.ofMillis(200));
+    final long before = System.nanoTime();
+    final ParallelReplicaValidator.Result result =
+        underTest.validate(
+            ImmutableSet.of("r1", "r2", "r3"), host -> host.equals("r1") || this.hang());
+
+    Assert.assertTrue(System.nanoTime() - before < TimeUnit.SECONDS.toNanos(5));
+    Assert.assertEquals(ImmutableSet.of("r1"), result.getValid());
+    Assert.assertEquals(ImmutableSet.of("r2", "r3"), result.getUnanswered());
+  }
+
+  @Test
+  public void boundedByExecutor() {
+    final ExecutorService twoThreads = Executors.newFixedThreadPool(2);
+    try {
+      final AtomicInteger running = new AtomicInteger();
+      final AtomicInteger maxRunning = new AtomicInteger();
+      final ParallelReplicaValidator underTest =
+          new ParallelReplicaValidator(twoThreads, Duration.ofSeconds(5), Duration.ofSeconds(10));
+      final ParallelReplicaValidator.Result result =
+          underTest.validate(
+              ImmutableSet.of("r1", "r2", "r3", "r4", "r5", "r6"),
+              host -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                  Thread.sleep(20);
+                } catch (InterruptedException e) {
+                  return false;
+                } finally {
+                  running.decrementAndGet();
+                }
+                return true;
+              });
+
+      Assert.assertEquals(6, result.getValid().size());
+      Assert.assertTrue(maxRunning.get() <= 2);
+    } finally {
+      twoThreads.shutdownNow();
+    }
+  }
+}
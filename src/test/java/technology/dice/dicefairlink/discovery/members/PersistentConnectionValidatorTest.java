@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import technology.dice.dicefairlink.support.driver.StubConnection;
+import technology.dice.dicefairlink.support.driver.TestDriver;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PersistentConnectionValidatorTest {
+  private static final String REPLICA_1 = "jdbc:fairlinktestdriver://replica1:3306/db";
+  private static final String REPLICA_2 = "jdbc:fairlinktestdriver://replica2:3306/db";
+
+  private final List<StubConnection> opened = new ArrayList<>();
+  private final AtomicBoolean refuseConnections = new AtomicBoolean();
+
+  @Before
+  public void setup() {
+    this.opened.clear();
+    this.refuseConnections.set(false);
+  }
+
+  private PersistentConnectionValidator validator(Optional<String> validationQuery) {
+    return new PersistentConnectionValidator(
+        new TestDriver() {
+          @Override
+          public Connection connect(String url, Properties info) throws SQLException {
+            if (refuseConnections.get()) {
+              throw new SQLException("Connection refused");
+            }
+            final StubConnection connection = new StubConnection();
+            opened.add(connection);
+            return connection.connection();
+          }
+        },
+        Duration.ofSeconds(1),
+        validationQuery);
+  }
+
+  @Test
+  public void reusesHealthyConnection() {
+    final PersistentConnectionValidator underTest = this.validator(Optional.empty());
+    for (int i = 0; i < 5; i++) {
+      Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    }
+    Assert.assertEquals(1, this.opened.size());
+    Assert.assertEquals(5, this.opened.get(0).getIsValidChecks());
+    Assert.assertFalse(this.opened.get(0).isClosed());
+  }
+
+  @Test
+  public void reconnectsWhenBroken() {
+    final PersistentConnectionValidator underTest = this.validator(Optional.empty());
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    this.opened.get(0).setHealthy(false);
+
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    Assert.assertEquals(2, this.opened.size());
+    Assert.assertTrue(this.opened.get(0).isClosed());
+    Assert.assertFalse(this.opened.get(1).isClosed());
+  }
+
+  @Test
+  public void invalidWhenReconnectFails() {
+    final PersistentConnectionValidator underTest = this.validator(Optional.empty());
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    this.opened.get(0).setHealthy(false);
+    this.refuseConnections.set(true);
+
+    Assert.assertFalse(underTest.isValid(REPLICA_1, new Properties()));
+    Assert.assertTrue(this.opened.get(0).isClosed());
+  }
+
+  @Test
+  public void validationQuery() {
+    final PersistentConnectionValidator underTest = this.validator(Optional.of("SELECT 1"));
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    Assert.assertEquals(0, this.opened.get(0).getIsValidChecks());
+    Assert.assertEquals(2, this.opened.get(0).getQueries());
+
+    this.opened.get(0).setHealthy(false);
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    Assert.assertEquals(2, this.opened.size());
+  }
+
+  @Test
+  public void retainClosesForgottenReplicas() {
+    final PersistentConnectionValidator underTest = this.validator(Optional.empty());
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    Assert.assertTrue(underTest.isValid(REPLICA_2, new Properties()));
+
+    underTest.retain(ImmutableSet.of(REPLICA_2));
+    Assert.assertTrue(this.opened.get(0).isClosed());
+    Assert.assertFalse(this.opened.get(1).isClosed());
+  }
+
+  @Test
+  public void closeClosesEveryConnection() {
+    final PersistentConnectionValidator underTest = this.validator(Optional.empty());
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    Assert.assertTrue(underTest.isValid(REPLICA_2, new Properties()));
+
+    underTest.close();
+    Assert.assertTrue(this.opened.get(0).isClosed());
+    Assert.assertTrue(this.opened.get(1).isClosed());
+
+    Assert.assertTrue(underTest.isValid(REPLICA_1, new Properties()));
+    Assert.assertTrue(this.opened.get(2).isClosed());
+  }
+}
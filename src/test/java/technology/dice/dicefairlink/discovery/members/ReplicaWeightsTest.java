@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Optional;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReplicaWeightsTest {
+  @Test
+  public void sizeWeights() {
+    Assert.assertEquals(Optional.of(1), ReplicaWeights.sizeWeight("medium"));
+    Assert.assertEquals(Optional.of(2), ReplicaWeights.sizeWeight("large"));
+    Assert.assertEquals(Optional.of(4), ReplicaWeights.sizeWeight("xlarge"));
+    Assert.assertEquals(Optional.of(16), ReplicaWeights.sizeWeight("4xlarge"));
+    Assert.assertEquals(Optional.empty(), ReplicaWeights.sizeWeight("metal"));
+  }
+
+  @Test
+  public void weightsFollowInstanceClasses() {
+    final ReplicaWeights underTest = new ReplicaWeights(ImmutableMap.of());
+    Assert.assertEquals(
+        ImmutableMap.of("h1", 16, "h2", 2),
+        underTest.of(
+            ImmutableList.of("h1", "h2"),
+            ImmutableMap.of(
+                "h1", ReplicaMetadata.builder("r1").instanceClass("db.r6g.4xlarge").build(),
+                "h2", ReplicaMetadata.builder("r2").instanceClass("db.r6g.large").build())));
+  }
+
+  @Test
+  public void overridesWin() {
+    final ReplicaWeights underTest =
+        new ReplicaWeights(ImmutableMap.of("db.r6g.large", 5, "r3", 7, "h4", 9));
+    Assert.assertEquals(
+        ImmutableMap.of("h1", 16, "h2", 5, "h3", 7, "h4", 9),
+        underTest.of(
+            ImmutableList.of("h1", "h2", "h3", "h4"),
+            ImmutableMap.of(
+                "h1", ReplicaMetadata.builder("r1").instanceClass("db.r6g.4xlarge").build(),
+                "h2", ReplicaMetadata.builder("r2").instanceClass("db.r6g.large").build(),
+                "h3", ReplicaMetadata.builder("r3").instanceClass("db.r6g.large").build(),
+                "h4", ReplicaMetadata.builder("r4").instanceClass("db.r6g.large").build())));
+  }
+
+  @Test
+  public void unknownWeightsAreTheAverage() {
+    final ReplicaWeights underTest = new ReplicaWeights(ImmutableMap.of());
+    Assert.assertEquals(
+        ImmutableMap.of("h1", 16, "h2", 2, "fallback", 9),
+        underTest.of(
+            ImmutableList.of("h1", "h2", "fallback"),
+            ImmutableMap.of(
+                "h1", ReplicaMetadata.builder("r1").instanceClass("db.r6g.4xlarge").build(),
+                "h2", ReplicaMetadata.builder("r2").instanceClass("db.r6g.large").build())));
+    Assert.assertEquals(
+        ImmutableMap.of("h1", 1, "h2", 1),
+        underTest.of(ImmutableList.of("h1", "h2"), ImmutableMap.of()));
+  }
+}
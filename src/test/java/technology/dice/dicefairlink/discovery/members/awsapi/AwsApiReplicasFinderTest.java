@@ -8,22 +8,30 @@ import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.CharStreams;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
 import technology.dice.dicefairlink.discovery.members.ClusterInfo;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
 import technology.dice.dicefairlink.driver.FairlinkConnectionString;
 
 public class AwsApiReplicasFinderTest {
   @Rule public WireMockRule wireMockRule = new WireMockRule(11342);
+  private final List<AwsApiReplicasFinder> finders = new ArrayList<>();
 
   private Properties baseTestProperties() {
     Properties p = new Properties();
@@ -40,14 +48,32 @@ public class AwsApiReplicasFinderTest {
     return p;
   }
 
-  @Test
-  public void withMembersAllAvailable() throws URISyntaxException, IOException {
-    AwsApiReplicasFinder underTest =
+  private AwsApiReplicasFinder finder(String clusterId) throws URISyntaxException {
+    return this.finder(clusterId, this.baseTestProperties());
+  }
+
+  private AwsApiReplicasFinder finder(String clusterId, Properties properties)
+      throws URISyntaxException {
+    final AwsApiReplicasFinder finder =
         new AwsApiReplicasFinder(
-            new FairlinkConfiguration(this.baseTestProperties(), ImmutableMap.of()),
+            new FairlinkConfiguration(properties, ImmutableMap.of()),
             new FairlinkConnectionString(
-                "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123&param2=true&param3=abc",
+                "jdbc:fairlink:fairlinktestdriver://"
+                    + clusterId
+                    + ":123/db?param1=123&param2=true&param3=abc",
                 this.baseTestProperties()));
+    this.finders.add(finder);
+    return finder;
+  }
+
+  @After
+  public void tearDown() {
+    this.finders.forEach(AwsApiReplicasFinder::close);
+  }
+
+  @Test
+  public void withMembersAllAvailable() throws URISyntaxException, IOException {
+    AwsApiReplicasFinder underTest = this.finder("my-db-cluster-agd");
 
     String describeClusterResponse =
         CharStreams.toString(
@@ -78,20 +104,13 @@ public class AwsApiReplicasFinderTest {
 
     final ClusterInfo actual = underTest.discoverCluster();
     Assert.assertEquals(
-        new ClusterInfo(
-            "cluster-reader-endpoint",
-            ImmutableSet.of("my-db-cluster-agd-3", "my-db-cluster-agd-2")),
+        clusterInfo("cluster-reader-endpoint", "my-db-cluster-agd-3", "my-db-cluster-agd-2"),
         actual);
   }
 
   @Test
   public void withMembersOnReaderDeleting() throws URISyntaxException, IOException {
-    AwsApiReplicasFinder underTest =
-        new AwsApiReplicasFinder(
-            new FairlinkConfiguration(this.baseTestProperties(), ImmutableMap.of()),
-            new FairlinkConnectionString(
-                "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123&param2=true&param3=abc",
-                this.baseTestProperties()));
+    AwsApiReplicasFinder underTest = this.finder("my-db-cluster-agd");
 
     String describeClusterResponse =
         CharStreams.toString(
@@ -122,17 +141,12 @@ public class AwsApiReplicasFinderTest {
 
     final ClusterInfo actual = underTest.discoverCluster();
     Assert.assertEquals(
-        new ClusterInfo("cluster-reader-endpoint", ImmutableSet.of("my-db-cluster-agd-2")), actual);
+        clusterInfo("cluster-reader-endpoint", "my-db-cluster-agd-2"), actual);
   }
 
   @Test
   public void withoutMembers() throws URISyntaxException, IOException {
-    AwsApiReplicasFinder underTest =
-        new AwsApiReplicasFinder(
-            new FairlinkConfiguration(this.baseTestProperties(), ImmutableMap.of()),
-            new FairlinkConnectionString(
-                "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123&param2=true&param3=abc",
-                this.baseTestProperties()));
+    AwsApiReplicasFinder underTest = this.finder("sample-cluster");
 
     String response =
         CharStreams.toString(
@@ -152,26 +166,16 @@ public class AwsApiReplicasFinderTest {
 
   @Test(expected = RuntimeException.class)
   public void serverErrorDescribingCluster() throws URISyntaxException {
-    AwsApiReplicasFinder underTest =
-        new AwsApiReplicasFinder(
-            new FairlinkConfiguration(this.baseTestProperties(), ImmutableMap.of()),
-            new FairlinkConnectionString(
-                "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123&param2=true&param3=abc",
-                this.baseTestProperties()));
+    AwsApiReplicasFinder underTest = this.finder("aa");
 
     stubFor(post(urlEqualTo("/")).willReturn(aResponse().withStatus(500)));
 
     underTest.discoverCluster();
   }
 
-  @Test
+  @Test(expected = DiscoveryException.class)
   public void serverErrorDescribingInstances() throws URISyntaxException, IOException {
-    AwsApiReplicasFinder underTest =
-        new AwsApiReplicasFinder(
-            new FairlinkConfiguration(this.baseTestProperties(), ImmutableMap.of()),
-            new FairlinkConnectionString(
-                "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123&param2=true&param3=abc",
-                this.baseTestProperties()));
+    AwsApiReplicasFinder underTest = this.finder("my-db-cluster-agd");
 
     String describeClusterResponse =
         CharStreams.toString(
@@ -192,18 +196,12 @@ public class AwsApiReplicasFinderTest {
             .withRequestBody(WireMock.containing("Action=DescribeDBInstances"))
             .willReturn(aResponse().withStatus(500)));
 
-    final ClusterInfo actual = underTest.discoverCluster();
-    Assert.assertEquals(new ClusterInfo("cluster-reader-endpoint", ImmutableSet.of()), actual);
+    underTest.discoverCluster();
   }
 
   @Test(expected = RuntimeException.class)
   public void clusterNotFound() throws URISyntaxException, IOException {
-    AwsApiReplicasFinder underTest =
-        new AwsApiReplicasFinder(
-            new FairlinkConfiguration(this.baseTestProperties(), ImmutableMap.of()),
-            new FairlinkConnectionString(
-                "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123&param2=true&param3=abc",
-                this.baseTestProperties()));
+    AwsApiReplicasFinder underTest = this.finder("aa");
 
     String response =
         CharStreams.toString(
@@ -218,4 +216,208 @@ public class AwsApiReplicasFinderTest {
 
     underTest.discoverCluster();
   }
+
+  @Test
+  public void clustersShareOneBatchedCycle() throws URISyntaxException, IOException {
+    AwsApiReplicasFinder withMembers = this.finder("my-db-cluster-agd");
+    AwsApiReplicasFinder missing = this.finder("another-cluster");
+
+    String describeClusterResponse =
+        CharStreams.toString(
+            new InputStreamReader(
+                AwsApiReplicasFinderTest.class
+                    .getClassLoader()
+                    .getResourceAsStream(
+                        "technology/dice/dicefairlink/discovery/members/awsapi/withMembers.xml"),
+                Charsets.UTF_8));
+
+    String describeInstancesResponse =
+        CharStreams.toString(
+            new InputStreamReader(
+                AwsApiReplicasFinderTest.class
+                    .getClassLoader()
+                    .getResourceAsStream(
+                        "technology/dice/dicefairlink/discovery/members/awsapi/allAvailableDbInstances.xml"),
+                Charsets.UTF_8));
+
+    stubFor(
+        post(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBClusters"))
+            .willReturn(aResponse().withStatus(200).withBody(describeClusterResponse)));
+    stubFor(
+        post(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBInstances"))
+            .willReturn(aResponse().withStatus(200).withBody(describeInstancesResponse)));
+
+    Assert.assertEquals(
+        clusterInfo("cluster-reader-endpoint", "my-db-cluster-agd-3", "my-db-cluster-agd-2"),
+        withMembers.discoverCluster());
+    try {
+      missing.discoverCluster();
+      Assert.fail("another-cluster is not in the response");
+    } catch (DiscoveryException expected) {
+    }
+
+    WireMock.verify(
+        1,
+        WireMock.postRequestedFor(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBClusters"))
+            .withRequestBody(WireMock.containing("my-db-cluster-agd"))
+            .withRequestBody(WireMock.containing("another-cluster")));
+    WireMock.verify(
+        1,
+        WireMock.postRequestedFor(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBInstances"))
+            .withRequestBody(WireMock.containing("my-db-cluster-agd"))
+            .withRequestBody(WireMock.containing("another-cluster")));
+  }
+
+  @Test
+  public void jitteredClustersShareOneCyclePerInterval()
+      throws URISyntaxException, IOException, InterruptedException {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("replicaPollInterval", "2");
+    properties.setProperty("replicaPollIntervalMin", "2");
+    final List<AwsApiReplicasFinder> clusters =
+        ImmutableList.of(
+            this.finder("my-db-cluster-agd", properties),
+            this.finder("another-cluster", properties),
+            this.finder("third-cluster", properties));
+
+    String describeClusterResponse =
+        CharStreams.toString(
+            new InputStreamReader(
+                AwsApiReplicasFinderTest.class
+                    .getClassLoader()
+                    .getResourceAsStream(
+                        "technology/dice/dicefairlink/discovery/members/awsapi/withMembers.xml"),
+                Charsets.UTF_8));
+
+    String describeInstancesResponse =
+        CharStreams.toString(
+            new InputStreamReader(
+                AwsApiReplicasFinderTest.class
+                    .getClassLoader()
+                    .getResourceAsStream(
+                        "technology/dice/dicefairlink/discovery/members/awsapi/allAvailableDbInstances.xml"),
+                Charsets.UTF_8));
+
+    stubFor(
+        post(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBClusters"))
+            .willReturn(aResponse().withStatus(200).withBody(describeClusterResponse)));
+    stubFor(
+        post(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBInstances"))
+            .willReturn(aResponse().withStatus(200).withBody(describeInstancesResponse)));
+
+    // each cluster polls at its own offset within the interval, the last past half of it
+    final long startedAt = System.currentTimeMillis();
+    for (AwsApiReplicasFinder cluster : clusters) {
+      discoverQuietly(cluster);
+      Thread.sleep(600);
+    }
+    Assert.assertTrue(System.currentTimeMillis() - startedAt < 2000);
+    WireMock.verify(
+        1,
+        WireMock.postRequestedFor(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBClusters")));
+
+    Thread.sleep(Math.max(0, startedAt + 2100 - System.currentTimeMillis()));
+    clusters.forEach(AwsApiReplicasFinderTest::discoverQuietly);
+    WireMock.verify(
+        2,
+        WireMock.postRequestedFor(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBClusters")));
+    WireMock.verify(
+        2,
+        WireMock.postRequestedFor(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBInstances")));
+  }
+
+  private static void discoverQuietly(AwsApiReplicasFinder cluster) {
+    try {
+      cluster.discoverCluster();
+    } catch (DiscoveryException notInTheResponse) {
+    }
+  }
+
+  @Test
+  public void clustersShareOneCoordinatorUntilTheLastIsClosed() throws URISyntaxException {
+    final int before = AwsApiDiscoveryCoordinator.size();
+    AwsApiReplicasFinder first = this.finder("my-db-cluster-agd");
+    AwsApiReplicasFinder second = this.finder("another-cluster");
+    Assert.assertEquals(before + 1, AwsApiDiscoveryCoordinator.size());
+    first.close();
+    first.close();
+    Assert.assertEquals(before + 1, AwsApiDiscoveryCoordinator.size());
+    second.close();
+    Assert.assertEquals(before, AwsApiDiscoveryCoordinator.size());
+  }
+
+  @Test
+  public void asyncDiscoveryDoesNotWaitForTheApi() throws URISyntaxException, IOException {
+    AwsApiReplicasFinder underTest = this.finder("my-db-cluster-agd");
+
+    String describeClusterResponse =
+        CharStreams.toString(
+            new InputStreamReader(
+                AwsApiReplicasFinderTest.class
+                    .getClassLoader()
+                    .getResourceAsStream(
+                        "technology/dice/dicefairlink/discovery/members/awsapi/withMembers.xml"),
+                Charsets.UTF_8));
+
+    String describeInstancesResponse =
+        CharStreams.toString(
+            new InputStreamReader(
+                AwsApiReplicasFinderTest.class
+                    .getClassLoader()
+                    .getResourceAsStream(
+                        "technology/dice/dicefairlink/discovery/members/awsapi/allAvailableDbInstances.xml"),
+                Charsets.UTF_8));
+
+    stubFor(
+        post(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBClusters"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withFixedDelay(1000)
+                    .withBody(describeClusterResponse)));
+    stubFor(
+        post(urlEqualTo("/"))
+            .withRequestBody(WireMock.containing("Action=DescribeDBInstances"))
+            .willReturn(aResponse().withStatus(200).withBody(describeInstancesResponse)));
+
+    final CompletableFuture<ClusterInfo> actual = underTest.discoverClusterAsync();
+    Assert.assertFalse(actual.isDone());
+    Assert.assertEquals(
+        clusterInfo("cluster-reader-endpoint", "my-db-cluster-agd-3", "my-db-cluster-agd-2"),
+        actual.join());
+  }
+
+  @Test(expected = DiscoveryException.class)
+  public void apiCallTimeout() throws URISyntaxException {
+    final Properties properties = this.baseTestProperties();
+    properties.setProperty("awsApiCallTimeout", "1");
+    AwsApiReplicasFinder underTest = this.finder("my-db-cluster-agd", properties);
+
+    stubFor(post(urlEqualTo("/")).willReturn(aResponse().withStatus(200).withFixedDelay(5000)));
+
+    underTest.discoverCluster();
+  }
+
+  private static ClusterInfo clusterInfo(String readerEndpoint, String... replicas) {
+    final ImmutableMap.Builder<String, ReplicaMetadata> metadata = ImmutableMap.builder();
+    for (String replica : replicas) {
+      metadata.put(
+          replica,
+          ReplicaMetadata.builder(replica)
+              .instanceClass("db.r5.large")
+              .availabilityZone(replica.endsWith("-3") ? "eu-west-1b" : "eu-west-1a")
+              .build());
+    }
+    return new ClusterInfo(readerEndpoint, ImmutableSet.copyOf(replicas), metadata.build());
+  }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members.sql;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import technology.dice.dicefairlink.driver.FairlinkConnectionString;
+import technology.dice.dicefairlink.support.driver.StubConnection;
+import technology.dice.dicefairlink.support.driver.TestDriver;
+
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ManagedDiscoveryConnectionTest {
+  private final List<StubConnection> opened = new ArrayList<>();
+  private volatile boolean acceptConnections;
+  private volatile boolean healthyConnections;
+  private ManagedDiscoveryConnection underTest;
+
+  @Before
+  public void setup() throws URISyntaxException {
+    this.opened.clear();
+    this.acceptConnections = true;
+    this.healthyConnections = true;
+    this.underTest =
+        new ManagedDiscoveryConnection(
+            new TestDriver() {
+              @Override
+              public Connection connect(String url, Properties info) {
+                if (!acceptConnections) {
+                  return null;
+                }
+                final StubConnection connection = new StubConnection();
+                connection.setHealthy(healthyConnections);
+                connection.setRows(
+                    ImmutableList.of(
+                        ImmutableMap.of("server_id", "writer", "role", "WRITER"),
+                        ImmutableMap.of(
+                            "server_id",
+                            "replica1",
+                            "role",
+                            "READER",
+                            "replica_lag_ms",
+                            "12.5",
+                            "seconds_since_update",
+                            "2",
+                            "cpu",
+                            "37.5")));
+                opened.add(connection);
+                return connection.connection();
+              }
+            },
+            new FairlinkConnectionString(
+                "jdbc:fairlink:fairlinktestdriver://cluster:3306/db", new Properties()),
+            "select server_id, role from replica_host_status",
+            Duration.ofSeconds(2));
+  }
+
+  private Set<String> readers() throws SQLException {
+    return this.underTest.findInstances().stream()
+        .filter(instance -> instance.getRole() == DatabaseInstanceRole.READER)
+        .map(DatabaseInstance::getId)
+        .collect(Collectors.toSet());
+  }
+
+  @Test
+  public void reusedAcrossPolls() throws SQLException {
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(1, this.readers().size());
+    }
+    Assert.assertEquals(1, this.opened.size());
+    Assert.assertEquals(1, this.opened.get(0).getPreparedStatements());
+    Assert.assertEquals(3, this.opened.get(0).getQueries());
+  }
+
+  @Test
+  public void reconnectsWhenBroken() throws SQLException {
+    this.readers();
+    this.opened.get(0).setHealthy(false);
+
+    Assert.assertEquals(1, this.readers().size());
+    Assert.assertEquals(2, this.opened.size());
+    Assert.assertTrue(this.opened.get(0).isClosed());
+    Assert.assertFalse(this.opened.get(1).isClosed());
+  }
+
+  @Test
+  public void failsWhenReconnectFails() throws SQLException {
+    this.readers();
+    this.opened.get(0).setHealthy(false);
+    this.healthyConnections = false;
+
+    try {
+      this.readers();
+      Assert.fail("Expected discovery to fail");
+    } catch (SQLException e) {
+      Assert.assertEquals(2, this.opened.size());
+      Assert.assertTrue(this.opened.get(1).isClosed());
+    }
+
+    this.healthyConnections = true;
+    Assert.assertEquals(1, this.readers().size());
+  }
+
+  @Test
+  public void readsReplicaStatus() throws SQLException {
+    final Map<String, DatabaseInstance> instances =
+        this.underTest.findInstances().stream()
+            .collect(Collectors.toMap(DatabaseInstance::getId, instance -> instance));
+    Assert.assertEquals(
+        Optional.of(Duration.ofMillis(12).plusNanos(500_000)),
+        instances.get("replica1").getReplicaLag());
+    Assert.assertEquals(
+        Optional.of(Duration.ofSeconds(2)), instances.get("replica1").getSinceLastUpdate());
+    Assert.assertEquals(Optional.empty(), instances.get("writer").getReplicaLag());
+    Assert.assertEquals(Optional.empty(), instances.get("writer").getSinceLastUpdate());
+    Assert.assertEquals(Optional.of(37.5), instances.get("replica1").getCpuUtilization());
+    Assert.assertEquals(Optional.empty(), instances.get("writer").getCpuUtilization());
+  }
+
+  @Test(expected = SQLException.class)
+  public void driverNotAccepting() throws SQLException {
+    this.acceptConnections = false;
+    this.readers();
+  }
+
+  @Test
+  public void closedConnectionIsNotReopened() throws SQLException {
+    this.readers();
+    this.underTest.close();
+    Assert.assertTrue(this.opened.get(0).isClosed());
+
+    try {
+      this.readers();
+      Assert.fail("Expected discovery to fail");
+    } catch (SQLException e) {
+      Assert.assertEquals(1, this.opened.size());
+    }
+  }
+}
@@ -8,8 +8,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.testcontainers.containers.JdbcDatabaseContainer;
 import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.shaded.com.google.common.collect.ImmutableMap;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableSet;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
 import technology.dice.dicefairlink.discovery.members.ClusterInfo;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
 import technology.dice.dicefairlink.driver.FairlinkConnectionString;
 
 import java.io.IOException;
@@ -19,6 +22,7 @@ import java.net.URISyntaxException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Properties;
 
 public class MySqlReplicasFinderTest {
@@ -82,12 +86,21 @@ public class MySqlReplicasFinderTest {
             mysql.getJdbcDriverInstance(),
             mysql.getDatabaseName());
     final ClusterInfo actual = underTest.discoverCluster();
-    final ClusterInfo expected = new ClusterInfo(mysql.getJdbcUrl(), ImmutableSet.of("replica"));
+    final ClusterInfo expected =
+        new ClusterInfo(
+            mysql.getJdbcUrl(),
+            ImmutableSet.of("replica"),
+            ImmutableMap.of(
+                "replica",
+                ReplicaMetadata.builder("replica")
+                    .replicaLag(Duration.ZERO)
+                    .cpuUtilization(0.0)
+                    .build()));
     Assert.assertEquals(expected, actual);
   }
 
-  @Test
-  public void noConnectionsResultsInEmptySet()
+  @Test(expected = DiscoveryException.class)
+  public void noConnectionsIsADiscoveryFailure()
       throws URISyntaxException, IOException, SQLException {
     this.runScript("technology/dice/dicefairlink/discovery/members/sql/mysql/2replicas.sql");
     MySQLReplicasFinder underTest =
@@ -97,15 +110,11 @@ public class MySqlReplicasFinderTest {
                 this.baseTestProperties()),
             mysql.getJdbcDriverInstance(),
             mysql.getDatabaseName());
-    final ClusterInfo actual = underTest.discoverCluster();
-    final ClusterInfo expected =
-        new ClusterInfo(
-            mysql.getJdbcUrl().replace("mysql", "fairlinktestdriver"), ImmutableSet.of());
-    Assert.assertEquals(expected, actual);
+    underTest.discoverCluster();
   }
 
-  @Test
-  public void noTableResultsInEmptySet() throws URISyntaxException, IOException, SQLException {
+  @Test(expected = DiscoveryException.class)
+  public void noTableIsADiscoveryFailure() throws URISyntaxException, IOException, SQLException {
     this.runScript("technology/dice/dicefairlink/discovery/members/sql/mysql/2replicas.sql");
     MySQLReplicasFinder underTest =
         new MySQLReplicasFinder(
@@ -113,8 +122,6 @@ public class MySqlReplicasFinderTest {
                 mysql.getJdbcUrl().replace("mysql", "fairlink:mysql"), this.baseTestProperties()),
             mysql.getJdbcDriverInstance(),
             "i_do_not_exist");
-    final ClusterInfo actual = underTest.discoverCluster();
-    final ClusterInfo expected = new ClusterInfo(mysql.getJdbcUrl(), ImmutableSet.of());
-    Assert.assertEquals(expected, actual);
+    underTest.discoverCluster();
   }
 }
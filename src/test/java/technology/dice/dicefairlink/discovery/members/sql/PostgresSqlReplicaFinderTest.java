@@ -7,8 +7,11 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.shaded.com.google.common.collect.ImmutableMap;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableSet;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
 import technology.dice.dicefairlink.discovery.members.ClusterInfo;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
 import technology.dice.dicefairlink.driver.FairlinkConnectionString;
 
 import java.io.IOException;
@@ -18,6 +21,7 @@ import java.net.URISyntaxException;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Properties;
 
 /**
@@ -84,12 +88,20 @@ public class PostgresSqlReplicaFinderTest {
                   postgres.getJdbcUrl().replace("postgresql", "fairlink:postgresql"), this.baseTestProperties()),
               postgres.getJdbcDriverInstance());
       final ClusterInfo actual = underTest.discoverCluster();
-      final ClusterInfo expected = new ClusterInfo(postgres.getJdbcUrl(), ImmutableSet.of("replica"));
+      final ClusterInfo expected = new ClusterInfo(
+            postgres.getJdbcUrl(),
+            ImmutableSet.of("replica"),
+            ImmutableMap.of(
+                "replica",
+                ReplicaMetadata.builder("replica")
+                    .replicaLag(Duration.ZERO)
+                    .cpuUtilization(0.0)
+                    .build()));
       Assert.assertEquals(expected, actual);
     }
 
-    @Test
-    public void noConnectionsResultsInEmptySet()
+    @Test(expected = DiscoveryException.class)
+    public void noConnectionsIsADiscoveryFailure()
         throws URISyntaxException, IOException, SQLException {
       this.runScript("technology/dice/dicefairlink/discovery/members/sql/postgresql/2replicas.sql");
       PostgresSQLReplicasFinder underTest =
@@ -98,23 +110,18 @@ public class PostgresSqlReplicaFinderTest {
                   postgres.getJdbcUrl().replace("postgresql", "fairlink:fairlinktestdriver"),
                   this.baseTestProperties()),
               postgres.getJdbcDriverInstance());
-      final ClusterInfo actual = underTest.discoverCluster();
-      final ClusterInfo expected =
-          new ClusterInfo(
-              postgres.getJdbcUrl().replace("postgresql", "fairlinktestdriver"), ImmutableSet.of());
-      Assert.assertEquals(expected, actual);
+      underTest.discoverCluster();
     }
 
-    @Test
-    public void noFunctionResultsInEmptySet() throws URISyntaxException, IOException, SQLException {
+    @Test(expected = DiscoveryException.class)
+    public void noFunctionIsADiscoveryFailure()
+        throws URISyntaxException, IOException, SQLException {
       this.runScript("technology/dice/dicefairlink/discovery/members/sql/postgresql/drop_function.sql");
       PostgresSQLReplicasFinder underTest =
           new PostgresSQLReplicasFinder(
               new FairlinkConnectionString(
                   postgres.getJdbcUrl().replace("postgresql", "fairlink:postgresql"), this.baseTestProperties()),
               postgres.getJdbcDriverInstance());
-      final ClusterInfo actual = underTest.discoverCluster();
-      final ClusterInfo expected = new ClusterInfo(postgres.getJdbcUrl(), ImmutableSet.of());
-      Assert.assertEquals(expected, actual);
+      underTest.discoverCluster();
     }
 }
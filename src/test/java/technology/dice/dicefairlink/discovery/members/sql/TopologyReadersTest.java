@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.members.sql;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.Assert;
+import org.junit.Test;
+import technology.dice.dicefairlink.discovery.members.ClusterInfo;
+import technology.dice.dicefairlink.discovery.members.ReplicaMetadata;
+
+public class TopologyReadersTest {
+  private static final ImmutableSet<DatabaseInstance> INSTANCES =
+      ImmutableSet.of(
+          DatabaseInstance.builder(DatabaseInstanceRole.WRITER, "writer")
+              .replicaLag(Duration.ZERO)
+              .sinceLastUpdate(Duration.ofSeconds(1))
+              .build(),
+          DatabaseInstance.builder(DatabaseInstanceRole.READER, "current")
+              .replicaLag(Duration.ofMillis(20))
+              .sinceLastUpdate(Duration.ofSeconds(1))
+              .build(),
+          DatabaseInstance.builder(DatabaseInstanceRole.READER, "behind")
+              .replicaLag(Duration.ofSeconds(8))
+              .sinceLastUpdate(Duration.ofSeconds(1))
+              .build(),
+          DatabaseInstance.builder(DatabaseInstanceRole.READER, "deleted")
+              .replicaLag(Duration.ofMillis(20))
+              .sinceLastUpdate(Duration.ofHours(1))
+              .build(),
+          DatabaseInstance.builder(DatabaseInstanceRole.READER, "busy")
+              .sinceLastUpdate(Duration.ofSeconds(1))
+              .cpuUtilization(92.5)
+              .build(),
+          new DatabaseInstance(DatabaseInstanceRole.READER, "unknown"));
+
+  @Test
+  public void staleRowsAreIgnored() {
+    final ClusterInfo clusterInfo =
+        TopologyReaders.clusterInfo("cluster-ro", INSTANCES, Optional.empty());
+    Assert.assertEquals(
+        ImmutableSet.of("current", "behind", "busy", "unknown"), clusterInfo.getReplicas());
+    Assert.assertEquals(
+        ImmutableMap.of(
+            "current", ReplicaMetadata.builder("current").replicaLag(Duration.ofMillis(20)).build(),
+            "behind", ReplicaMetadata.builder("behind").replicaLag(Duration.ofSeconds(8)).build(),
+            "busy", ReplicaMetadata.builder("busy").cpuUtilization(92.5).build()),
+        clusterInfo.getReplicaMetadata());
+  }
+
+  @Test
+  public void replicasLaggingTooFarBehindAreIgnored() {
+    final ClusterInfo clusterInfo =
+        TopologyReaders.clusterInfo("cluster-ro", INSTANCES, Optional.of(Duration.ofSeconds(1)));
+    Assert.assertEquals(ImmutableSet.of("current", "busy", "unknown"), clusterInfo.getReplicas());
+  }
+}
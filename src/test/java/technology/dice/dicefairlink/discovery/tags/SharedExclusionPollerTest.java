@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.discovery.tags;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
+import technology.dice.dicefairlink.support.discovery.tags.FailingExcludedReplicasFinder;
+import technology.dice.dicefairlink.support.discovery.tags.FixedSetExcludedReplicasFinder;
+
+public class SharedExclusionPollerTest {
+  private static final ExclusionTag TAG = new ExclusionTag("Fairlink-Exclude", "true");
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void callersShareOnePoll() {
+    final CountingTagFilter delegate = new CountingTagFilter(ImmutableSet.of("r1"));
+    final SharedExclusionPoller underTest =
+        new SharedExclusionPoller(delegate, executor, Duration.ofMinutes(5));
+    for (int i = 0; i < 50; i++) {
+      Assert.assertEquals(ImmutableSet.of("r1"), underTest.listExcludedInstances(TAG));
+    }
+    Assert.assertEquals(1, delegate.polls.get());
+  }
+
+  @Test
+  public void snapshotIsRefreshedOnSchedule() throws InterruptedException {
+    final FixedSetExcludedReplicasFinder delegate =
+        new FixedSetExcludedReplicasFinder(ImmutableSet.of("r1"));
+    final SharedExclusionPoller underTest =
+        new SharedExclusionPoller(delegate, executor, Duration.ofSeconds(1));
+    Assert.assertEquals(ImmutableSet.of("r1"), underTest.listExcludedInstances(TAG));
+    delegate.updateExclusions(ImmutableSet.of("r2"));
+    Thread.sleep(1500);
+    Assert.assertEquals(ImmutableSet.of("r2"), underTest.listExcludedInstances(TAG));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void snapshotIsImmutable() {
+    final SharedExclusionPoller underTest =
+        new SharedExclusionPoller(
+            new FixedSetExcludedReplicasFinder(ImmutableSet.of("r1")),
+            executor,
+            Duration.ofMinutes(5));
+    underTest.listExcludedInstances(TAG).add("r2");
+  }
+
+  @Test(expected = DiscoveryException.class)
+  public void failedPollIsReported() {
+    final SharedExclusionPoller underTest =
+        new SharedExclusionPoller(
+            new FailingExcludedReplicasFinder(ImmutableSet.of("r1"), 0),
+            executor,
+            Duration.ofMinutes(5));
+    underTest.listExcludedInstances(TAG);
+  }
+
+  @Test
+  public void oneSharedPollerPerRegionAndCredentials() {
+    final AtomicInteger created = new AtomicInteger();
+    final SharedExclusionPollers underTest = new SharedExclusionPollers(() -> executor);
+    final TagFilter first =
+        underTest.get(
+            configuration("eu-west-1"),
+            () -> {
+              created.incrementAndGet();
+              return new FixedSetExcludedReplicasFinder(ImmutableSet.of());
+            });
+    final TagFilter second =
+        underTest.get(
+            configuration("eu-west-1"),
+            () -> {
+              created.incrementAndGet();
+              return new FixedSetExcludedReplicasFinder(ImmutableSet.of());
+            });
+    final TagFilter otherRegion =
+        underTest.get(
+            configuration("eu-west-2"),
+            () -> {
+              created.incrementAndGet();
+              return new FixedSetExcludedReplicasFinder(ImmutableSet.of());
+            });
+    Assert.assertSame(first.listExcludedInstances(TAG), second.listExcludedInstances(TAG));
+    Assert.assertNotSame(first.listExcludedInstances(TAG), otherRegion.listExcludedInstances(TAG));
+    Assert.assertEquals(2, created.get());
+    Assert.assertEquals(2, underTest.size());
+  }
+
+  @Test
+  public void pollerIsClosedWithItsLastClaim() {
+    final AtomicInteger closed = new AtomicInteger();
+    final SharedExclusionPollers underTest = new SharedExclusionPollers(() -> executor);
+    final Supplier<TagFilter> delegate =
+        () ->
+            new ClosingTagFilter() {
+              @Override
+              public void close() {
+                closed.incrementAndGet();
+              }
+            };
+    final SharedExclusionPollers.Claim first = underTest.get(configuration("eu-west-1"), delegate);
+    final SharedExclusionPollers.Claim second = underTest.get(configuration("eu-west-1"), delegate);
+
+    first.close();
+    first.close();
+    Assert.assertEquals(0, closed.get());
+    Assert.assertEquals(1, underTest.size());
+
+    second.close();
+    Assert.assertEquals(1, closed.get());
+    Assert.assertEquals(0, underTest.size());
+
+    underTest.get(configuration("eu-west-1"), delegate).close();
+    Assert.assertEquals(2, closed.get());
+  }
+
+  private static FairlinkConfiguration configuration(String region) {
+    Properties p = new Properties();
+    p.setProperty("auroraClusterRegion", region);
+    p.setProperty("discoveryMode", "AWS_API");
+    p.setProperty("replicaEndpointTemplate", "%s.rest-of-myhost.name");
+    return new FairlinkConfiguration(p, ImmutableMap.of());
+  }
+
+  private abstract static class ClosingTagFilter implements TagFilter, AutoCloseable {
+    @Override
+    public Set<String> listExcludedInstances(ExclusionTag tag) {
+      return ImmutableSet.of();
+    }
+  }
+
+  private static class CountingTagFilter extends FixedSetExcludedReplicasFinder {
+    private final AtomicInteger polls = new AtomicInteger();
+
+    private CountingTagFilter(Set<String> exclusions) {
+      super(exclusions);
+    }
+
+    @Override
+    public Set<String> listExcludedInstances(ExclusionTag tag) {
+      polls.incrementAndGet();
+      return super.listExcludedInstances(tag);
+    }
+  }
+}
@@ -11,15 +11,20 @@ import com.github.tomakehurst.wiremock.junit.WireMockRule;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.sql.DriverManager;
 import java.util.Properties;
 import java.util.Set;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
+import technology.dice.dicefairlink.StepByStepExecutor;
 import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.DiscoveryException;
 import technology.dice.dicefairlink.discovery.tags.ExclusionTag;
 import technology.dice.dicefairlink.discovery.tags.awsapi.ResourceGroupApiResponse.Resource;
 import technology.dice.dicefairlink.discovery.tags.awsapi.ResourceGroupApiResponse.Resource.Tag;
+import technology.dice.dicefairlink.driver.AuroraReadReplicasDriver;
+import technology.dice.dicefairlink.support.driver.TestDriver;
 
 public class ResourceGroupApiTagDiscoveryTest {
   @Rule public WireMockRule wireMockRule = new WireMockRule(11342);
@@ -87,30 +92,59 @@ public class ResourceGroupApiTagDiscoveryTest {
     Assert.assertEquals(ImmutableSet.of(), actual);
   }
 
-  @Test
-  public void exceptionAssumesEmpty() {
+  @Test(expected = DiscoveryException.class)
+  public void exceptionIsPropagated() {
     ResourceGroupApiTagDiscovery underTest =
         new ResourceGroupApiTagDiscovery(
             new FairlinkConfiguration(this.baseTestProperties(), ImmutableMap.of()));
 
     stubFor(post(urlEqualTo("/")).willReturn(aResponse().withStatus(500)));
 
-    final Set<String> actual =
-        underTest.listExcludedInstances(new ExclusionTag("FairlinkConfiguration", "true"));
-    Assert.assertEquals(ImmutableSet.of(), actual);
+    underTest.listExcludedInstances(new ExclusionTag("FairlinkConfiguration", "true"));
   }
 
-  @Test
-  public void noInstancesFound() {
+  @Test(expected = DiscoveryException.class)
+  public void notFoundIsPropagated() {
     ResourceGroupApiTagDiscovery underTest =
         new ResourceGroupApiTagDiscovery(
             new FairlinkConfiguration(this.baseTestProperties(), ImmutableMap.of()));
 
     stubFor(post(urlEqualTo("/")).willReturn(aResponse().withStatus(404)));
 
-    final Set<String> actual =
-        underTest.listExcludedInstances(new ExclusionTag("FairlinkConfiguration", "true"));
-    Assert.assertEquals(ImmutableSet.of(), actual);
+    underTest.listExcludedInstances(new ExclusionTag("FairlinkConfiguration", "true"));
+  }
+
+  @Test
+  public void clientIsClosedOnceTheDriverIsDeregistered() throws Exception {
+    DriverManager.registerDriver(new TestDriver());
+    stubFor(
+        post(urlEqualTo("/"))
+            .willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        this.stringifyResponse(
+                            new ResourceGroupApiResponse(ImmutableList.of(), "")))));
+    final Properties properties = this.baseTestProperties();
+    // a region of its own, so that no other test shares the client
+    properties.setProperty("auroraClusterRegion", "eu-central-1");
+    properties.setProperty("validateConnection", "false");
+    properties.setProperty("fallbackEndpoint", "cluster-ro");
+    final AuroraReadReplicasDriver underTest =
+        new AuroraReadReplicasDriver(
+            () -> new StepByStepExecutor(1),
+            () -> new StepByStepExecutor(1),
+            null,
+            null,
+            null,
+            null);
+    final int before = ResourceGroupApiTagDiscovery.clients();
+
+    underTest.connect("jdbc:fairlink:fairlinktestdriver://cluster:3306/id", properties);
+    Assert.assertEquals(before + 1, ResourceGroupApiTagDiscovery.clients());
+
+    underTest.deregister();
+    Assert.assertEquals(before, ResourceGroupApiTagDiscovery.clients());
   }
 
   private String stringifyResponse(ResourceGroupApiResponse response)
@@ -0,0 +1,21 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.driver;
+
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AuroraClusterRegistryTest {
+  @Test
+  public void hedgeExecutorIsSharedAndShutDownWithTheRegistry() {
+    final AuroraClusterRegistry underTest = new AuroraClusterRegistry();
+    final ScheduledExecutorService hedgeExecutor = underTest.hedgeExecutor();
+    Assert.assertSame(hedgeExecutor, underTest.hedgeExecutor());
+    underTest.close();
+    Assert.assertTrue(hedgeExecutor.isShutdown());
+  }
+}
@@ -14,7 +14,7 @@ import org.junit.Test;
 import org.testcontainers.containers.MySQLContainer;
 import technology.dice.dicefairlink.StepByStepExecutor;
 import technology.dice.dicefairlink.discovery.members.sql.MySqlReplicasFinderTest;
-import technology.dice.dicefairlink.iterators.CyclicIterator;
+import technology.dice.dicefairlink.iterators.AtomicCyclicIterator;
 import technology.dice.dicefairlink.iterators.SizedIterator;
 import technology.dice.dicefairlink.support.discovery.tags.FixedSetExcludedReplicasFinder;
 import technology.dice.dicefairlink.support.iterators.TestCyclicIterator;
@@ -106,7 +106,7 @@ public class AuroraReadReplicasDriverEndToEndTest {
 
   @Test
   public void readFromTwoReplicas() throws SQLException {
-    CyclicIterator<String>[] i = new CyclicIterator[1];
+    AtomicCyclicIterator<String>[] i = new AtomicCyclicIterator[1];
     AuroraReadReplicasDriver underTest =
         new AuroraReadReplicasDriver(
             () -> memberDiscoveryExecutor,
@@ -118,7 +118,7 @@ public class AuroraReadReplicasDriverEndToEndTest {
               @Nullable
               @Override
               public SizedIterator<String> apply(@Nullable Collection<String> strings) {
-                final CyclicIterator<String> iterator = TestCyclicIterator.of(strings);
+                final AtomicCyclicIterator<String> iterator = TestCyclicIterator.of(strings);
                 i[0] = iterator;
                 return iterator;
               }
@@ -161,7 +161,7 @@ public class AuroraReadReplicasDriverEndToEndTest {
 
   @Test
   public void refreshBeforeScheduledDiscovery() throws SQLException, URISyntaxException {
-    CyclicIterator<String>[] i = new CyclicIterator[1];
+    AtomicCyclicIterator<String>[] i = new AtomicCyclicIterator[1];
     AuroraReadReplicasDriver underTest =
         new AuroraReadReplicasDriver(
             () -> memberDiscoveryExecutor,
@@ -173,7 +173,7 @@ public class AuroraReadReplicasDriverEndToEndTest {
               @Nullable
               @Override
               public SizedIterator<String> apply(@Nullable Collection<String> strings) {
-                final CyclicIterator<String> iterator = TestCyclicIterator.of(strings);
+                final AtomicCyclicIterator<String> iterator = TestCyclicIterator.of(strings);
                 i[0] = iterator;
                 return iterator;
               }
@@ -200,7 +200,7 @@ public class AuroraReadReplicasDriverEndToEndTest {
         .executeUpdate("DELETE from replica_host_status WHERE SESSION_ID='another-sesion2'");
     masterConnection.close();
 
-    underTest.refreshReplicas(master.getJdbcUrl().replace("mysql", "fairlink:mysql"));
+    underTest.refreshReplicas(master.getJdbcUrl().replace("mysql", "fairlink:mysql")).join();
     foundData = readTwice(underTest);
 
     Assert.assertEquals(1, i[0].size());
@@ -216,7 +216,7 @@ public class AuroraReadReplicasDriverEndToEndTest {
 
   @Test
   public void refreshUnexistingEndpoint() throws SQLException, URISyntaxException {
-    CyclicIterator<String>[] i = new CyclicIterator[1];
+    AtomicCyclicIterator<String>[] i = new AtomicCyclicIterator[1];
     AuroraReadReplicasDriver underTest =
         new AuroraReadReplicasDriver(
             () -> memberDiscoveryExecutor,
@@ -228,7 +228,7 @@ public class AuroraReadReplicasDriverEndToEndTest {
               @Nullable
               @Override
               public SizedIterator<String> apply(@Nullable Collection<String> strings) {
-                final CyclicIterator<String> iterator = TestCyclicIterator.of(strings);
+                final AtomicCyclicIterator<String> iterator = TestCyclicIterator.of(strings);
                 i[0] = iterator;
                 return iterator;
               }
@@ -255,7 +255,7 @@ public class AuroraReadReplicasDriverEndToEndTest {
         .executeUpdate("DELETE from replica_host_status WHERE SESSION_ID='another-sesion2'");
     masterConnection.close();
 
-    underTest.refreshReplicas(slave1.getJdbcUrl().replace("mysql", "fairlink:mysql"));
+    underTest.refreshReplicas(slave1.getJdbcUrl().replace("mysql", "fairlink:mysql")).join();
     foundData = readTwice(underTest);
 
     Assert.assertEquals(2, i[0].size());
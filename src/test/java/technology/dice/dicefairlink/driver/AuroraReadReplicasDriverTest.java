@@ -7,16 +7,34 @@ package technology.dice.dicefairlink.driver;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.google.common.collect.ImmutableSet;
+import java.net.URISyntaxException;
+import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import technology.dice.dicefairlink.StepByStepExecutor;
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
+import technology.dice.dicefairlink.discovery.members.ClusterInfo;
+import technology.dice.dicefairlink.discovery.members.FairlinkMemberFinder;
+import technology.dice.dicefairlink.support.discovery.tags.FixedSetExcludedReplicasFinder;
 import technology.dice.dicefairlink.support.driver.TestDriver;
+import technology.dice.dicefairlink.support.iterators.TestCyclicIterator;
 
 public class AuroraReadReplicasDriverTest {
   private static final String VALID_JDBC_URL =
@@ -105,6 +123,24 @@ public class AuroraReadReplicasDriverTest {
         underTest.connect("jdbc:fairlinktestdriver://host:3306/id?useSSL=false", new Properties()));
   }
 
+  @Test
+  public void foreignUrlRejectedWithoutInitialisation() throws Exception {
+    AuroraReadReplicasDriver underTest =
+        new AuroraReadReplicasDriver(
+            () -> {
+              throw new IllegalStateException("must not initialise");
+            },
+            () -> {
+              throw new IllegalStateException("must not initialise");
+            },
+            null,
+            null,
+            null,
+            null);
+    Assert.assertNull(underTest.connect("jdbc:mysql://host:3306/id", null));
+    Assert.assertNull(underTest.connect(null, new Properties()));
+  }
+
   @Test
   public void failedToConnectIncompatibleDiscoveryMode() throws Exception {
     final Properties properties = new Properties();
@@ -148,4 +184,215 @@ public class AuroraReadReplicasDriverTest {
 
     Assert.assertNull(underTest.connect("jdbc:fairlink:fairlinktestdriver://host:3306/id?useSSL=false", properties));
   }
+
+  @Test
+  public void concurrentColdStartDiscoversOnce() throws Exception {
+    final int threads = 32;
+    final AtomicInteger memberFinders = new AtomicInteger();
+    final AtomicInteger discoveries = new AtomicInteger();
+    final Properties properties = new Properties();
+    properties.setProperty("discoveryMode", "AWS_API");
+    properties.setProperty("auroraClusterRegion", "eu-west-1");
+    properties.setProperty("replicaEndpointTemplate", "%s");
+    properties.setProperty("validateConnection", "false");
+    final String url = "jdbc:fairlink:fairlinktestdriver://cluster:3306/id";
+
+    AuroraReadReplicasDriver underTest =
+        new AuroraReadReplicasDriver(
+            () -> new StepByStepExecutor(1),
+            () -> new StepByStepExecutor(1),
+            null,
+            () -> {
+              memberFinders.incrementAndGet();
+              try {
+                return new FairlinkMemberFinder(
+                    new FairlinkConfiguration(properties, new HashMap<>()),
+                    new FairlinkConnectionString(url, properties),
+                    new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
+                    () -> {
+                      discoveries.incrementAndGet();
+                      try {
+                        Thread.sleep(200);
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return new ClusterInfo("cluster-ro", ImmutableSet.of("r1", "r2"));
+                    },
+                    TestCyclicIterator::of,
+                    (host, p) -> true);
+              } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+              }
+            },
+            null,
+            null);
+
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<Connection>> connections = new ArrayList<>(threads);
+      for (int i = 0; i < threads; i++) {
+        connections.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return underTest.connect(url, properties);
+                }));
+      }
+      start.countDown();
+      for (Future<Connection> connection : connections) {
+        Assert.assertNull(connection.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(1, memberFinders.get());
+    Assert.assertEquals(1, discoveries.get());
+  }
+
+  @Test
+  public void failedInitialisationIsRetried() throws Exception {
+    final AtomicInteger attempts = new AtomicInteger();
+    AuroraReadReplicasDriver underTest =
+        new AuroraReadReplicasDriver(
+            () -> {
+              attempts.incrementAndGet();
+              throw new NoSuchElementException();
+            },
+            () -> new StepByStepExecutor(1),
+            () -> new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
+            null,
+            null,
+            null);
+    Properties properties = new Properties();
+    properties.setProperty("discoveryMode", "AWS_API");
+    properties.setProperty("auroraClusterRegion", "eu-west-1");
+    properties.setProperty("replicaEndpointTemplate", "%s");
+    properties.setProperty("awsEndpointOverride", "http://localhost:1");
+
+    final String url = "jdbc:fairlink:fairlinktestdriver://host:3306/id";
+    Assert.assertNull(underTest.connect(url, properties));
+    Assert.assertNull(underTest.connect(url, properties));
+    Assert.assertEquals(2, attempts.get());
+  }
+
+  @Test
+  public void finderIsClosedWhenInitialisationFailsAndOnDeregistration() throws Exception {
+    final AtomicInteger closed = new AtomicInteger();
+    final AtomicInteger executors = new AtomicInteger();
+    final Properties properties = new Properties();
+    properties.setProperty("discoveryMode", "AWS_API");
+    properties.setProperty("auroraClusterRegion", "eu-west-1");
+    properties.setProperty("replicaEndpointTemplate", "%s");
+    properties.setProperty("validateConnection", "false");
+    final String url = "jdbc:fairlink:fairlinktestdriver://cluster:3306/id";
+
+    AuroraReadReplicasDriver underTest =
+        new AuroraReadReplicasDriver(
+            () -> {
+              if (executors.incrementAndGet() == 1) {
+                throw new IllegalStateException("no executor");
+              }
+              return new StepByStepExecutor(1);
+            },
+            () -> new StepByStepExecutor(1),
+            null,
+            () -> {
+              try {
+                return new FairlinkMemberFinder(
+                    new FairlinkConfiguration(properties, new HashMap<>()),
+                    new FairlinkConnectionString(url, properties),
+                    new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
+                    () -> new ClusterInfo("cluster-ro", ImmutableSet.of("r1")),
+                    TestCyclicIterator::of,
+                    (host, p) -> true) {
+                  @Override
+                  public void close() {
+                    closed.incrementAndGet();
+                    super.close();
+                  }
+                };
+              } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+              }
+            },
+            null,
+            null);
+
+    try {
+      underTest.connect(url, properties);
+      Assert.fail("the discovery executor could not be created");
+    } catch (IllegalStateException expected) {
+    }
+    Assert.assertEquals(1, closed.get());
+    Assert.assertNull(underTest.connect(url, properties));
+    Assert.assertEquals(1, closed.get());
+    underTest.deregister();
+    Assert.assertEquals(2, closed.get());
+    underTest.deregister();
+    Assert.assertEquals(2, closed.get());
+  }
+
+  @Test
+  public void endpointStillInitialisingIsClosedOnDeregistration() throws Exception {
+    final AtomicInteger closed = new AtomicInteger();
+    final CountDownLatch discovering = new CountDownLatch(1);
+    final CountDownLatch discover = new CountDownLatch(1);
+    final Properties properties = new Properties();
+    properties.setProperty("discoveryMode", "AWS_API");
+    properties.setProperty("auroraClusterRegion", "eu-west-1");
+    properties.setProperty("replicaEndpointTemplate", "%s");
+    properties.setProperty("validateConnection", "false");
+    final String url = "jdbc:fairlink:fairlinktestdriver://cluster:3306/id";
+
+    AuroraReadReplicasDriver underTest =
+        new AuroraReadReplicasDriver(
+            () -> new StepByStepExecutor(1),
+            () -> new StepByStepExecutor(1),
+            null,
+            () -> {
+              try {
+                return new FairlinkMemberFinder(
+                    new FairlinkConfiguration(properties, new HashMap<>()),
+                    new FairlinkConnectionString(url, properties),
+                    new FixedSetExcludedReplicasFinder(ImmutableSet.of()),
+                    () -> {
+                      discovering.countDown();
+                      try {
+                        discover.await();
+                      } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                      }
+                      return new ClusterInfo("cluster-ro", ImmutableSet.of("r1"));
+                    },
+                    TestCyclicIterator::of,
+                    (host, p) -> true) {
+                  @Override
+                  public void close() {
+                    closed.incrementAndGet();
+                    super.close();
+                  }
+                };
+              } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+              }
+            },
+            null,
+            null);
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<Connection> connecting =
+          executor.submit(() -> underTest.connect(url, properties));
+      Assert.assertTrue(discovering.await(5, TimeUnit.SECONDS));
+      underTest.deregister();
+      Assert.assertEquals(0, closed.get());
+      discover.countDown();
+      connecting.get(5, TimeUnit.SECONDS);
+      Assert.assertEquals(1, closed.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -0,0 +1,43 @@
+package technology.dice.dicefairlink.driver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URISyntaxException;
+import java.util.Properties;
+
+public class FairlinkConnectionStringCacheTest {
+  private static final String URL = "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123";
+
+  @Test
+  public void parsesOnce() throws URISyntaxException {
+    final FairlinkConnectionStringCache underTest = new FairlinkConnectionStringCache();
+    final FairlinkConnectionString first = underTest.get(URL, new Properties());
+    final FairlinkConnectionString second = underTest.get(URL, new Properties());
+    Assert.assertSame(first, second);
+    Assert.assertEquals("fairlinktestdriver", second.getDelegateProtocol());
+    Assert.assertEquals(1, underTest.size());
+  }
+
+  @Test
+  public void bounded() throws URISyntaxException {
+    final FairlinkConnectionStringCache underTest = new FairlinkConnectionStringCache(2);
+    underTest.get(URL + "1", new Properties());
+    underTest.get(URL + "2", new Properties());
+    final FairlinkConnectionString overflow = underTest.get(URL + "3", new Properties());
+    Assert.assertEquals(2, underTest.size());
+    Assert.assertEquals(URL + "3", overflow.getFairlinkUri());
+    Assert.assertNotSame(overflow, underTest.get(URL + "3", new Properties()));
+    Assert.assertSame(underTest.get(URL + "1", new Properties()), underTest.get(URL + "1", null));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void doesNotCacheInvalid() throws URISyntaxException {
+    final FairlinkConnectionStringCache underTest = new FairlinkConnectionStringCache();
+    try {
+      underTest.get("jdbc:fairlinktestdriver://aa:123/db", new Properties());
+    } finally {
+      Assert.assertEquals(0, underTest.size());
+    }
+  }
+}
@@ -4,6 +4,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.Properties;
 
 public class FairlinkConnectionStringTest {
@@ -96,4 +97,58 @@ public class FairlinkConnectionStringTest {
     new FairlinkConnectionString(
         "jdbc:fairlinktestdriver://aa:123/db?param1=123&param2=true&param3=abc", new Properties());
   }
+
+  @Test
+  public void prefix() {
+    Assert.assertTrue(
+        FairlinkConnectionString.hasFairlinkPrefix("jdbc:fairlink:fairlinktestdriver://aa"));
+    Assert.assertTrue(
+        FairlinkConnectionString.hasFairlinkPrefix("jdbc:auroraro:fairlinktestdriver://aa"));
+    Assert.assertFalse(FairlinkConnectionString.hasFairlinkPrefix("jdbc:mysql://aa:123/db"));
+    Assert.assertFalse(FairlinkConnectionString.hasFairlinkPrefix("jdbc:fairlinktestdriver://aa"));
+    Assert.assertFalse(FairlinkConnectionString.hasFairlinkPrefix(""));
+  }
+
+  @Test
+  public void withProperties() throws URISyntaxException {
+    String connString = "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123";
+    final Properties properties = new Properties();
+    properties.setProperty("a", "b");
+    final Properties otherProperties = new Properties();
+    otherProperties.setProperty("c", "d");
+    final FairlinkConnectionString original = new FairlinkConnectionString(connString, properties);
+    final FairlinkConnectionString underTest = original.withProperties(otherProperties);
+    Assert.assertEquals(connString, underTest.getFairlinkUri());
+    Assert.assertEquals("fairlinktestdriver", underTest.getDelegateProtocol());
+    Assert.assertEquals("aa", underTest.getHost());
+    Assert.assertEquals(
+        "jdbc:fairlinktestdriver://anotherHost:123/db?param1=123",
+        underTest.delegateConnectionString("anotherHost"));
+    Assert.assertSame(otherProperties, underTest.getProperties());
+    Assert.assertSame(properties, original.getProperties());
+  }
+
+  @Test
+  public void prerenderedDelegates() throws URISyntaxException {
+    final FairlinkConnectionString underTest =
+        new FairlinkConnectionString(
+            "jdbc:fairlink:fairlinktestdriver://aa:123/db?param1=123", new Properties());
+    final FairlinkConnectionString copy = underTest.withProperties(new Properties());
+    underTest.prerenderDelegates(Arrays.asList("r1", "r2:999"));
+
+    final String r1 = underTest.delegateConnectionString("r1");
+    Assert.assertEquals("jdbc:fairlinktestdriver://r1:123/db?param1=123", r1);
+    Assert.assertSame(r1, underTest.delegateConnectionString("r1"));
+    Assert.assertSame(r1, copy.delegateConnectionString("r1"));
+    Assert.assertEquals(
+        "jdbc:fairlinktestdriver://r2:999/db?param1=123", copy.delegateConnectionString("r2:999"));
+
+    underTest.prerenderDelegates(Arrays.asList("r1", "r3"));
+    Assert.assertSame(r1, underTest.delegateConnectionString("r1"));
+    Assert.assertNotSame(
+        underTest.delegateConnectionString("r2:999"), underTest.delegateConnectionString("r2:999"));
+    Assert.assertEquals(
+        "jdbc:fairlinktestdriver://r2:999/db?param1=123",
+        underTest.delegateConnectionString("r2:999"));
+  }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.driver;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import technology.dice.dicefairlink.support.driver.StubConnection;
+
+public class TrackedConnectionTest {
+  private final AtomicInteger outstanding = new AtomicInteger(2);
+  private final StubConnection stub = new StubConnection();
+  private final TrackedConnection underTest =
+      new TrackedConnection(stub.connection(), outstanding);
+
+  @Test
+  public void closeReleasesOnce() throws SQLException {
+    underTest.close();
+    underTest.close();
+    Assert.assertTrue(stub.isClosed());
+    Assert.assertEquals(1, outstanding.get());
+  }
+
+  @Test
+  public void abortReleasesOnce() throws SQLException {
+    underTest.abort(Runnable::run);
+    underTest.close();
+    Assert.assertTrue(stub.isClosed());
+    Assert.assertEquals(1, outstanding.get());
+  }
+
+  @Test
+  public void unwrapsToItself() throws SQLException {
+    Assert.assertTrue(underTest.isWrapperFor(TrackedConnection.class));
+    Assert.assertSame(underTest, underTest.unwrap(TrackedConnection.class));
+    Assert.assertSame(underTest, underTest.unwrap(Connection.class));
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.health;
+
+import java.time.Duration;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConnectLatenciesTest {
+  private final ConnectLatencies underTest = new ConnectLatencies();
+
+  @Test
+  public void noPercentileUntilEnoughSamples() {
+    for (int i = 0; i < 19; i++) {
+      underTest.record(Duration.ofMillis(10));
+    }
+    Assert.assertFalse(underTest.percentile(95).isPresent());
+    underTest.record(Duration.ofMillis(10));
+    Assert.assertEquals(Duration.ofMillis(10), underTest.percentile(95).get());
+  }
+
+  @Test
+  public void percentiles() {
+    for (int i = 1; i <= 100; i++) {
+      underTest.record(Duration.ofMillis(i));
+    }
+    Assert.assertEquals(Duration.ofMillis(50), underTest.percentile(50).get());
+    Assert.assertEquals(Duration.ofMillis(95), underTest.percentile(95).get());
+    Assert.assertEquals(Duration.ofMillis(100), underTest.percentile(100).get());
+  }
+
+  @Test
+  public void onlyRecentSamplesCount() {
+    for (int i = 0; i < 256; i++) {
+      underTest.record(Duration.ofSeconds(1));
+    }
+    for (int i = 0; i < 256; i++) {
+      underTest.record(Duration.ofMillis(5));
+    }
+    Assert.assertEquals(Duration.ofMillis(5), underTest.percentile(100).get());
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.health;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReplicaCircuitBreakersTest {
+  private final AtomicLong now = new AtomicLong(0);
+  private final ReplicaCircuitBreakers underTest =
+      new ReplicaCircuitBreakers(3, Duration.ofSeconds(10), now::get);
+
+  @Test
+  public void opensAfterConsecutiveFailures() {
+    Assert.assertFalse(underTest.onFailure("r1"));
+    Assert.assertFalse(underTest.onFailure("r1"));
+    Assert.assertTrue(underTest.tryAcquire("r1"));
+    Assert.assertTrue(underTest.onFailure("r1"));
+    Assert.assertFalse(underTest.tryAcquire("r1"));
+    Assert.assertTrue(underTest.isOpen("r1"));
+    Assert.assertTrue(underTest.tryAcquire("r2"));
+  }
+
+  @Test
+  public void successResetsTheFailureCount() {
+    underTest.onFailure("r1");
+    underTest.onFailure("r1");
+    underTest.onSuccess("r1");
+    Assert.assertFalse(underTest.onFailure("r1"));
+    Assert.assertTrue(underTest.tryAcquire("r1"));
+  }
+
+  @Test
+  public void halfOpenLetsOneProbeThrough() {
+    this.open("r1");
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    Assert.assertTrue(underTest.tryAcquire("r1"));
+    Assert.assertFalse(underTest.tryAcquire("r1"));
+    underTest.onSuccess("r1");
+    Assert.assertFalse(underTest.isOpen("r1"));
+    Assert.assertTrue(underTest.tryAcquire("r1"));
+  }
+
+  @Test
+  public void failedProbeReopens() {
+    this.open("r1");
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    Assert.assertTrue(underTest.tryAcquire("r1"));
+    Assert.assertFalse(underTest.onFailure("r1"));
+    now.addAndGet(Duration.ofSeconds(9).toNanos());
+    Assert.assertFalse(underTest.tryAcquire("r1"));
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    Assert.assertTrue(underTest.tryAcquire("r1"));
+  }
+
+  @Test
+  public void lostProbeIsRetriedAfterTheOpenInterval() {
+    this.open("r1");
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    Assert.assertTrue(underTest.tryAcquire("r1"));
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    Assert.assertTrue(underTest.tryAcquire("r1"));
+  }
+
+  @Test
+  public void zeroThresholdDisablesTheBreakers() {
+    final ReplicaCircuitBreakers disabled =
+        new ReplicaCircuitBreakers(0, Duration.ofSeconds(10), now::get);
+    for (int i = 0; i < 10; i++) {
+      Assert.assertFalse(disabled.onFailure("r1"));
+    }
+    Assert.assertTrue(disabled.tryAcquire("r1"));
+  }
+
+  @Test
+  public void connectionFailures() {
+    Assert.assertTrue(
+        ReplicaCircuitBreakers.isConnectionFailure(new SQLNonTransientConnectionException()));
+    Assert.assertTrue(
+        ReplicaCircuitBreakers.isConnectionFailure(
+            new SQLException("Communications link failure", "08S01")));
+    Assert.assertFalse(
+        ReplicaCircuitBreakers.isConnectionFailure(
+            new SQLException("Access denied", "28000")));
+    Assert.assertFalse(ReplicaCircuitBreakers.isConnectionFailure(new SQLException()));
+  }
+
+  private void open(String replica) {
+    for (int i = 0; i < 3; i++) {
+      underTest.onFailure(replica);
+    }
+  }
+}
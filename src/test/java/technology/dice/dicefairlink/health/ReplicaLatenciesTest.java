@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.health;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReplicaLatenciesTest {
+  private final AtomicLong now = new AtomicLong(0);
+  private final ReplicaLatencies underTest =
+      new ReplicaLatencies(Duration.ofSeconds(30), now::get);
+
+  @Test
+  public void unknownReplicasScoreZero() {
+    Assert.assertEquals(0, underTest.score("r1"), 0);
+    Assert.assertEquals(0, underTest.score(null), 0);
+  }
+
+  @Test
+  public void slowReplicaScoresWorse() {
+    for (int i = 0; i < 10; i++) {
+      underTest.onSuccess("fast", Duration.ofMillis(5 + i % 3));
+      underTest.onSuccess("slow", Duration.ofMillis(80 + i % 7));
+      now.addAndGet(Duration.ofMillis(100).toNanos());
+    }
+    Assert.assertTrue(underTest.score("fast") < underTest.score("slow"));
+    Assert.assertEquals(
+        Duration.ofMillis(6).toNanos(), underTest.score("fast"), Duration.ofMillis(2).toNanos());
+  }
+
+  @Test
+  public void latencySpikeMovesTheAverageGradually() {
+    underTest.onSuccess("r1", Duration.ofMillis(10));
+    underTest.onSuccess("r1", Duration.ofMillis(110));
+    Assert.assertEquals(
+        Duration.ofMillis(40).toNanos(), underTest.score("r1"), Duration.ofMillis(1).toNanos());
+  }
+
+  @Test
+  public void failuresArePenalised() {
+    underTest.onSuccess("healthy", Duration.ofMillis(50));
+    underTest.onSuccess("failing", Duration.ofMillis(5));
+    underTest.onFailure("failing", Duration.ofMillis(5));
+    Assert.assertTrue(underTest.score("healthy") < underTest.score("failing"));
+  }
+
+  @Test
+  public void averagesDecayWhileNotConnectedTo() {
+    underTest.onSuccess("r1", Duration.ofMillis(100));
+    final double before = underTest.score("r1");
+    now.addAndGet(Duration.ofSeconds(30).toNanos());
+    Assert.assertEquals(before / Math.E, underTest.score("r1"), 1);
+  }
+}
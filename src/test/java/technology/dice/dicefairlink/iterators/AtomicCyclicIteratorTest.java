@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.iterators;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+public class AtomicCyclicIteratorTest {
+
+  @Test(expected = NoSuchElementException.class)
+  public void empty() {
+    final AtomicCyclicIterator<String> underTest = AtomicCyclicIterator.of(Collections.emptyList());
+    Assert.assertFalse(underTest.hasNext());
+    Assert.assertEquals(0, underTest.size());
+    underTest.next();
+  }
+
+  @Test
+  public void cyclesInOrder() {
+    final AtomicCyclicIterator<String> underTest =
+        AtomicCyclicIterator.of(ImmutableList.of("r1", "r2", "r3"));
+    Assert.assertEquals(3, underTest.size());
+    Assert.assertEquals("r1", underTest.next());
+    Assert.assertEquals("r2", underTest.next());
+    Assert.assertEquals("r3", underTest.next());
+    Assert.assertEquals("r1", underTest.next());
+  }
+
+  @Test
+  public void singleElement() {
+    final AtomicCyclicIterator<String> underTest = AtomicCyclicIterator.of(ImmutableList.of("r1"));
+    for (int i = 0; i < 10; i++) {
+      Assert.assertTrue(underTest.hasNext());
+      Assert.assertEquals("r1", underTest.next());
+    }
+  }
+
+  @Test
+  public void skipsRepeated() {
+    final AtomicCyclicIterator<String> underTest =
+        AtomicCyclicIterator.of(ImmutableList.of("r1", "r1", "r2"));
+    Assert.assertEquals("r1", underTest.next());
+    Assert.assertEquals("r2", underTest.next());
+    Assert.assertEquals("r1", underTest.next());
+    Assert.assertEquals("r2", underTest.next());
+  }
+
+  @Test
+  public void continuesAfterTheElementAReplacedIteratorReturnedLast() {
+    final AtomicCyclicIterator<String> replaced =
+        AtomicCyclicIterator.of(ImmutableList.of("r2", "r1"));
+    Assert.assertFalse(replaced.lastReturned().isPresent());
+    Assert.assertEquals("r2", replaced.next());
+    Assert.assertEquals("r2", replaced.lastReturned().get());
+    final AtomicCyclicIterator<String> underTest =
+        AtomicCyclicIterator.of(ImmutableList.of("r2", "r3"));
+    underTest.continueAfter(replaced.lastReturned().get());
+    Assert.assertEquals("r3", underTest.next());
+    Assert.assertEquals("r2", underTest.next());
+    final AtomicCyclicIterator<String> single = AtomicCyclicIterator.of(ImmutableList.of("r2"));
+    single.continueAfter("r2");
+    Assert.assertEquals("r2", single.next());
+  }
+
+  @Test
+  public void allIdenticalElements() {
+    final AtomicCyclicIterator<String> underTest =
+        AtomicCyclicIterator.of(ImmutableList.of("r1", "r1", "r1"));
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals("r1", underTest.next());
+    }
+  }
+
+  @Test
+  public void nullEntries() {
+    final List<String> acceptsNulls = new ArrayList<>(3);
+    acceptsNulls.add(null);
+    acceptsNulls.add(null);
+    acceptsNulls.add("r3");
+    final AtomicCyclicIterator<String> underTest = AtomicCyclicIterator.of(acceptsNulls);
+    Assert.assertNull(underTest.next());
+    Assert.assertNull(underTest.next());
+    Assert.assertEquals("r3", underTest.next());
+  }
+
+  @Test
+  public void evenDistributionUnderContention() throws Exception {
+    final int threads = 16;
+    final int picksPerThread = 30_000;
+    final List<String> replicas = ImmutableList.of("r1", "r2", "r3", "r4", "r5", "r6");
+    final AtomicCyclicIterator<String> underTest = AtomicCyclicIterator.of(replicas);
+    final Map<String, LongAdder> picks = new ConcurrentHashMap<>();
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<?>> futures = new ArrayList<>(threads);
+      for (int t = 0; t < threads; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < picksPerThread; i++) {
+                    picks.computeIfAbsent(underTest.next(), r -> new LongAdder()).increment();
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(replicas.size(), picks.size());
+    final long expected = (long) threads * picksPerThread / replicas.size();
+    picks.values().forEach(count -> Assert.assertEquals(expected, count.sum()));
+  }
+}
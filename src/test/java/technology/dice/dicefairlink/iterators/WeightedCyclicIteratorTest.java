@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.iterators;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WeightedCyclicIteratorTest {
+  @Test(expected = NoSuchElementException.class)
+  public void empty() {
+    WeightedCyclicIterator.of(ImmutableMap.<String, Integer>of()).next();
+  }
+
+  @Test
+  public void turnsAreProportionalToWeights() {
+    final WeightedCyclicIterator<String> underTest =
+        WeightedCyclicIterator.of(ImmutableMap.of("big", 16, "small", 2, "medium", 4));
+    Assert.assertEquals(3, underTest.size());
+    Assert.assertEquals(11, underTest.cycleLength());
+    final Map<String, Integer> turns = this.turns(underTest, 11 * 100);
+    Assert.assertEquals(800, (int) turns.get("big"));
+    Assert.assertEquals(200, (int) turns.get("medium"));
+    Assert.assertEquals(100, (int) turns.get("small"));
+  }
+
+  @Test
+  public void turnsAreSpreadAcrossTheCycle() {
+    final WeightedCyclicIterator<String> underTest =
+        WeightedCyclicIterator.of(ImmutableMap.of("a", 4, "b", 4, "c", 1));
+    String previous = underTest.next();
+    for (int i = 0; i < 100; i++) {
+      final String current = underTest.next();
+      Assert.assertNotEquals(previous, current);
+      previous = current;
+    }
+  }
+
+  @Test
+  public void longCyclesAreScaledDown() {
+    final WeightedCyclicIterator<String> underTest =
+        WeightedCyclicIterator.of(ImmutableMap.of("huge", 100_000, "tiny", 1));
+    Assert.assertTrue(underTest.cycleLength() <= WeightedCyclicIterator.MAX_CYCLE_LENGTH + 1);
+    final Map<String, Integer> turns = this.turns(underTest, underTest.cycleLength());
+    Assert.assertEquals(1, (int) turns.get("tiny"));
+  }
+
+  @Test
+  public void equalWeightsAreARoundRobin() {
+    final WeightedCyclicIterator<String> underTest =
+        WeightedCyclicIterator.of(ImmutableMap.of("a", 3, "b", 3, "c", 3));
+    Assert.assertEquals(3, underTest.cycleLength());
+    Assert.assertEquals(ImmutableMap.of("a", 1, "b", 1, "c", 1), this.turns(underTest, 3));
+  }
+
+  private Map<String, Integer> turns(WeightedCyclicIterator<String> iterator, int calls) {
+    final Map<String, Integer> turns = new HashMap<>();
+    for (int i = 0; i < calls; i++) {
+      turns.merge(iterator.next(), 1, Integer::sum);
+    }
+    return turns;
+  }
+}
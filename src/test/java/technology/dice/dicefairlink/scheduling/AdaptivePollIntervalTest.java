@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.scheduling;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+import technology.dice.dicefairlink.discovery.members.DiscoveryOutcome;
+
+public class AdaptivePollIntervalTest {
+  private final AtomicLong now = new AtomicLong(0);
+
+  private AdaptivePollInterval underTest(double jitter) {
+    return new AdaptivePollInterval(
+        Duration.ofSeconds(2),
+        Duration.ofSeconds(30),
+        Duration.ofSeconds(60),
+        now::get,
+        () -> jitter);
+  }
+
+  @Test
+  public void stableTopologyStaysAtMaximum() {
+    final AdaptivePollInterval underTest = this.underTest(0);
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals(Duration.ofSeconds(30), underTest.next(DiscoveryOutcome.UNCHANGED));
+    }
+  }
+
+  @Test
+  public void changePollsFastForTheWindowThenBacksOff() {
+    final AdaptivePollInterval underTest = this.underTest(0);
+    Assert.assertEquals(Duration.ofSeconds(2), underTest.next(DiscoveryOutcome.CHANGED));
+    now.addAndGet(Duration.ofSeconds(59).toNanos());
+    Assert.assertEquals(Duration.ofSeconds(2), underTest.next(DiscoveryOutcome.UNCHANGED));
+    now.addAndGet(Duration.ofSeconds(2).toNanos());
+    Assert.assertEquals(Duration.ofSeconds(3), underTest.next(DiscoveryOutcome.UNCHANGED));
+    Assert.assertEquals(Duration.ofMillis(4500), underTest.next(DiscoveryOutcome.UNCHANGED));
+    Duration interval = Duration.ZERO;
+    for (int i = 0; i < 10; i++) {
+      interval = underTest.next(DiscoveryOutcome.UNCHANGED);
+    }
+    Assert.assertEquals(Duration.ofSeconds(30), interval);
+  }
+
+  @Test
+  public void accelerateStartsTheFastWindow() {
+    final AdaptivePollInterval underTest = this.underTest(0);
+    underTest.accelerate();
+    Assert.assertEquals(Duration.ofSeconds(2), underTest.next(DiscoveryOutcome.UNCHANGED));
+  }
+
+  @Test
+  public void failuresBackOffExponentiallyUpToTheMaximum() {
+    final AdaptivePollInterval underTest = this.underTest(0);
+    Assert.assertEquals(Duration.ofSeconds(2), underTest.next(DiscoveryOutcome.FAILED));
+    Assert.assertEquals(Duration.ofSeconds(4), underTest.next(DiscoveryOutcome.FAILED));
+    Assert.assertEquals(Duration.ofSeconds(8), underTest.next(DiscoveryOutcome.FAILED));
+    Assert.assertEquals(Duration.ofSeconds(16), underTest.next(DiscoveryOutcome.FAILED));
+    Assert.assertEquals(Duration.ofSeconds(30), underTest.next(DiscoveryOutcome.FAILED));
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals(Duration.ofSeconds(30), underTest.next(DiscoveryOutcome.FAILED));
+    }
+  }
+
+  @Test
+  public void failureBackOffIsJittered() {
+    final AdaptivePollInterval underTest = this.underTest(1);
+    underTest.next(DiscoveryOutcome.FAILED);
+    underTest.next(DiscoveryOutcome.FAILED);
+    Assert.assertEquals(Duration.ofSeconds(4), underTest.next(DiscoveryOutcome.FAILED));
+  }
+
+  @Test
+  public void successResetsTheFailureBackOff() {
+    final AdaptivePollInterval underTest = this.underTest(0);
+    underTest.next(DiscoveryOutcome.FAILED);
+    underTest.next(DiscoveryOutcome.FAILED);
+    underTest.next(DiscoveryOutcome.UNCHANGED);
+    Assert.assertEquals(Duration.ofSeconds(2), underTest.next(DiscoveryOutcome.FAILED));
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.scheduling;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ClusterScheduledExecutorTest {
+  private final SharedScheduler scheduler = new SharedScheduler(2);
+
+  @Test
+  public void runsOnDaemonThreads() throws Exception {
+    final ScheduledExecutorService underTest = scheduler.newClusterExecutor();
+    final ScheduledFuture<Boolean> daemon =
+        underTest.schedule(() -> Thread.currentThread().isDaemon(), 10, TimeUnit.MILLISECONDS);
+    Assert.assertTrue(daemon.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void cancelledTaskDoesNotRun() throws Exception {
+    final ScheduledExecutorService underTest = scheduler.newClusterExecutor();
+    final AtomicBoolean ran = new AtomicBoolean();
+    final ScheduledFuture<?> future =
+        underTest.schedule(() -> ran.set(true), 200, TimeUnit.MILLISECONDS);
+    Assert.assertTrue(future.cancel(false));
+    Thread.sleep(400);
+    Assert.assertFalse(ran.get());
+    Assert.assertTrue(future.isCancelled());
+  }
+
+  @Test
+  public void overdueRunsAreSkipped() throws Exception {
+    final ScheduledExecutorService underTest = scheduler.newClusterExecutor();
+    final AtomicInteger concurrent = new AtomicInteger();
+    final AtomicInteger maxConcurrent = new AtomicInteger();
+    final AtomicInteger runs = new AtomicInteger();
+    underTest.scheduleAtFixedRate(
+        () -> {
+          maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+          runs.incrementAndGet();
+          try {
+            Thread.sleep(100);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            concurrent.decrementAndGet();
+          }
+        },
+        0,
+        10,
+        TimeUnit.MILLISECONDS);
+    Thread.sleep(500);
+    underTest.shutdown();
+
+    Assert.assertEquals(1, maxConcurrent.get());
+    Assert.assertTrue(runs.get() >= 2);
+    Assert.assertTrue(runs.get() <= 6);
+  }
+
+  @Test
+  public void slowClusterDoesNotHoldOthersBack() throws Exception {
+    final ScheduledExecutorService slow = scheduler.newClusterExecutor();
+    final ScheduledExecutorService healthy = scheduler.newClusterExecutor();
+    final CountDownLatch stuck = new CountDownLatch(1);
+    final CountDownLatch healthyRuns = new CountDownLatch(5);
+    try {
+      slow.scheduleAtFixedRate(
+          () -> {
+            try {
+              stuck.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          },
+          0,
+          5,
+          TimeUnit.MILLISECONDS);
+      healthy.scheduleAtFixedRate(healthyRuns::countDown, 0, 10, TimeUnit.MILLISECONDS);
+
+      Assert.assertTrue(healthyRuns.await(5, TimeUnit.SECONDS));
+    } finally {
+      stuck.countDown();
+      slow.shutdown();
+      healthy.shutdown();
+    }
+  }
+
+  @Test
+  public void clustersShareABoundedNumberOfWorkers() throws Exception {
+    final ScheduledExecutorService[] clusters = new ScheduledExecutorService[4];
+    final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+    final CountDownLatch stuck = new CountDownLatch(1);
+    final CountDownLatch twoBlocked = new CountDownLatch(2);
+    final CountDownLatch allRan = new CountDownLatch(clusters.length);
+    try {
+      for (int i = 0; i < clusters.length; i++) {
+        clusters[i] = scheduler.newClusterExecutor();
+        clusters[i].execute(
+            () -> {
+              workers.add(Thread.currentThread());
+              twoBlocked.countDown();
+              try {
+                stuck.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              allRan.countDown();
+            });
+      }
+      Assert.assertTrue(twoBlocked.await(5, TimeUnit.SECONDS));
+      Thread.sleep(100);
+      Assert.assertEquals(2, workers.size());
+
+      stuck.countDown();
+      Assert.assertTrue(allRan.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(2, workers.size());
+    } finally {
+      stuck.countDown();
+      for (ScheduledExecutorService cluster : clusters) {
+        cluster.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void awaitTerminationReturnsOnceTheRunningTaskIsDone() throws Exception {
+    final ScheduledExecutorService underTest = scheduler.newClusterExecutor();
+    final CountDownLatch running = new CountDownLatch(1);
+    final CountDownLatch finish = new CountDownLatch(1);
+    underTest.execute(
+        () -> {
+          running.countDown();
+          try {
+            finish.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+    underTest.shutdown();
+    Assert.assertFalse(underTest.awaitTermination(50, TimeUnit.MILLISECONDS));
+
+    finish.countDown();
+    Assert.assertTrue(underTest.awaitTermination(5, TimeUnit.SECONDS));
+    Assert.assertTrue(underTest.isTerminated());
+  }
+
+  @Test
+  public void failingPeriodicTaskKeepsRunning() throws Exception {
+    final ScheduledExecutorService underTest = scheduler.newClusterExecutor();
+    final CountDownLatch runs = new CountDownLatch(3);
+    underTest.scheduleWithFixedDelay(
+        () -> {
+          runs.countDown();
+          throw new IllegalStateException("boom");
+        },
+        0,
+        10,
+        TimeUnit.MILLISECONDS);
+    Assert.assertTrue(runs.await(5, TimeUnit.SECONDS));
+    underTest.shutdown();
+  }
+
+  @Test
+  public void shutdownStopsPeriodicTasks() throws Exception {
+    final ScheduledExecutorService underTest = scheduler.newClusterExecutor();
+    final AtomicInteger runs = new AtomicInteger();
+    underTest.scheduleAtFixedRate(runs::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+    Thread.sleep(100);
+    underTest.shutdown();
+    Assert.assertTrue(underTest.awaitTermination(5, TimeUnit.SECONDS));
+    final int afterShutdown = runs.get();
+    Thread.sleep(100);
+
+    Assert.assertTrue(afterShutdown > 0);
+    Assert.assertEquals(afterShutdown, runs.get());
+    Assert.assertTrue(underTest.isTerminated());
+  }
+}
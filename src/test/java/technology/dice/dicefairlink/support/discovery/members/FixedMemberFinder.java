@@ -1,16 +1,32 @@
 package technology.dice.dicefairlink.support.discovery.members;
 
+import technology.dice.dicefairlink.config.FairlinkConfiguration;
 import technology.dice.dicefairlink.discovery.members.MemberFinder;
 import technology.dice.dicefairlink.iterators.SizedIterator;
+import technology.dice.dicefairlink.selection.ReplicaSelector;
+import technology.dice.dicefairlink.selection.RoundRobinSelector;
 import technology.dice.dicefairlink.support.iterators.TestCyclicIterator;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 public class FixedMemberFinder implements MemberFinder {
   private Collection<String> members;
+  private volatile List<String> replicas = Collections.emptyList();
+  private final ReplicaSelector replicaSelector;
 
   public FixedMemberFinder(Collection<String> members) {
     this.members = members;
+    this.replicaSelector = new RoundRobinSelector();
+  }
+
+  /** A finder whose replicas are picked as configured. */
+  public FixedMemberFinder(Collection<String> members, FairlinkConfiguration configuration) {
+    this.members = members;
+    this.replicaSelector = ReplicaSelector.of(configuration, this::replicaMetadata);
   }
 
   public void updateMembers(Collection<String> replicas) {
@@ -19,6 +35,18 @@ public class FixedMemberFinder implements MemberFinder {
 
   @Override
   public SizedIterator<String> discoverReplicas() {
-    return TestCyclicIterator.of(this.members);
+    final Collection<String> members = this.members;
+    this.replicas = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(members)));
+    return TestCyclicIterator.of(members);
+  }
+
+  @Override
+  public List<String> replicas() {
+    return this.replicas;
+  }
+
+  @Override
+  public ReplicaSelector replicaSelector() {
+    return this.replicaSelector;
   }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 - present by Dice Technology Ltd.
+ *
+ * Please see distribution for license.
+ */
+package technology.dice.dicefairlink.support.driver;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bare-bones JDBC connection for tests. It can be made to fail, counts the checks and queries run
+ * through it, and answers every query with the configured rows.
+ */
+public class StubConnection {
+  private final AtomicBoolean healthy = new AtomicBoolean(true);
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private final AtomicInteger isValidChecks = new AtomicInteger();
+  private final AtomicInteger queries = new AtomicInteger();
+  private final AtomicInteger preparedStatements = new AtomicInteger();
+  private volatile List<Map<String, String>> rows = Collections.emptyList();
+
+  public void setHealthy(boolean healthy) {
+    this.healthy.set(healthy);
+  }
+
+  public void setRows(List<Map<String, String>> rows) {
+    this.rows = rows;
+  }
+
+  public boolean isClosed() {
+    return closed.get();
+  }
+
+  public int getIsValidChecks() {
+    return isValidChecks.get();
+  }
+
+  public int getQueries() {
+    return queries.get();
+  }
+
+  public int getPreparedStatements() {
+    return preparedStatements.get();
+  }
+
+  public Connection connection() {
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "isValid":
+                  isValidChecks.incrementAndGet();
+                  return healthy.get() && !closed.get();
+                case "close":
+                case "abort":
+                  closed.set(true);
+                  return null;
+                case "createStatement":
+                  return this.statement(Statement.class);
+                case "prepareStatement":
+                  preparedStatements.incrementAndGet();
+                  return this.statement(PreparedStatement.class);
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+
+  private <T extends Statement> T statement(Class<T> type) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "execute":
+                case "executeQuery":
+                  queries.incrementAndGet();
+                  if (!healthy.get() || closed.get()) {
+                    throw new SQLException("Connection reset");
+                  }
+                  return method.getName().equals("execute") ? Boolean.TRUE : this.resultSet();
+                case "setQueryTimeout":
+                case "close":
+                  return null;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            }));
+  }
+
+  private ResultSet resultSet() {
+    final Iterator<Map<String, String>> remaining = new ArrayList<>(this.rows).iterator();
+    final Map<String, String>[] current = new Map[1];
+    return (ResultSet)
+        Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "next":
+                  current[0] = remaining.hasNext() ? remaining.next() : null;
+                  return current[0] != null;
+                case "getString":
+                  return current[0].get((String) args[0]);
+                case "close":
+                  return null;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+}
@@ -1,10 +1,10 @@
 package technology.dice.dicefairlink.support.iterators;
 
-import technology.dice.dicefairlink.iterators.CyclicIterator;
+import technology.dice.dicefairlink.iterators.AtomicCyclicIterator;
 
 import java.util.Collection;
 
-public class TestCyclicIterator<T> extends CyclicIterator<T> {
+public class TestCyclicIterator<T> extends AtomicCyclicIterator<T> {
   private final Collection<? extends T> collection;
 
   protected TestCyclicIterator(Collection<? extends T> collection) {
@@ -12,7 +12,7 @@ public class TestCyclicIterator<T> extends CyclicIterator<T> {
     this.collection = collection;
   }
 
-  public static <T> CyclicIterator<T> of(Collection<? extends T> collection) {
+  public static <T> AtomicCyclicIterator<T> of(Collection<? extends T> collection) {
     return new TestCyclicIterator<>(collection);
   }
 
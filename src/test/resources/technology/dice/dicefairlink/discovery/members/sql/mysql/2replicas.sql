@@ -1,2 +1,2 @@
-INSERT INTO replica_host_status VALUES ('master','MASTER_SESSION_ID');
-INSERT INTO replica_host_status VALUES ('replica','another-sesion');
\ No newline at end of file
+INSERT INTO replica_host_status (SERVER_ID, SESSION_ID) VALUES ('master','MASTER_SESSION_ID');
+INSERT INTO replica_host_status (SERVER_ID, SESSION_ID) VALUES ('replica','another-sesion');
\ No newline at end of file
@@ -1,6 +1,6 @@
-INSERT INTO replica_host_status
+INSERT INTO replica_host_status (SERVER_ID, SESSION_ID)
 VALUES ('writer', 'MASTER_SESSION_ID');
-INSERT INTO replica_host_status
+INSERT INTO replica_host_status (SERVER_ID, SESSION_ID)
 VALUES ('localhost:__PORT_SLAVE_1__', 'another-sesion1');
-INSERT INTO replica_host_status
+INSERT INTO replica_host_status (SERVER_ID, SESSION_ID)
 VALUES ('localhost:__PORT_SLAVE_2__', 'another-sesion2');
\ No newline at end of file
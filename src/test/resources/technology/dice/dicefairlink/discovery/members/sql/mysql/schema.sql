@@ -1,6 +1,9 @@
 CREATE TABLE replica_host_status(
   SERVER_ID  varchar(100)NOT NULL DEFAULT '',
-  SESSION_ID varchar(100)NOT NULL DEFAULT ''
+  SESSION_ID varchar(100)NOT NULL DEFAULT '',
+  REPLICA_LAG_IN_MILLISECONDS double NOT NULL DEFAULT 0,
+  CPU double NOT NULL DEFAULT 0,
+  LAST_UPDATE_TIMESTAMP datetime NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
 CREATE TABLE data(
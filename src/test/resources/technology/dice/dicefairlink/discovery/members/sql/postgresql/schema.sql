@@ -1,5 +1,11 @@
 
-create table aurora_cluster_information (server_id text, session_id text);
+create table aurora_cluster_information (
+    server_id text,
+    session_id text,
+    replica_lag_in_msec real default 0,
+    cpu real default 0,
+    last_update_timestamp timestamp with time zone default now()
+);
 
 create or replace function aurora_replica_status() returns setof aurora_cluster_information as $$
     select * from aurora_cluster_information;